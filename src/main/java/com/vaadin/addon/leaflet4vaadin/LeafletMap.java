@@ -15,15 +15,20 @@
 package com.vaadin.addon.leaflet4vaadin;
 
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vaadin.addon.leaflet4vaadin.controls.LayersControl.LayerControlEventType;
 import com.vaadin.addon.leaflet4vaadin.controls.LayersControlEvent;
 import com.vaadin.addon.leaflet4vaadin.controls.LeafletControl;
@@ -31,7 +36,9 @@ import com.vaadin.addon.leaflet4vaadin.layer.Identifiable;
 import com.vaadin.addon.leaflet4vaadin.layer.Layer;
 import com.vaadin.addon.leaflet4vaadin.layer.events.DragEndEvent;
 import com.vaadin.addon.leaflet4vaadin.layer.events.ErrorEvent;
+import com.vaadin.addon.leaflet4vaadin.layer.events.EventRate;
 import com.vaadin.addon.leaflet4vaadin.layer.events.KeyboardEvent;
+import com.vaadin.addon.leaflet4vaadin.layer.events.LeafletBatchEventListener;
 import com.vaadin.addon.leaflet4vaadin.layer.events.LayerEvent;
 import com.vaadin.addon.leaflet4vaadin.layer.events.LeafletEvent;
 import com.vaadin.addon.leaflet4vaadin.layer.events.LeafletEventListener;
@@ -43,6 +50,7 @@ import com.vaadin.addon.leaflet4vaadin.layer.events.ResizeEvent;
 import com.vaadin.addon.leaflet4vaadin.layer.events.TileErrorEvent;
 import com.vaadin.addon.leaflet4vaadin.layer.events.TileEvent;
 import com.vaadin.addon.leaflet4vaadin.layer.events.TooltipEvent;
+import com.vaadin.addon.leaflet4vaadin.layer.events.ViewChangeEvent;
 import com.vaadin.addon.leaflet4vaadin.layer.events.ZoomAnimEvent;
 import com.vaadin.addon.leaflet4vaadin.layer.events.supports.SupportsKeyboardEvents;
 import com.vaadin.addon.leaflet4vaadin.layer.events.supports.SupportsLayerEvents;
@@ -61,6 +69,8 @@ import com.vaadin.addon.leaflet4vaadin.layer.events.types.PopupEventType;
 import com.vaadin.addon.leaflet4vaadin.layer.events.types.TileEventType;
 import com.vaadin.addon.leaflet4vaadin.layer.events.types.TooltipEventType;
 import com.vaadin.addon.leaflet4vaadin.layer.groups.LayerGroup;
+import com.vaadin.addon.leaflet4vaadin.layer.groups.LayerIndex;
+import com.vaadin.addon.leaflet4vaadin.layer.map.MapViewState;
 import com.vaadin.addon.leaflet4vaadin.layer.map.functions.GeolocationFunctions;
 import com.vaadin.addon.leaflet4vaadin.layer.map.functions.MapConversionFunctions;
 import com.vaadin.addon.leaflet4vaadin.layer.map.functions.MapGetStateFunctions;
@@ -68,12 +78,20 @@ import com.vaadin.addon.leaflet4vaadin.layer.map.functions.MapModifyStateFunctio
 import com.vaadin.addon.leaflet4vaadin.layer.map.options.DefaultMapOptions;
 import com.vaadin.addon.leaflet4vaadin.layer.map.options.MapOptions;
 import com.vaadin.addon.leaflet4vaadin.layer.raster.TileLayer;
+import com.vaadin.addon.leaflet4vaadin.operations.BatchCall;
+import com.vaadin.addon.leaflet4vaadin.operations.BatchResult;
+import com.vaadin.addon.leaflet4vaadin.operations.CallTracker;
 import com.vaadin.addon.leaflet4vaadin.operations.LeafletOperation;
+import com.vaadin.addon.leaflet4vaadin.operations.LeafletOperationQueue;
+import com.vaadin.addon.leaflet4vaadin.serialization.JsonValueDecoder;
+import com.vaadin.addon.leaflet4vaadin.serialization.LeafletSerializer;
 import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
 import com.vaadin.addon.leaflet4vaadin.types.Point;
 import com.vaadin.flow.component.ComponentEvent;
 import com.vaadin.flow.component.ComponentEventListener;
 import com.vaadin.flow.component.ComponentUtil;
+import com.vaadin.flow.component.DetachEvent;
 import com.vaadin.flow.component.EventData;
 import com.vaadin.flow.component.HasSize;
 import com.vaadin.flow.component.HasStyle;
@@ -86,10 +104,13 @@ import com.vaadin.flow.component.page.PendingJavaScriptResult;
 import com.vaadin.flow.component.page.PendingJavaScriptResult.JavaScriptException;
 import com.vaadin.flow.component.polymertemplate.EventHandler;
 import com.vaadin.flow.component.polymertemplate.PolymerTemplate;
-import com.vaadin.flow.internal.JsonSerializer;
 import com.vaadin.flow.shared.Registration;
 
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
 import elemental.json.JsonType;
+import elemental.json.JsonValue;
 
 @Tag("leaflet-map")
 @NpmPackage(value = "leaflet", version = "1.6.0")
@@ -110,8 +131,52 @@ public final class LeafletMap extends PolymerTemplate<LeafletModel> implements M
 
     private final MapLayer mapLayer = new MapLayer();
 
+    private final LayerIndex layerIndex = new LayerIndex(mapLayer);
+
+    private MapViewState viewState;
+
     private boolean ready = false;
 
+    private final LeafletOperationQueue operationQueue = new LeafletOperationQueue();
+
+    private boolean flushScheduled = false;
+
+    /**
+     * The maximum number of function calls which can wait for the map to be
+     * initialized on the client side
+     */
+    public static final int MAX_PRE_READY_CALLS = 1000;
+
+    /**
+     * Operations held back behind the function calls waiting for the map to be
+     * initialized on the client side, in issue order. They are replayed
+     * together with the calls in one batch when the map gets ready. The
+     * operations are not capped, like the operation queue: they are only the
+     * operations issued after the first waiting call until the first
+     * round-trip of the map, and none of them can be dropped without changing
+     * the state of the map.
+     */
+    private final List<LeafletOperation> preReadyOperations = new ArrayList<>();
+
+    /**
+     * Function calls waiting for the map to be initialized on the client side,
+     * capped by {@link #MAX_PRE_READY_CALLS}. They are not serialized, because
+     * their futures are held by the code waiting for them in the current JVM,
+     * while the operations held back behind them are.
+     */
+    private transient List<PendingCall<?>> pendingCalls = new ArrayList<>();
+
+    /**
+     * Pending calls which can be shared by an identical call, because no
+     * operation has been issued since they were queued.
+     */
+    private transient Map<String, PendingCall<?>> collapsibleCalls = new HashMap<>();
+
+    /**
+     * Function calls sent to the client side whose results are still expected
+     */
+    private final CallTracker callTracker = new CallTracker(() -> getUI().<Executor> map(ui -> command -> ui.access(command::run)).orElse(null));
+
     public LeafletMap() {
         this(new DefaultMapOptions());
     }
@@ -401,6 +466,93 @@ public final class LeafletMap extends PolymerTemplate<LeafletModel> implements M
         fireEvent(this.mapLayer, event);
     }
 
+    /**
+     * Fired when the view of the map has changed (moveend, zoomend), together
+     * with the new view of the map.
+     * 
+     * @param layerId
+     *            the id of the layer where the event occurred
+     * @param eventType
+     *            the type of the occurred event
+     * @param view
+     *            the center, zoom, bounds and size of the map after the change
+     * @see ViewChangeEvent
+     * @see MapEventType
+     */
+    @EventHandler
+    private void onViewChangeEventHandler(@EventData("event.layerId") String layerId, @EventData("event.type") String eventType, @EventData("event.view") JsonObject view) {
+        Layer layer = findLayer(layerId);
+        LeafletEvent leafletEvent = toViewChangeEvent(layer, MapEventType.valueOf(eventType), view);
+        fireEvent(layer, leafletEvent);
+    }
+
+    private static ViewChangeEvent toViewChangeEvent(Layer layer, MapEventType eventType, JsonObject view) {
+        JsonObject bounds = view.getObject("bounds");
+        LatLngBounds latLngBounds = new LatLngBounds(new LatLng(bounds.getNumber("south"), bounds.getNumber("west")),
+                new LatLng(bounds.getNumber("north"), bounds.getNumber("east")));
+        return new ViewChangeEvent(layer, eventType, toLatLng(view, "center"), view.getNumber("zoom"), latLngBounds, toPoint(view, "size"));
+    }
+
+    /**
+     * Fired when the client side delivers a batch of buffered events.
+     * 
+     * @param layerId
+     *            the id of the layer where the events occurred
+     * @param eventType
+     *            the type of the occurred events
+     * @param events
+     *            the data of the buffered events in the order as they occurred
+     * @see EventRate#batch(int, int)
+     */
+    @EventHandler
+    private void onBatchEventHandler(@EventData("event.layerId") String layerId, @EventData("event.type") String eventType, @EventData("event.events") JsonArray events) {
+        Layer layer = findLayer(layerId);
+        LeafletEventType type = EventTypeRegistry.valueOf(eventType);
+        List<LeafletEvent> leafletEvents = new ArrayList<>(events.length());
+        for (int i = 0; i < events.length(); i++) {
+            leafletEvents.add(toBatchedEvent(layer, type, events.getObject(i)));
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Leaflet events fired on client side: {} x {}", leafletEvents.size(), eventType);
+        }
+        layer.fireEvents(type, leafletEvents);
+    }
+
+    private LeafletEvent toBatchedEvent(Layer layer, LeafletEventType type, JsonObject data) {
+        LatLng latLng = toLatLng(data, "latlng");
+        if (type instanceof MouseEventType) {
+            return new MouseEvent(layer, (MouseEventType) type, latLng, toPoint(data, "layerPoint"), toPoint(data, "containerPoint"));
+        } else if (type instanceof LocationEventType) {
+            return new LocationEvent(layer, (LocationEventType) type, latLng, null, toDouble(data, "accuracy"), toDouble(data, "altitude"),
+                    toDouble(data, "altitudeAccuracy"), toDouble(data, "heading"), toDouble(data, "speed"), toDouble(data, "timestamp"));
+        } else if (data.hasKey("view")) {
+            return toViewChangeEvent(layer, MapEventType.valueOf(type.getLeafletEvent()), data.getObject("view"));
+        } else if (data.hasKey("oldLatLng")) {
+            return new MoveEvent(layer, DragEventType.valueOf(type.getLeafletEvent()), toLatLng(data, "oldLatLng"), latLng);
+        }
+        return new LeafletEvent(layer, type);
+    }
+
+    private static LatLng toLatLng(JsonObject data, String key) {
+        if (!data.hasKey(key) || data.get(key).getType() != JsonType.OBJECT) {
+            return null;
+        }
+        JsonObject latLng = data.getObject(key);
+        return new LatLng(latLng.getNumber("lat"), latLng.getNumber("lng"));
+    }
+
+    private static Point toPoint(JsonObject data, String key) {
+        if (!data.hasKey(key) || data.get(key).getType() != JsonType.OBJECT) {
+            return null;
+        }
+        JsonObject point = data.getObject(key);
+        return Point.of(point.getNumber("x"), point.getNumber("y"));
+    }
+
+    private static Double toDouble(JsonObject data, String key) {
+        return data.hasKey(key) && data.get(key).getType() == JsonType.NUMBER ? data.getNumber(key) : null;
+    }
+
     /**
      * fire the given leaflet event
      * 
@@ -411,8 +563,10 @@ public final class LeafletMap extends PolymerTemplate<LeafletModel> implements M
      * @see LeafletEvent
      */
     private void fireEvent(Layer layer, LeafletEvent event) {
-        logger.info("Leaflet event fired on client side: {}", event.getType());
-        logger.info("Event data: {}", event);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Leaflet event fired on client side: {}", event.getType());
+            logger.debug("Event data: {}", event);
+        }
         layer.fireEvent(event);
     }
 
@@ -427,12 +581,22 @@ public final class LeafletMap extends PolymerTemplate<LeafletModel> implements M
         return this.mapLayer.getLayer(layerId).orElse(this.mapLayer);
     }
 
+    /**
+     * Returns the layer with the given internal ID from anywhere in the map,
+     * including the layers of the nested layer groups.
+     * 
+     * @param layerId
+     *            the id of the layer to be looking for
+     * @return the layer with the given internal ID
+     */
     public Layer findLayer(String layerId) {
-        return this.mapLayer.findLayer(layerId).orElse(this.mapLayer);
+        return this.layerIndex.find(layerId).orElse(this.mapLayer);
     }
 
     /**
-     * Adds the given layer to the map
+     * Adds the given layer to the map. The map becomes the parent of the layer
+     * after the layer is added on the client side, so the operations the layer
+     * issues on its attachment are applied after it.
      * 
      * @param layer
      *            the layer to add
@@ -441,6 +605,7 @@ public final class LeafletMap extends PolymerTemplate<LeafletModel> implements M
         logger.debug("add layer: {}", layer);
         this.mapLayer.addLayer(layer);
         executeJs("addLayer", layer);
+        layer.setParent(this);
     }
 
     /**
@@ -453,6 +618,9 @@ public final class LeafletMap extends PolymerTemplate<LeafletModel> implements M
         logger.debug("remove layer: {}", layer.getUuid());
         this.mapLayer.removeLayer(layer);
         executeJs("removeLayer", layer);
+        if (layer.getParent() == this) {
+            layer.setParent(null);
+        }
     }
 
     public void setBaseUrl(String baseUrl) {
@@ -498,9 +666,54 @@ public final class LeafletMap extends PolymerTemplate<LeafletModel> implements M
     private void onMapReadyEventHandler() {
         logger.info("Leaflet map gets initialized on client side.");
         this.ready = true;
+        replayPreReadyOperations();
         fireEvent(new MapReadyEvent(this));
     }
 
+    /**
+     * Fired when the client side pushes a new snapshot of the map view, after
+     * the map is initialized and after each moveend, zoomend and resize event.
+     * 
+     * @param state
+     *            the values of the snapshot
+     * @see MapViewState#of(double...)
+     */
+    @EventHandler
+    private void onViewStateEventHandler(@EventData("event.state") JsonArray state) {
+        double[] values = new double[state.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = state.getNumber(i);
+        }
+        this.viewState = MapViewState.of(values);
+        fireEvent(new ViewStateChangeEvent(this, viewState));
+    }
+
+    /**
+     * Adds a listener which is called each time the client side pushes a new
+     * snapshot of the map view.
+     * 
+     * @param listener
+     *            the listener to call when the view state changes, not
+     *            {@code null}
+     * @return a handle that can be used for removing the listener
+     * @see #getViewState()
+     */
+    public Registration addViewStateChangeListener(ComponentEventListener<ViewStateChangeEvent> listener) {
+        return ComponentUtil.addListener(this, ViewStateChangeEvent.class, listener);
+    }
+
+    /**
+     * Returns the last snapshot of the map view pushed by the client side. Unlike
+     * {@link #getCenter()}, {@link #getZoom()} or {@link #getBounds()}, reading
+     * the snapshot needs no round-trip.
+     * 
+     * @return the last snapshot of the map view, or null if the map is not
+     *         initialized on the client side yet
+     */
+    public MapViewState getViewState() {
+        return viewState;
+    }
+
     /**
      * Adds theme variants to the map component.
      *
@@ -513,42 +726,348 @@ public final class LeafletMap extends PolymerTemplate<LeafletModel> implements M
 
     @Override
     public void executeJs(Identifiable target, String functionName, Serializable... arguments) {
-        logger.info("Execute leaflet function: {}", functionName);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Execute leaflet function: {}", functionName);
+        }
         LeafletOperation leafletOperation = new LeafletOperation(target, functionName, arguments);
-        getElement().callJsFunction("callLeafletFunction", JsonSerializer.toJson(leafletOperation));
+        operationQueue.add(leafletOperation);
+        scheduleFlush();
+    }
+
+    /**
+     * Registers a one-time callback which flushes the pending operations right
+     * before the response is sent to the client. The operations are sent even
+     * if the map is not initialized on the client side yet, because the client
+     * side applies them once the element is upgraded. Only the operations
+     * issued after a function call waiting for the map, or waiting for an
+     * earlier call to complete, are held back, to keep them behind the call.
+     */
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            getElement().getNode().runWhenAttached(ui -> ui.beforeClientResponse(this, context -> {
+                flushScheduled = false;
+                if (pendingCalls.isEmpty() && callTracker.getQueued() == 0) {
+                    flushOperations();
+                }
+            }));
+        }
+    }
+
+    /**
+     * Sends all pending operations to the client-side in a single function call.
+     * The operations will be applied on client-side in the same order as they
+     * were issued.
+     */
+    private void flushOperations() {
+        sendOperations(operationQueue.drain());
+    }
+
+    private void sendOperations(List<LeafletOperation> operations) {
+        if (!operations.isEmpty()) {
+            logger.debug("Flush {} leaflet operations", operations.size());
+            JsonArray json = Json.createArray();
+            for (int i = 0; i < operations.size(); i++) {
+                json.set(i, operations.get(i).toJson());
+            }
+            getElement().callJsFunction("callLeafletFunctions", json);
+        }
+    }
+
+    /**
+     * Returns the pending operations which must be applied before a function
+     * call. They are sent right away if the call is sent right away, otherwise
+     * they are returned to be sent together with the call, when an earlier call
+     * completes.
+     */
+    private List<LeafletOperation> takeOperationsBeforeCall() {
+        if (callTracker.getQueued() == 0 && callTracker.getInFlight() < callTracker.getMaxInFlight()) {
+            flushOperations();
+            return new ArrayList<>();
+        }
+        return operationQueue.drain();
+    }
+
+    /**
+     * Sends the operations which must be applied before a function call. The
+     * operations issued after the call are sent once no call waits to be sent
+     * any more.
+     */
+    private void sendOperationsBeforeCall(List<LeafletOperation> operations) {
+        sendOperations(operations);
+        operations.clear();
+        if (callTracker.getQueued() == 0 && !operationQueue.isEmpty()) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Keeps the operations of a function call which completed before it could
+     * be sent, e.g. because it timed out in the queue. They are still applied,
+     * in front of the operations of the later calls.
+     */
+    private void releaseOperationsOnCompletion(CompletableFuture<?> future, List<LeafletOperation> operations) {
+        future.whenComplete((result, error) -> {
+            if (operations.isEmpty()) {
+                return;
+            }
+            if (ready) {
+                sendOperations(operations);
+            } else {
+                preReadyOperations.addAll(operations);
+            }
+            operations.clear();
+        });
     }
 
     @Override
     public <T extends Serializable> CompletableFuture<T> call(Identifiable target, String functionName, Class<T> resultType, Serializable... arguments) {
-        if (ready) {
-            logger.info("Call leaflet function: {}", functionName);
-            LeafletOperation leafletOperation = new LeafletOperation(target, functionName, arguments);
-            PendingJavaScriptResult javascriptResult = getElement().callJsFunction("callLeafletFunction", JsonSerializer.toJson(leafletOperation));
-
-            CompletableFuture<T> completableFuture = new CompletableFuture<>();
-            javascriptResult.then(value -> {
-                try {
-                    ObjectMapper objectMapper = new ObjectMapper();
-                    T result;
-                    // Detect object type for value to be handled correctly (ex: getZoom)
-                    JsonType type = value.getType();
-                    if ( type.equals(JsonType.OBJECT)) {
-                        result = objectMapper.readValue(value.toString(), resultType);
-                    }
-                    else {
-                        result = objectMapper.readValue(value.asString(), resultType);
-                    }
-                    completableFuture.complete(result);
-                } catch (IOException e) {
-                    throw new RuntimeException("Failed to parse javascript result", e);
-                }
-            }, errorValue -> {
+        return callWithTimeout(target, functionName, resultType, callTracker.getDefaultTimeoutMillis(), arguments);
+    }
+
+    /**
+     * Calls the given function on the client side and returns its result. The
+     * returned future completes exceptionally with a
+     * {@link java.util.concurrent.TimeoutException} if the result does not
+     * arrive within the given timeout, and it is cancelled if the map gets
+     * detached before.
+     * 
+     * @param target
+     *            the target object of the function call
+     * @param functionName
+     *            the name of the function
+     * @param resultType
+     *            the type of the result
+     * @param timeoutMillis
+     *            the time to wait for the result, measured from this call,
+     *            or 0 to wait without limit
+     * @param arguments
+     *            the arguments of the function
+     * @param <T>
+     *            the type of the result
+     * @return the result of the function call
+     * @see #getCallTracker()
+     */
+    public <T extends Serializable> CompletableFuture<T> callWithTimeout(Identifiable target, String functionName, Class<T> resultType, long timeoutMillis,
+            Serializable... arguments) {
+        LeafletOperation leafletOperation = new LeafletOperation(target, functionName, arguments);
+        if (!ready) {
+            logger.debug("Defer leaflet function call until the map is ready: {}", functionName);
+            return deferCall(leafletOperation, resultType, timeoutMillis);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Call leaflet function: {}", functionName);
+        }
+        // the pending operations must be applied before the function call
+        List<LeafletOperation> operations = takeOperationsBeforeCall();
+        CompletableFuture<T> future = callTracker.submit(completableFuture -> {
+            sendOperationsBeforeCall(operations);
+            PendingJavaScriptResult javascriptResult = getElement().callJsFunction("callLeafletFunction", leafletOperation.toJson());
+            javascriptResult.then(value -> complete(completableFuture, value, resultType), errorValue -> {
                 JavaScriptException exception = new JavaScriptException(errorValue);
                 completableFuture.completeExceptionally(exception);
             });
-            return completableFuture;
+        }, timeoutMillis);
+        releaseOperationsOnCompletion(future, operations);
+        return future;
+    }
+
+    /**
+     * Completes the given future with the result of a function call, or
+     * exceptionally if the result cannot be read.
+     */
+    private static <T> void complete(CompletableFuture<T> future, JsonValue value, Class<T> resultType) {
+        try {
+            future.complete(readResult(value, resultType));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Queues a function call until the map gets initialized on the client side.
+     * The operations issued before the first waiting call are sent right away,
+     * the ones issued between waiting calls are kept in front of the later
+     * call. An identical call issued without any operation in between shares
+     * the future of the queued one. The timeout is measured from this call, as
+     * for the calls sent right away.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Serializable> CompletableFuture<T> deferCall(LeafletOperation leafletOperation, Class<T> resultType, long timeoutMillis) {
+        if (pendingCalls.isEmpty()) {
+            flushOperations();
+        } else if (!operationQueue.isEmpty()) {
+            preReadyOperations.addAll(operationQueue.drain());
+            collapsibleCalls.clear();
+        }
+        JsonObject json = leafletOperation.toJson();
+        String key = resultType.getName() + json.toJson();
+        PendingCall<?> collapsible = collapsibleCalls.get(key);
+        if (collapsible != null) {
+            return (CompletableFuture<T>) collapsible.future;
+        }
+        PendingCall<T> pendingCall = new PendingCall<>(preReadyOperations.size(), leafletOperation, resultType);
+        if (pendingCalls.size() >= MAX_PRE_READY_CALLS) {
+            pendingCall.future.completeExceptionally(new IllegalStateException("Too many function calls are waiting for the map to be ready, the limit is "
+                    + MAX_PRE_READY_CALLS));
+            return pendingCall.future;
+        }
+        pendingCalls.add(pendingCall);
+        collapsibleCalls.put(key, pendingCall);
+        callTracker.expireAfter(pendingCall.future, timeoutMillis);
+        return pendingCall.future;
+    }
+
+    /**
+     * Sends the function calls issued before the map got initialized and the
+     * operations held back behind them to the client side in one call, in the
+     * order as they were issued.
+     */
+    private void replayPreReadyOperations() {
+        preReadyOperations.addAll(operationQueue.drain());
+        if (preReadyOperations.isEmpty() && pendingCalls.isEmpty()) {
+            return;
+        }
+        List<PendingCall<?>> calls = new ArrayList<>(pendingCalls);
+        List<LeafletOperation> operations = new ArrayList<>(preReadyOperations.size() + calls.size());
+        int[] positions = new int[calls.size()];
+        int next = 0;
+        for (int i = 0; i < calls.size(); i++) {
+            PendingCall<?> call = calls.get(i);
+            operations.addAll(preReadyOperations.subList(next, call.index));
+            next = call.index;
+            positions[i] = operations.size();
+            operations.add(call.operation);
+        }
+        operations.addAll(preReadyOperations.subList(next, preReadyOperations.size()));
+        preReadyOperations.clear();
+        pendingCalls.clear();
+        collapsibleCalls.clear();
+
+        logger.debug("Replay {} leaflet operations issued before the map got ready", operations.size());
+        JsonArray json = Json.createArray();
+        for (int i = 0; i < operations.size(); i++) {
+            json.set(i, operations.get(i).toJson());
+        }
+        if (calls.isEmpty()) {
+            getElement().callJsFunction("callLeafletFunctions", json);
+            return;
+        }
+        for (int position : positions) {
+            json.getObject(position).put("withResult", true);
+        }
+        CompletableFuture<JsonArray> replay = callTracker.submit(completableFuture -> {
+            getElement().callJsFunction("callLeafletFunctionsWithResults", json).then(value -> completableFuture.complete((JsonArray) value),
+                    errorValue -> completableFuture.completeExceptionally(new JavaScriptException(errorValue)));
+        });
+        replay.whenComplete((results, error) -> {
+            for (int i = 0; i < calls.size(); i++) {
+                if (error == null) {
+                    calls.get(i).complete(results.get(positions[i]));
+                } else {
+                    calls.get(i).future.completeExceptionally(error);
+                }
+            }
+        });
+    }
+
+    /**
+     * A function call waiting for the map to be initialized on the client side.
+     * It is sent after the first {@code index} operations held back.
+     */
+    private static class PendingCall<T extends Serializable> {
+
+        private final int index;
+        private final LeafletOperation operation;
+        private final Class<T> resultType;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private PendingCall(int index, LeafletOperation operation, Class<T> resultType) {
+            this.index = index;
+            this.operation = operation;
+            this.resultType = resultType;
+        }
+
+        private void complete(JsonValue value) {
+            LeafletMap.complete(future, value, resultType);
+        }
+    }
+
+    /**
+     * Creates a builder of function calls, which are evaluated on the client
+     * side in one round-trip.
+     * 
+     * @return a new batch of function calls
+     * @see BatchCall#execute()
+     */
+    public BatchCall batchCall() {
+        return new BatchCall(this);
+    }
+
+    /**
+     * Sends the function calls of the given batch to the client side in one
+     * call.
+     * 
+     * @param batchCall
+     *            the batch of function calls
+     * @return the results of the function calls
+     */
+    public CompletableFuture<BatchResult> call(BatchCall batchCall) {
+        if (!ready) {
+            return deferBatchCall(batchCall);
         } else {
-            return null;
+            if (logger.isDebugEnabled()) {
+                logger.debug("Call {} leaflet functions in batch", batchCall.size());
+            }
+            JsonArray operations = Json.createArray();
+            for (LeafletOperation operation : batchCall.getOperations()) {
+                JsonObject json = operation.toJson();
+                json.put("withResult", true);
+                operations.set(operations.length(), json);
+            }
+            List<LeafletOperation> pendingOperations = takeOperationsBeforeCall();
+            CompletableFuture<BatchResult> future = callTracker.submit(completableFuture -> {
+                sendOperationsBeforeCall(pendingOperations);
+                PendingJavaScriptResult javascriptResult = getElement().callJsFunction("callLeafletFunctionsWithResults", operations);
+                javascriptResult.then(value -> {
+                    try {
+                        JsonArray values = (JsonArray) value;
+                        List<Object> results = new ArrayList<>(values.length());
+                        for (BatchResult.Key<?> key : batchCall.getKeys()) {
+                            results.add(readResult(values.get(key.getIndex()), key.getResultType()));
+                        }
+                        completableFuture.complete(new BatchResult(results));
+                    } catch (RuntimeException e) {
+                        completableFuture.completeExceptionally(e);
+                    }
+                }, errorValue -> {
+                    JavaScriptException exception = new JavaScriptException(errorValue);
+                    completableFuture.completeExceptionally(exception);
+                });
+            });
+            releaseOperationsOnCompletion(future, pendingOperations);
+            return future;
+        }
+    }
+
+    private CompletableFuture<BatchResult> deferBatchCall(BatchCall batchCall) {
+        List<LeafletOperation> operations = batchCall.getOperations();
+        List<CompletableFuture<?>> futures = new ArrayList<>(operations.size());
+        for (BatchResult.Key<?> key : batchCall.getKeys()) {
+            futures.add(deferCall(operations.get(key.getIndex()), key.getResultType(), callTracker.getDefaultTimeoutMillis()));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(done -> {
+            List<Object> results = new ArrayList<>(futures.size());
+            futures.forEach(future -> results.add(future.join()));
+            return new BatchResult(results);
+        });
+    }
+
+    private static <T> T readResult(JsonValue value, Class<T> resultType) {
+        try {
+            return JsonValueDecoder.decode(value, resultType);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse javascript result", e);
         }
     }
 
@@ -558,6 +1077,33 @@ public final class LeafletMap extends PolymerTemplate<LeafletModel> implements M
         this.getModel().getEvents().add(eventType);
     }
 
+    @Override
+    public <T extends LeafletEvent> void addEventListener(LeafletEventType eventType, LeafletEventListener<T> listener, EventRate eventRate) {
+        this.mapLayer.addEventListener(eventType, listener, eventRate);
+        this.getModel().getEvents().add(eventType);
+        updateEventRates();
+    }
+
+    @Override
+    public <T extends LeafletEvent> void addBatchEventListener(LeafletEventType eventType, LeafletBatchEventListener<T> listener, EventRate batch) {
+        this.mapLayer.addBatchEventListener(eventType, listener, batch);
+        this.getModel().getEvents().add(eventType);
+        updateEventRates();
+    }
+
+    /**
+     * Sends the rate policies of the map events to the client side, where
+     * they are applied before the events are sent to the server.
+     */
+    private void updateEventRates() {
+        try {
+            getElement().setPropertyJson("eventRates", mapLayer.getEventRates() == null ? Json.createObject()
+                    : LeafletSerializer.toJsonValue(mapLayer.getEventRates()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialize the event rates", e);
+        }
+    }
+
     @Override
     public String getUuid() {
         return getModel().getMapOptions().getUuid();
@@ -566,12 +1112,14 @@ public final class LeafletMap extends PolymerTemplate<LeafletModel> implements M
     @Override
     public void removeEventListener(LeafletEventType eventType) {
         this.mapLayer.removeEventListener(eventType);
+        updateEventRates();
         executeJs("removeEventListener", eventType.getLeafletEvent());
     }
 
     @Override
     public void clearAllEventListeners() {
         this.mapLayer.clearAllEventListeners();
+        updateEventRates();
         executeJs("clearAllEventListeners");
     }
 
@@ -587,6 +1135,48 @@ public final class LeafletMap extends PolymerTemplate<LeafletModel> implements M
         return ready;
     }
 
+    /**
+     * Returns the tracker of the function calls sent to the client side, to
+     * configure the default timeout and the maximum number of calls in flight,
+     * and to read the counters of pending, completed and timed out calls.
+     * 
+     * @return the tracker of the function calls
+     */
+    public CallTracker getCallTracker() {
+        return callTracker;
+    }
+
+    /**
+     * Cancels the pending function calls, because their results will never
+     * arrive from the detached client side. The operations and calls issued
+     * after this are queued until the map gets initialized again.
+     */
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        super.onDetach(detachEvent);
+        logger.debug("Cancel {} pending leaflet function calls", callTracker.getPending() + pendingCalls.size());
+        this.ready = false;
+        callTracker.cancelAll();
+        List<PendingCall<?>> calls = new ArrayList<>(pendingCalls);
+        pendingCalls.clear();
+        collapsibleCalls.clear();
+        calls.forEach(call -> call.future.cancel(false));
+        // the operations held back behind the cancelled calls are still sent
+        List<LeafletOperation> later = operationQueue.drain();
+        preReadyOperations.forEach(operationQueue::add);
+        later.forEach(operationQueue::add);
+        preReadyOperations.clear();
+        if (!operationQueue.isEmpty()) {
+            scheduleFlush();
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        pendingCalls = new ArrayList<>();
+        collapsibleCalls = new HashMap<>();
+    }
+
     /**
      * Map event which fired when map gets initialized on client side
      * 
@@ -604,4 +1194,32 @@ public final class LeafletMap extends PolymerTemplate<LeafletModel> implements M
         }
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Event fired when the client side pushes a new snapshot of the map view
+     * 
+     * @author <strong>Gabor Kokeny</strong> Email:
+     *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+     * @since 2020-06-09
+     * @version 1.0
+     */
+    public static final class ViewStateChangeEvent extends ComponentEvent<LeafletMap> {
+
+        private static final long serialVersionUID = -5170532117454718283L;
+
+        private final MapViewState viewState;
+
+        public ViewStateChangeEvent(LeafletMap source, MapViewState viewState) {
+            super(source, true);
+            this.viewState = viewState;
+        }
+
+        /**
+         * @return the new snapshot of the map view
+         */
+        public MapViewState getViewState() {
+            return viewState;
+        }
+
+    }
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
@@ -13,28 +14,34 @@ import java.util.stream.Collectors;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vaadin.addon.leaflet4vaadin.annotations.LeafletArgument;
 import com.vaadin.addon.leaflet4vaadin.layer.Identifiable;
 import com.vaadin.addon.leaflet4vaadin.layer.map.functions.ExecutableFunctions;
+import com.vaadin.addon.leaflet4vaadin.serialization.LeafletSerializer;
 
 @JsonInclude(Include.NON_NULL)
 @JsonIgnoreProperties(value = { "json" })
 public abstract class LeafletObject implements ExecutableFunctions, Serializable {
     private static final long serialVersionUID = -1268468998583672106L;
+
+    /**
+     * Constructor argument names by class, resolved once per class.
+     */
+    private static final ClassValue<List<String>> constructorArgumentNames = new ClassValue<List<String>>() {
+        @Override
+        protected List<String> computeValue(Class<?> type) {
+            return Collections.unmodifiableList(findLeafletArguments(type).stream().map(Field::getName).distinct().collect(Collectors.toList()));
+        }
+    };
+
     private String json;
     private String uuid;
     private ExecutableFunctions parent;
-    private final ObjectMapper objectMapper = new ObjectMapper();
 
     protected LeafletObject() {
-        configureObjectMapper(objectMapper);
         this.uuid = UUID.randomUUID().toString();
     }
 
-    protected void configureObjectMapper(final ObjectMapper objectMapper) {
-    }
-
     @Override
     public String getUuid() {
         return this.uuid;
@@ -43,7 +50,7 @@ public abstract class LeafletObject implements ExecutableFunctions, Serializable
     public String getJson() {
         if (this.json == null) {
             try {
-                this.json = objectMapper.writeValueAsString(this);
+                this.json = LeafletSerializer.toJson(this);
                 return this.json;
             } catch (IOException e) {
                 throw new RuntimeException("Unable to convert Layer into JSON type", e);
@@ -53,7 +60,7 @@ public abstract class LeafletObject implements ExecutableFunctions, Serializable
     }
 
     public List<String> getConstructorArgumentNames() {
-        return findLeafletArguments(getClass()).stream().map(Field::getName).distinct().collect(Collectors.toList());
+        return constructorArgumentNames.get(getClass());
     }
 
     public String getLeafletType() {
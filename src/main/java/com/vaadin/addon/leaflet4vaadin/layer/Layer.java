@@ -15,19 +15,20 @@
 package com.vaadin.addon.leaflet4vaadin.layer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import com.vaadin.addon.leaflet4vaadin.LeafletMap;
 import com.vaadin.addon.leaflet4vaadin.LeafletObject;
+import com.vaadin.addon.leaflet4vaadin.layer.events.EventRate;
 import com.vaadin.addon.leaflet4vaadin.layer.events.Evented;
+import com.vaadin.addon.leaflet4vaadin.layer.events.LeafletBatchEventListener;
 import com.vaadin.addon.leaflet4vaadin.layer.events.LeafletEvent;
 import com.vaadin.addon.leaflet4vaadin.layer.events.LeafletEventListener;
 import com.vaadin.addon.leaflet4vaadin.layer.events.PopupEvent;
@@ -56,7 +57,12 @@ public abstract class Layer extends LeafletObject implements Evented, LayerPopup
         add, remove;
     }
 
-    private transient final Map<LeafletEventType, Set<LeafletEventListener>> eventListeners = new HashMap<>();
+    /**
+     * Listeners by event type. The arrays are replaced on registration, so
+     * dispatching an event needs no copy and no iterator.
+     */
+    private transient final Map<LeafletEventType, LeafletEventListener[]> eventListeners = new HashMap<>();
+    private transient final Map<LeafletEventType, LeafletBatchEventListener[]> batchEventListeners = new HashMap<>();
 
     public static final String DEFAULT_PANE = "overlayPane";
     private String pane = DEFAULT_PANE;
@@ -64,6 +70,7 @@ public abstract class Layer extends LeafletObject implements Evented, LayerPopup
     private Popup popup;
     private Tooltip tooltip;
     private List<String> events = new ArrayList<>();
+    private Map<String, EventRate> eventRates;
 
     protected Layer() {
     }
@@ -140,11 +147,39 @@ public abstract class Layer extends LeafletObject implements Evented, LayerPopup
         on(PopupEventType.popupclose, listener);
     }
 
+    @SuppressWarnings("unchecked")
     public <T extends LeafletEvent> void fireEvent(T leafletEvent) {
-        Optional<LeafletEventType> event = eventListeners.keySet().stream().filter(type -> type.equals(leafletEvent.getType())).findFirst();
+        LeafletEventListener[] listeners = eventListeners.get(leafletEvent.getType());
+        if (listeners != null) {
+            for (LeafletEventListener listener : listeners) {
+                listener.handleEvent(leafletEvent);
+            }
+        }
+    }
 
-        if (event.isPresent()) {
-            eventListeners.get(event.get()).forEach(listener -> listener.handleEvent(leafletEvent));
+    /**
+     * Fires the events delivered in one batch by the client side. The batch
+     * listeners receive the whole batch, the other listeners receive the events
+     * one by one.
+     * 
+     * @param eventType
+     *            the type of the events
+     * @param leafletEvents
+     *            the events in the order as they occurred
+     * @param <T>
+     *            the type of the events
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends LeafletEvent> void fireEvents(LeafletEventType eventType, List<T> leafletEvents) {
+        LeafletBatchEventListener[] listeners = batchEventListeners.get(eventType);
+        if (listeners != null) {
+            List<T> events = Collections.unmodifiableList(leafletEvents);
+            for (LeafletBatchEventListener listener : listeners) {
+                listener.handleEvents(events);
+            }
+        }
+        for (T leafletEvent : leafletEvents) {
+            fireEvent(leafletEvent);
         }
     }
 
@@ -166,7 +201,6 @@ public abstract class Layer extends LeafletObject implements Evented, LayerPopup
      *            the leaflet map
      */
     public void addTo(LeafletMap leafletMap) {
-        setParent(leafletMap);
         leafletMap.addLayer(this);
     }
 
@@ -174,6 +208,15 @@ public abstract class Layer extends LeafletObject implements Evented, LayerPopup
         return this.events;
     }
 
+    /**
+     * Returns the rate policies of the events by the name of the event
+     * 
+     * @return the rate policies of the events or null if there is no any
+     */
+    public Map<String, EventRate> getEventRates() {
+        return this.eventRates;
+    }
+
     public String getAttribution() {
         return this.attribution;
     }
@@ -218,8 +261,9 @@ public abstract class Layer extends LeafletObject implements Evented, LayerPopup
     }
 
     public <T> void set(Supplier<CompletableFuture<T>> futureResult, Consumer<T> handler) {
-        if (futureResult.get() != null) {
-            futureResult.get().thenAccept((result) -> handler.accept(result));
+        CompletableFuture<T> future = futureResult.get();
+        if (future != null) {
+            future.thenAccept(handler);
         }
     }
 
@@ -228,31 +272,70 @@ public abstract class Layer extends LeafletObject implements Evented, LayerPopup
         if (!events.contains(eventType.getLeafletEvent())) {
             events.add(eventType.getLeafletEvent());
         }
-        Set<LeafletEventListener> listeners = eventListeners.get(eventType);
-        if (listeners == null) {
-            listeners = new HashSet<>();
-            eventListeners.putIfAbsent(eventType, listeners);
+        eventListeners.put(eventType, append(eventListeners.getOrDefault(eventType, new LeafletEventListener[0]), listener));
+    }
+
+    @Override
+    public <T extends LeafletEvent> void addBatchEventListener(LeafletEventType eventType, LeafletBatchEventListener<T> listener, EventRate batch) {
+        if (batch.getMode() != EventRate.Mode.batch) {
+            throw new IllegalArgumentException("Batch event listeners require a batch policy: " + batch);
+        }
+        if (!events.contains(eventType.getLeafletEvent())) {
+            events.add(eventType.getLeafletEvent());
+        }
+        batchEventListeners.put(eventType, append(batchEventListeners.getOrDefault(eventType, new LeafletBatchEventListener[0]), listener));
+        if (eventRates == null) {
+            eventRates = new HashMap<>();
         }
-        listeners.add(listener);
+        eventRates.put(eventType.getLeafletEvent(), batch);
+    }
+
+    /**
+     * Returns a copy of the given listener array extended with the given
+     * listener, or the array itself if it already contains the listener.
+     */
+    private static <L> L[] append(L[] listeners, L listener) {
+        if (Arrays.asList(listeners).contains(listener)) {
+            return listeners;
+        }
+        L[] copy = Arrays.copyOf(listeners, listeners.length + 1);
+        copy[listeners.length] = listener;
+        return copy;
+    }
+
+    @Override
+    public <T extends LeafletEvent> void addEventListener(LeafletEventType eventType, LeafletEventListener<T> listener, EventRate eventRate) {
+        addEventListener(eventType, listener);
+        if (eventRates == null) {
+            eventRates = new HashMap<>();
+        }
+        eventRates.put(eventType.getLeafletEvent(), eventRate);
     }
 
     @Override
     public void clearAllEventListeners() {
         this.eventListeners.clear();
+        this.batchEventListeners.clear();
         this.events.clear();
+        this.eventRates = null;
         executeJs(this, "clearAllEventListeners");
     }
 
     @Override
     public boolean hasEventListeners(LeafletEventType eventType) {
-        Set<LeafletEventListener> listeners = this.eventListeners.get(eventType);
-        return listeners != null && listeners.size() > 0;
+        LeafletEventListener[] listeners = this.eventListeners.get(eventType);
+        LeafletBatchEventListener[] batchListeners = this.batchEventListeners.get(eventType);
+        return (listeners != null && listeners.length > 0) || (batchListeners != null && batchListeners.length > 0);
     }
 
     @Override
     public void removeEventListener(LeafletEventType eventType) {
         this.eventListeners.remove(eventType);
+        this.batchEventListeners.remove(eventType);
         this.events.remove(eventType.getLeafletEvent());
+        if (this.eventRates != null) {
+            this.eventRates.remove(eventType.getLeafletEvent());
+        }
         executeJs(this, "removeEventListener", eventType.getLeafletEvent());
     }
    
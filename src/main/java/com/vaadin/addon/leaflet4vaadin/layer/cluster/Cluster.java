@@ -0,0 +1,112 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.cluster;
+
+import java.io.Serializable;
+
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+
+/**
+ * A cluster or a single point returned by the {@link ClusterIndex}.
+ * <p>
+ * The id of a cluster is unique in its index, the id of a single point is its
+ * index in the input of the cluster index. The aggregated values are the sum,
+ * minimum and maximum of the values of the points in the cluster, if values
+ * have been given to the index.
+ * 
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-11
+ * @version 1.0
+ */
+public class Cluster implements Serializable {
+
+    private static final long serialVersionUID = 4981640658924371527L;
+
+    private final boolean cluster;
+    private final int id;
+    private final int pointCount;
+    private final LatLng latLng;
+    private final double sum;
+    private final double min;
+    private final double max;
+
+    public Cluster(boolean cluster, int id, int pointCount, LatLng latLng, double sum, double min, double max) {
+        this.cluster = cluster;
+        this.id = id;
+        this.pointCount = pointCount;
+        this.latLng = latLng;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * @return true if this is a cluster, false if it is a single point
+     */
+    public boolean isCluster() {
+        return cluster;
+    }
+
+    /**
+     * @return the id of the cluster, or the index of the single point
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the number of points in the cluster, 1 for a single point
+     */
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * @return the position of the single point, or the weighted center of the
+     *         points in the cluster
+     */
+    public LatLng getLatLng() {
+        return latLng;
+    }
+
+    /**
+     * @return the sum of the values of the points in the cluster
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the minimum of the values of the points in the cluster
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return the maximum of the values of the points in the cluster
+     */
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "Cluster [cluster=" + cluster + ", id=" + id + ", pointCount=" + pointCount + ", latLng=" + latLng + ", sum=" + sum + ", min=" + min
+                + ", max=" + max + "]";
+    }
+
+}
@@ -0,0 +1,742 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.cluster;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+
+/**
+ * Hierarchical point clustering index, which computes the clusters of all zoom
+ * levels once on the server side, so only the clusters and points of the
+ * current view have to be sent to the client side.
+ * <p>
+ * The points are projected to the spherical mercator plane and clustered
+ * greedily zoom level by zoom level, from the maximum zoom to the minimum
+ * zoom: each cluster of a zoom level is made of the clusters and points of the
+ * next zoom level within the cluster radius. Every zoom level is kept in a
+ * static KD-tree over packed coordinate arrays, so the clusters of a view and
+ * the children of a cluster are looked up without scanning all points. The
+ * projection of the points and the building of the KD-trees run on a
+ * {@link ForkJoinPool}.
+ * <p>
+ * The index is immutable once it is built, and it can be shared between
+ * sessions.
+ * 
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-11
+ * @version 1.0
+ * @see ClusterOptions
+ */
+public class ClusterIndex implements Serializable {
+
+    private static final long serialVersionUID = -2370108390045213286L;
+
+    /**
+     * The ranges smaller than this are projected and sorted without forking.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    private final int radius;
+    private final int extent;
+    private final int minZoom;
+    private final int maxZoom;
+    private final int minPoints;
+    private final int nodeSize;
+    private final int pointCount;
+    private final boolean withValues;
+
+    /**
+     * The clusters and points by zoom level, from the minimum zoom to the
+     * maximum zoom + 1, which contains the input points.
+     */
+    private final Level[] levels;
+
+    private ClusterIndex(ClusterOptions options, int pointCount, boolean withValues) {
+        this.radius = options.getRadius();
+        this.extent = options.getExtent();
+        this.minZoom = options.getMinZoom();
+        this.maxZoom = options.getMaxZoom();
+        this.minPoints = options.getMinPoints();
+        this.nodeSize = options.getNodeSize();
+        this.pointCount = pointCount;
+        this.withValues = withValues;
+        this.levels = new Level[maxZoom + 2];
+    }
+
+    /**
+     * Builds the cluster index of the given points on the common fork-join
+     * pool.
+     * 
+     * @param lats
+     *            the latitudes of the points
+     * @param lngs
+     *            the longitudes of the points
+     * @param values
+     *            the values of the points to be aggregated in the clusters, or
+     *            null
+     * @param options
+     *            the options of the clustering
+     * @return the cluster index of the points
+     */
+    public static ClusterIndex build(double[] lats, double[] lngs, double[] values, ClusterOptions options) {
+        return build(lats, lngs, values, options, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds the cluster index of the given points on the given fork-join pool.
+     * 
+     * @param lats
+     *            the latitudes of the points
+     * @param lngs
+     *            the longitudes of the points
+     * @param values
+     *            the values of the points to be aggregated in the clusters, or
+     *            null
+     * @param options
+     *            the options of the clustering
+     * @param pool
+     *            the pool to run the parallel parts of the build
+     * @return the cluster index of the points
+     */
+    public static ClusterIndex build(double[] lats, double[] lngs, double[] values, ClusterOptions options, ForkJoinPool pool) {
+        if (lats.length != lngs.length || (values != null && values.length != lats.length)) {
+            throw new IllegalArgumentException("The number of latitudes, longitudes and values must be the same");
+        }
+        if (options.getMaxZoom() > 26 || options.getMinZoom() < 0 || options.getMinZoom() > options.getMaxZoom()) {
+            throw new IllegalArgumentException("The zoom levels must be between 0 and 26: " + options.getMinZoom() + " - " + options.getMaxZoom());
+        }
+        ClusterIndex index = new ClusterIndex(options, lats.length, values != null);
+        Level points = new Level(lats.length, values != null);
+        points.size = lats.length;
+        pool.invoke(new Project(points, lats, lngs, values, 0, lats.length));
+        points.index(pool, index.nodeSize);
+        index.levels[index.maxZoom + 1] = points;
+
+        Level level = points;
+        for (int zoom = index.maxZoom; zoom >= index.minZoom; zoom--) {
+            level = index.cluster(level, zoom);
+            level.index(pool, index.nodeSize);
+            index.levels[zoom] = level;
+        }
+        return index;
+    }
+
+    private Level cluster(Level level, int zoom) {
+        double r = radius / (extent * Math.pow(2, zoom));
+        Level next = new Level(level.size, withValues);
+        IntBuffer neighbors = new IntBuffer();
+        for (int i = 0; i < level.size; i++) {
+            if (level.zoom[i] <= zoom) {
+                continue;
+            }
+            level.zoom[i] = zoom;
+            double x = level.x[i];
+            double y = level.y[i];
+            neighbors.size = 0;
+            level.within(x, y, r, nodeSize, neighbors);
+
+            int numPointsOrigin = level.numPoints[i];
+            int numPoints = numPointsOrigin;
+            for (int n = 0; n < neighbors.size; n++) {
+                int neighbor = neighbors.data[n];
+                if (level.zoom[neighbor] > zoom) {
+                    numPoints += level.numPoints[neighbor];
+                }
+            }
+
+            if (numPoints > numPointsOrigin && numPoints >= minPoints) {
+                double wx = x * numPointsOrigin;
+                double wy = y * numPointsOrigin;
+                double sum = withValues ? level.sum[i] : 0;
+                double min = withValues ? level.min[i] : 0;
+                double max = withValues ? level.max[i] : 0;
+                int id = (i << 5) + (zoom + 1) + pointCount;
+                for (int n = 0; n < neighbors.size; n++) {
+                    int neighbor = neighbors.data[n];
+                    if (level.zoom[neighbor] <= zoom) {
+                        continue;
+                    }
+                    level.zoom[neighbor] = zoom;
+                    wx += level.x[neighbor] * level.numPoints[neighbor];
+                    wy += level.y[neighbor] * level.numPoints[neighbor];
+                    if (withValues) {
+                        sum += level.sum[neighbor];
+                        min = Math.min(min, level.min[neighbor]);
+                        max = Math.max(max, level.max[neighbor]);
+                    }
+                    level.parent[neighbor] = id;
+                }
+                level.parent[i] = id;
+                next.add(wx / numPoints, wy / numPoints, id, numPoints, sum, min, max);
+            } else {
+                next.copy(level, i);
+                if (numPoints > 1) {
+                    for (int n = 0; n < neighbors.size; n++) {
+                        int neighbor = neighbors.data[n];
+                        if (level.zoom[neighbor] <= zoom) {
+                            continue;
+                        }
+                        level.zoom[neighbor] = zoom;
+                        next.copy(level, neighbor);
+                    }
+                }
+            }
+        }
+        next.trim();
+        return next;
+    }
+
+    /**
+     * Returns the clusters and single points in the given bounds at the given
+     * zoom level.
+     * 
+     * @param bounds
+     *            the geographical area
+     * @param zoom
+     *            the zoom level
+     * @return the clusters and points in the area
+     */
+    public List<Cluster> getClusters(LatLngBounds bounds, int zoom) {
+        return getClusters(bounds.getWest(), bounds.getSouth(), bounds.getEast(), bounds.getNorth(), zoom);
+    }
+
+    /**
+     * Returns the clusters and single points in the given area at the given
+     * zoom level. The longitudes may exceed the -180, 180 range, the area
+     * crossing the antimeridian is handled.
+     * 
+     * @param west
+     *            the west longitude of the area
+     * @param south
+     *            the south latitude of the area
+     * @param east
+     *            the east longitude of the area
+     * @param north
+     *            the north latitude of the area
+     * @param zoom
+     *            the zoom level
+     * @return the clusters and points in the area
+     */
+    public List<Cluster> getClusters(double west, double south, double east, double north, int zoom) {
+        double minLng = ((west + 180) % 360 + 360) % 360 - 180;
+        double maxLng = east == 180 ? 180 : ((east + 180) % 360 + 360) % 360 - 180;
+        double minLat = Math.max(-90, Math.min(90, south));
+        double maxLat = Math.max(-90, Math.min(90, north));
+        if (east - west >= 360) {
+            minLng = -180;
+            maxLng = 180;
+        } else if (minLng > maxLng) {
+            List<Cluster> eastern = getClusters(minLng, minLat, 180, maxLat, zoom);
+            eastern.addAll(getClusters(-180, minLat, maxLng, maxLat, zoom));
+            return eastern;
+        }
+        Level level = levels[limitZoom(zoom)];
+        IntBuffer ids = new IntBuffer();
+        level.range(lngX(minLng), latY(maxLat), lngX(maxLng), latY(minLat), nodeSize, ids);
+        List<Cluster> clusters = new ArrayList<>(ids.size);
+        for (int i = 0; i < ids.size; i++) {
+            clusters.add(level.toCluster(ids.data[i], pointCount));
+        }
+        return clusters;
+    }
+
+    /**
+     * Returns the clusters and points which the given cluster is made of, on
+     * the next zoom level.
+     * 
+     * @param clusterId
+     *            the id of the cluster
+     * @return the children of the cluster
+     * @throws IllegalArgumentException
+     *             if there is no cluster with the given id
+     */
+    public List<Cluster> getChildren(int clusterId) {
+        int originId = (clusterId - pointCount) >> 5;
+        int originZoom = (clusterId - pointCount) % 32;
+        if (clusterId < pointCount || originZoom <= minZoom || originZoom > maxZoom + 1 || originId >= levels[originZoom].size) {
+            throw new IllegalArgumentException("No cluster with the specified id: " + clusterId);
+        }
+        Level level = levels[originZoom];
+        double r = radius / (extent * Math.pow(2, originZoom - 1));
+        IntBuffer neighbors = new IntBuffer();
+        level.within(level.x[originId], level.y[originId], r, nodeSize, neighbors);
+        List<Cluster> children = new ArrayList<>();
+        for (int n = 0; n < neighbors.size; n++) {
+            int neighbor = neighbors.data[n];
+            if (level.parent[neighbor] == clusterId) {
+                children.add(level.toCluster(neighbor, pointCount));
+            }
+        }
+        if (children.isEmpty()) {
+            throw new IllegalArgumentException("No cluster with the specified id: " + clusterId);
+        }
+        return children;
+    }
+
+    /**
+     * Returns the indexes of the points in the given cluster.
+     * 
+     * @param clusterId
+     *            the id of the cluster
+     * @param limit
+     *            the maximum number of points to return
+     * @param offset
+     *            the number of points to skip
+     * @return the indexes of the points in the input of the index
+     * @throws IllegalArgumentException
+     *             if there is no cluster with the given id
+     */
+    public int[] getLeaves(int clusterId, int limit, int offset) {
+        IntBuffer leaves = new IntBuffer();
+        appendLeaves(leaves, clusterId, limit, offset, 0);
+        return Arrays.copyOf(leaves.data, leaves.size);
+    }
+
+    private int appendLeaves(IntBuffer leaves, int clusterId, int limit, int offset, int skipped) {
+        for (Cluster child : getChildren(clusterId)) {
+            if (child.isCluster()) {
+                if (skipped + child.getPointCount() <= offset) {
+                    skipped += child.getPointCount();
+                } else {
+                    skipped = appendLeaves(leaves, child.getId(), limit, offset, skipped);
+                }
+            } else if (skipped < offset) {
+                skipped++;
+            } else {
+                leaves.add(child.getId());
+            }
+            if (leaves.size == limit) {
+                break;
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Returns the zoom level at which the given cluster expands into several
+     * children, e.g. to zoom in when the cluster is clicked.
+     * 
+     * @param clusterId
+     *            the id of the cluster
+     * @return the zoom level where the cluster expands
+     * @throws IllegalArgumentException
+     *             if there is no cluster with the given id
+     */
+    public int getClusterExpansionZoom(int clusterId) {
+        int expansionZoom = (clusterId - pointCount) % 32 - 1;
+        while (expansionZoom <= maxZoom) {
+            List<Cluster> children = getChildren(clusterId);
+            expansionZoom++;
+            if (children.size() != 1 || !children.get(0).isCluster()) {
+                break;
+            }
+            clusterId = children.get(0).getId();
+        }
+        return expansionZoom;
+    }
+
+    /**
+     * @return the number of the indexed points
+     */
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public int getMinZoom() {
+        return minZoom;
+    }
+
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    private int limitZoom(int zoom) {
+        return Math.max(minZoom, Math.min(zoom, maxZoom + 1));
+    }
+
+    private static double lngX(double lng) {
+        return lng / 360 + 0.5;
+    }
+
+    private static double latY(double lat) {
+        double sin = Math.sin(lat * Math.PI / 180);
+        double y = 0.5 - 0.25 * Math.log((1 + sin) / (1 - sin)) / Math.PI;
+        return y < 0 ? 0 : y > 1 ? 1 : y;
+    }
+
+    private static double xLng(double x) {
+        return (x - 0.5) * 360;
+    }
+
+    private static double yLat(double y) {
+        double y2 = (180 - y * 360) * Math.PI / 180;
+        return 360 * Math.atan(Math.exp(y2)) / Math.PI - 90;
+    }
+
+    /**
+     * The clusters and points of one zoom level in packed arrays, and their
+     * static KD-tree.
+     */
+    private static final class Level implements Serializable {
+
+        private static final long serialVersionUID = -3818466612087633062L;
+
+        int size;
+        double[] x;
+        double[] y;
+        int[] id;
+        int[] parent;
+        int[] numPoints;
+        /**
+         * The zoom level at which the entry has been processed by the
+         * clustering
+         */
+        int[] zoom;
+        double[] sum;
+        double[] min;
+        double[] max;
+
+        /**
+         * The entries in KD-tree order, and their coordinates interleaved
+         */
+        int[] kdIds;
+        double[] kdCoords;
+
+        Level(int capacity, boolean withValues) {
+            x = new double[capacity];
+            y = new double[capacity];
+            id = new int[capacity];
+            parent = new int[capacity];
+            numPoints = new int[capacity];
+            zoom = new int[capacity];
+            if (withValues) {
+                sum = new double[capacity];
+                min = new double[capacity];
+                max = new double[capacity];
+            }
+        }
+
+        void add(double x, double y, int id, int numPoints, double sum, double min, double max) {
+            int i = size++;
+            this.x[i] = x;
+            this.y[i] = y;
+            this.id[i] = id;
+            this.parent[i] = -1;
+            this.numPoints[i] = numPoints;
+            this.zoom[i] = Integer.MAX_VALUE;
+            if (this.sum != null) {
+                this.sum[i] = sum;
+                this.min[i] = min;
+                this.max[i] = max;
+            }
+        }
+
+        void copy(Level level, int i) {
+            add(level.x[i], level.y[i], level.id[i], level.numPoints[i], level.sum != null ? level.sum[i] : 0, level.min != null ? level.min[i] : 0,
+                    level.max != null ? level.max[i] : 0);
+        }
+
+        void trim() {
+            x = Arrays.copyOf(x, size);
+            y = Arrays.copyOf(y, size);
+            id = Arrays.copyOf(id, size);
+            parent = Arrays.copyOf(parent, size);
+            numPoints = Arrays.copyOf(numPoints, size);
+            zoom = Arrays.copyOf(zoom, size);
+            if (sum != null) {
+                sum = Arrays.copyOf(sum, size);
+                min = Arrays.copyOf(min, size);
+                max = Arrays.copyOf(max, size);
+            }
+        }
+
+        Cluster toCluster(int i, int pointCount) {
+            boolean cluster = id[i] >= pointCount;
+            LatLng latLng = new LatLng(yLat(y[i]), xLng(x[i]));
+            if (sum == null) {
+                return new Cluster(cluster, id[i], numPoints[i], latLng, Double.NaN, Double.NaN, Double.NaN);
+            }
+            return new Cluster(cluster, id[i], numPoints[i], latLng, sum[i], min[i], max[i]);
+        }
+
+        void index(ForkJoinPool pool, int nodeSize) {
+            kdIds = new int[size];
+            kdCoords = new double[size * 2];
+            for (int i = 0; i < size; i++) {
+                kdIds[i] = i;
+                kdCoords[2 * i] = x[i];
+                kdCoords[2 * i + 1] = y[i];
+            }
+            pool.invoke(new KdSort(kdIds, kdCoords, nodeSize, 0, size - 1, 0));
+        }
+
+        void range(double minX, double minY, double maxX, double maxY, int nodeSize, IntBuffer result) {
+            IntBuffer stack = new IntBuffer();
+            stack.add(0);
+            stack.add(kdIds.length - 1);
+            stack.add(0);
+            while (stack.size > 0) {
+                int axis = stack.data[--stack.size];
+                int right = stack.data[--stack.size];
+                int left = stack.data[--stack.size];
+                if (right - left <= nodeSize) {
+                    for (int i = left; i <= right; i++) {
+                        double x = kdCoords[2 * i];
+                        double y = kdCoords[2 * i + 1];
+                        if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                            result.add(kdIds[i]);
+                        }
+                    }
+                    continue;
+                }
+                int m = (left + right) >> 1;
+                double x = kdCoords[2 * m];
+                double y = kdCoords[2 * m + 1];
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    result.add(kdIds[m]);
+                }
+                if (axis == 0 ? minX <= x : minY <= y) {
+                    stack.add(left);
+                    stack.add(m - 1);
+                    stack.add(1 - axis);
+                }
+                if (axis == 0 ? maxX >= x : maxY >= y) {
+                    stack.add(m + 1);
+                    stack.add(right);
+                    stack.add(1 - axis);
+                }
+            }
+        }
+
+        void within(double qx, double qy, double r, int nodeSize, IntBuffer result) {
+            double r2 = r * r;
+            IntBuffer stack = new IntBuffer();
+            stack.add(0);
+            stack.add(kdIds.length - 1);
+            stack.add(0);
+            while (stack.size > 0) {
+                int axis = stack.data[--stack.size];
+                int right = stack.data[--stack.size];
+                int left = stack.data[--stack.size];
+                if (right - left <= nodeSize) {
+                    for (int i = left; i <= right; i++) {
+                        if (squareDistance(kdCoords[2 * i], kdCoords[2 * i + 1], qx, qy) <= r2) {
+                            result.add(kdIds[i]);
+                        }
+                    }
+                    continue;
+                }
+                int m = (left + right) >> 1;
+                double x = kdCoords[2 * m];
+                double y = kdCoords[2 * m + 1];
+                if (squareDistance(x, y, qx, qy) <= r2) {
+                    result.add(kdIds[m]);
+                }
+                if (axis == 0 ? qx - r <= x : qy - r <= y) {
+                    stack.add(left);
+                    stack.add(m - 1);
+                    stack.add(1 - axis);
+                }
+                if (axis == 0 ? qx + r >= x : qy + r >= y) {
+                    stack.add(m + 1);
+                    stack.add(right);
+                    stack.add(1 - axis);
+                }
+            }
+        }
+
+        private static double squareDistance(double ax, double ay, double bx, double by) {
+            double dx = ax - bx;
+            double dy = ay - by;
+            return dx * dx + dy * dy;
+        }
+    }
+
+    /**
+     * Projects the points to the mercator plane.
+     */
+    private static final class Project extends RecursiveAction {
+
+        private static final long serialVersionUID = 5531826713416216127L;
+
+        private final Level level;
+        private final double[] lats;
+        private final double[] lngs;
+        private final double[] values;
+        private final int from;
+        private final int to;
+
+        Project(Level level, double[] lats, double[] lngs, double[] values, int from, int to) {
+            this.level = level;
+            this.lats = lats;
+            this.lngs = lngs;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SEQUENTIAL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Project(level, lats, lngs, values, from, middle), new Project(level, lats, lngs, values, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                level.x[i] = lngX(lngs[i]);
+                level.y[i] = latY(lats[i]);
+                level.id[i] = i;
+                level.parent[i] = -1;
+                level.numPoints[i] = 1;
+                level.zoom[i] = Integer.MAX_VALUE;
+                if (values != null) {
+                    level.sum[i] = values[i];
+                    level.min[i] = values[i];
+                    level.max[i] = values[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts the entries into KD-tree order, the two halves of a node are
+     * sorted in parallel.
+     */
+    private static final class KdSort extends RecursiveAction {
+
+        private static final long serialVersionUID = -2166473208208283473L;
+
+        private final int[] ids;
+        private final double[] coords;
+        private final int nodeSize;
+        private final int left;
+        private final int right;
+        private final int axis;
+
+        KdSort(int[] ids, double[] coords, int nodeSize, int left, int right, int axis) {
+            this.ids = ids;
+            this.coords = coords;
+            this.nodeSize = nodeSize;
+            this.left = left;
+            this.right = right;
+            this.axis = axis;
+        }
+
+        @Override
+        protected void compute() {
+            sort(left, right, axis);
+        }
+
+        private void sort(int left, int right, int axis) {
+            if (right - left <= nodeSize) {
+                return;
+            }
+            int m = (left + right) >> 1;
+            select(m, left, right, axis);
+            if (right - left > SEQUENTIAL_THRESHOLD) {
+                invokeAll(new KdSort(ids, coords, nodeSize, left, m - 1, 1 - axis), new KdSort(ids, coords, nodeSize, m + 1, right, 1 - axis));
+            } else {
+                sort(left, m - 1, 1 - axis);
+                sort(m + 1, right, 1 - axis);
+            }
+        }
+
+        /**
+         * Floyd-Rivest selection, rearranges the entries so that the k-th
+         * entry is at its sorted position.
+         */
+        private void select(int k, int left, int right, int axis) {
+            while (right > left) {
+                if (right - left > 600) {
+                    int n = right - left + 1;
+                    int m = k - left + 1;
+                    double z = Math.log(n);
+                    double s = 0.5 * Math.exp(2 * z / 3);
+                    double sd = 0.5 * Math.sqrt(z * s * (n - s) / n) * (m - n / 2 < 0 ? -1 : 1);
+                    int newLeft = (int) Math.max(left, Math.floor(k - m * s / n + sd));
+                    int newRight = (int) Math.min(right, Math.floor(k + (n - m) * s / n + sd));
+                    select(k, newLeft, newRight, axis);
+                }
+                double t = coords[2 * k + axis];
+                int i = left;
+                int j = right;
+                swap(left, k);
+                if (coords[2 * right + axis] > t) {
+                    swap(left, right);
+                }
+                while (i < j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                    while (coords[2 * i + axis] < t) {
+                        i++;
+                    }
+                    while (coords[2 * j + axis] > t) {
+                        j--;
+                    }
+                }
+                if (coords[2 * left + axis] == t) {
+                    swap(left, j);
+                } else {
+                    j++;
+                    swap(j, right);
+                }
+                if (j <= k) {
+                    left = j + 1;
+                }
+                if (k <= j) {
+                    right = j - 1;
+                }
+            }
+        }
+
+        private void swap(int i, int j) {
+            int id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+            double x = coords[2 * i];
+            double y = coords[2 * i + 1];
+            coords[2 * i] = coords[2 * j];
+            coords[2 * i + 1] = coords[2 * j + 1];
+            coords[2 * j] = x;
+            coords[2 * j + 1] = y;
+        }
+    }
+
+    /**
+     * Growable array of ints.
+     */
+    private static final class IntBuffer {
+
+        int[] data = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.cluster;
+
+import java.io.Serializable;
+
+/**
+ * Possible {@link ClusterIndex} options
+ * 
+ * <ul>
+ * <li><b>radius</b> - the cluster radius in pixels</li>
+ * <li><b>extent</b> - the size of the tiles the radius is calculated
+ * relative to</li>
+ * <li><b>minZoom</b> - the minimum zoom level at which clusters are
+ * generated</li>
+ * <li><b>maxZoom</b> - the maximum zoom level at which clusters are
+ * generated</li>
+ * <li><b>minPoints</b> - the minimum number of points to form a cluster</li>
+ * <li><b>nodeSize</b> - the size of the leaf nodes of the KD-trees</li>
+ * </ul>
+ * 
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-11
+ * @version 1.0
+ * @see ClusterIndex
+ */
+public class ClusterOptions implements Serializable {
+
+    private static final long serialVersionUID = -2907423870186612215L;
+
+    private int radius = 40;
+    private int extent = 512;
+    private int minZoom = 0;
+    private int maxZoom = 16;
+    private int minPoints = 2;
+    private int nodeSize = 64;
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public void setRadius(int radius) {
+        this.radius = radius;
+    }
+
+    public int getExtent() {
+        return extent;
+    }
+
+    public void setExtent(int extent) {
+        this.extent = extent;
+    }
+
+    public int getMinZoom() {
+        return minZoom;
+    }
+
+    public void setMinZoom(int minZoom) {
+        this.minZoom = minZoom;
+    }
+
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    /**
+     * Sets the maximum zoom level at which clusters are generated, the points
+     * are never clustered above it. It has to be less than 27.
+     * 
+     * @param maxZoom
+     *            the maximum zoom level of the clusters
+     */
+    public void setMaxZoom(int maxZoom) {
+        this.maxZoom = maxZoom;
+    }
+
+    public int getMinPoints() {
+        return minPoints;
+    }
+
+    public void setMinPoints(int minPoints) {
+        this.minPoints = minPoints;
+    }
+
+    public int getNodeSize() {
+        return nodeSize;
+    }
+
+    public void setNodeSize(int nodeSize) {
+        this.nodeSize = nodeSize;
+    }
+
+}
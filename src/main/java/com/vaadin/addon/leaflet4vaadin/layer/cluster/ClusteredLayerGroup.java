@@ -0,0 +1,336 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.cluster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.vaadin.addon.leaflet4vaadin.LeafletMap;
+import com.vaadin.addon.leaflet4vaadin.layer.Layer;
+import com.vaadin.addon.leaflet4vaadin.layer.groups.LayerGroup;
+import com.vaadin.addon.leaflet4vaadin.layer.map.MapViewState;
+import com.vaadin.addon.leaflet4vaadin.layer.map.functions.ExecutableFunctions;
+import com.vaadin.addon.leaflet4vaadin.layer.ui.marker.Marker;
+import com.vaadin.addon.leaflet4vaadin.types.DivIcon;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+import com.vaadin.addon.leaflet4vaadin.types.Point;
+import com.vaadin.flow.function.SerializableFunction;
+import com.vaadin.flow.shared.Registration;
+
+/**
+ * A layer group which clusters its markers on the server side, as an
+ * alternative of sending all markers to a
+ * {@link com.vaadin.addon.leaflet4vaadin.plugins.markercluster.MarkerClusterGroup}.
+ * <p>
+ * The markers are clustered once for all zoom levels by a
+ * {@link ClusterIndex}. When the view of the map changes, only the clusters and
+ * the single markers of the current zoom level around the viewport are sent to
+ * the client side, and only the ones which are not there yet. Clicking on a
+ * cluster zooms the map to the level where the cluster expands. The group
+ * follows the view of the map while it is added to the map, with
+ * {@link #addTo(LeafletMap)} or {@link LeafletMap#addLayer(Layer)}.
+ * <p>
+ * The clusters are rendered by default as markers with a {@link DivIcon}
+ * showing the number of points, using the CSS classes of the markercluster
+ * plugin. The rendering can be replaced with
+ * {@link #setClusterRenderer(SerializableFunction)}.
+ * <p>
+ * The markers of the group are given at construction time, they cannot be
+ * added or removed later.
+ * 
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-11
+ * @version 1.1
+ */
+public class ClusteredLayerGroup extends LayerGroup {
+
+    private static final long serialVersionUID = 8410260927633562178L;
+
+    /**
+     * The default buffer around the viewport, relative to its size
+     */
+    public static final double DEFAULT_BUFFER = 0.5;
+
+    private final List<Marker> markers;
+    private final ClusterIndex clusterIndex;
+    private SerializableFunction<Cluster, Marker> clusterRenderer = ClusteredLayerGroup::renderCluster;
+    private double buffer = DEFAULT_BUFFER;
+
+    /**
+     * The layers on the client side by the key of their cluster or point. The
+     * markers of the clusters, holding their click listeners, are dropped when
+     * they leave the view, and created again when they come back.
+     */
+    private Map<String, Layer> displayed = new HashMap<>();
+
+    private LeafletMap leafletMap;
+    private Registration viewStateRegistration;
+
+    public ClusteredLayerGroup(List<? extends Marker> markers) {
+        this(markers, new ClusterOptions());
+    }
+
+    public ClusteredLayerGroup(List<? extends Marker> markers, ClusterOptions options) {
+        this(markers, null, options);
+    }
+
+    /**
+     * Creates a clustered layer group of the given markers.
+     * 
+     * @param markers
+     *            the markers of the group
+     * @param values
+     *            the values of the markers to be aggregated in the clusters, or
+     *            null
+     * @param options
+     *            the options of the clustering
+     */
+    public ClusteredLayerGroup(List<? extends Marker> markers, double[] values, ClusterOptions options) {
+        super();
+        this.markers = new ArrayList<>(markers);
+        double[] lats = new double[markers.size()];
+        double[] lngs = new double[markers.size()];
+        for (int i = 0; i < lats.length; i++) {
+            LatLng latLng = this.markers.get(i).getLatLng();
+            lats[i] = latLng.lat();
+            lngs[i] = latLng.lng();
+        }
+        this.clusterIndex = ClusterIndex.build(lats, lngs, values, options);
+    }
+
+    @Override
+    public String getLeafletType() {
+        return LayerGroup.class.getSimpleName();
+    }
+
+    /**
+     * Follows the view of the map when the group is added to a map. When the
+     * group is removed from the map, it stops following the view and forgets
+     * the layers sent to the client side.
+     */
+    @Override
+    protected void setParent(ExecutableFunctions parent) {
+        // the layers are forgotten without sending their removal
+        super.setParent(null);
+        stopFollowingMap();
+        super.setParent(parent);
+        if (parent instanceof LeafletMap) {
+            leafletMap = (LeafletMap) parent;
+            viewStateRegistration = leafletMap.addViewStateChangeListener(event -> updateView(event.getViewState()));
+            if (leafletMap.getViewState() != null) {
+                updateView(leafletMap.getViewState());
+            }
+        }
+    }
+
+    /**
+     * Removes the group from its parent and stops following the view of the
+     * map.
+     */
+    @Override
+    public void remove() {
+        super.remove();
+        stopFollowingMap();
+    }
+
+    private void stopFollowingMap() {
+        if (viewStateRegistration != null) {
+            viewStateRegistration.remove();
+            viewStateRegistration = null;
+        }
+        leafletMap = null;
+        displayed.values().forEach(super::removeLayer);
+        displayed = new HashMap<>();
+    }
+
+    private void updateView(MapViewState viewState) {
+        if (viewState.getBounds() != null) {
+            updateView(viewState.getBounds(), (int) Math.floor(viewState.getZoom()));
+        }
+    }
+
+    /**
+     * Sends the clusters and markers of the given zoom level around the given
+     * viewport to the client side, which are not there yet, and removes the
+     * other ones from the client side.
+     * 
+     * @param viewport
+     *            the visible area of the map
+     * @param zoom
+     *            the zoom level of the map
+     */
+    public void updateView(LatLngBounds viewport, int zoom) {
+        double latBuffer = (viewport.getNorth() - viewport.getSouth()) * buffer;
+        double lngBuffer = (viewport.getEast() - viewport.getWest()) * buffer;
+        List<Cluster> clusters = clusterIndex.getClusters(viewport.getWest() - lngBuffer, viewport.getSouth() - latBuffer,
+                viewport.getEast() + lngBuffer, viewport.getNorth() + latBuffer, zoom);
+
+        Map<String, Layer> visible = new HashMap<>();
+        for (Cluster cluster : clusters) {
+            String key = (cluster.isCluster() ? "c" : "p") + cluster.getId();
+            Layer layer = displayed.get(key);
+            if (layer == null) {
+                layer = cluster.isCluster() ? createClusterMarker(cluster) : markers.get(cluster.getId());
+            }
+            visible.put(key, layer);
+        }
+        for (Map.Entry<String, Layer> entry : displayed.entrySet()) {
+            if (!visible.containsKey(entry.getKey())) {
+                super.removeLayer(entry.getValue());
+            }
+        }
+        for (Map.Entry<String, Layer> entry : visible.entrySet()) {
+            if (!displayed.containsKey(entry.getKey())) {
+                super.addLayer(entry.getValue());
+            }
+        }
+        displayed = visible;
+    }
+
+    private Marker createClusterMarker(Cluster cluster) {
+        Marker marker = clusterRenderer.apply(cluster);
+        marker.onClick(event -> zoomToCluster(cluster));
+        return marker;
+    }
+
+    /**
+     * Zooms the map to the level where the given cluster expands.
+     * 
+     * @param cluster
+     *            the cluster to expand
+     */
+    public void zoomToCluster(Cluster cluster) {
+        if (leafletMap == null) {
+            throw new IllegalStateException("The layer group has not been added to a map");
+        }
+        leafletMap.flyTo(cluster.getLatLng(), clusterIndex.getClusterExpansionZoom(cluster.getId()));
+    }
+
+    /**
+     * Returns the markers in the given cluster.
+     * 
+     * @param cluster
+     *            the cluster
+     * @return the markers of the cluster
+     */
+    public List<Marker> getMarkers(Cluster cluster) {
+        if (!cluster.isCluster()) {
+            return Collections.singletonList(markers.get(cluster.getId()));
+        }
+        int[] leaves = clusterIndex.getLeaves(cluster.getId(), Integer.MAX_VALUE, 0);
+        List<Marker> leafMarkers = new ArrayList<>(leaves.length);
+        for (int leaf : leaves) {
+            leafMarkers.add(markers.get(leaf));
+        }
+        return leafMarkers;
+    }
+
+    /**
+     * Renders the cluster as a marker with a {@link DivIcon} showing the number
+     * of points in the cluster.
+     */
+    private static Marker renderCluster(Cluster cluster) {
+        int count = cluster.getPointCount();
+        String size = count < 10 ? "small" : count < 100 ? "medium" : "large";
+        DivIcon icon = new DivIcon("marker-cluster marker-cluster-" + size);
+        icon.setHtml("<div><span>" + count + "</span></div>");
+        icon.setIconSize(Point.of(40, 40));
+        icon.setIconAnchor(Point.of(20, 20));
+        Marker marker = new Marker(cluster.getLatLng());
+        marker.setIcon(icon);
+        return marker;
+    }
+
+    @Override
+    public void addLayer(Layer layer) {
+        throw new UnsupportedOperationException("The markers of a clustered layer group cannot be changed");
+    }
+
+    @Override
+    public void addLayers(Collection<? extends Layer> layers) {
+        throw new UnsupportedOperationException("The markers of a clustered layer group cannot be changed");
+    }
+
+    @Override
+    public void removeLayer(Layer layer) {
+        throw new UnsupportedOperationException("The markers of a clustered layer group cannot be changed");
+    }
+
+    @Override
+    public void removeLayer(String layerId) {
+        throw new UnsupportedOperationException("The markers of a clustered layer group cannot be changed");
+    }
+
+    @Override
+    public void clearLayers() {
+        throw new UnsupportedOperationException("The markers of a clustered layer group cannot be changed");
+    }
+
+    /**
+     * Returns all markers of the group, including the ones which are not on
+     * the client side.
+     * 
+     * @return all markers of the group
+     */
+    @JsonIgnore
+    public List<Marker> getMarkers() {
+        return Collections.unmodifiableList(markers);
+    }
+
+    @JsonIgnore
+    public ClusterIndex getClusterIndex() {
+        return clusterIndex;
+    }
+
+    @JsonIgnore
+    public SerializableFunction<Cluster, Marker> getClusterRenderer() {
+        return clusterRenderer;
+    }
+
+    /**
+     * Sets the function which creates the marker of a cluster. It applies to
+     * the clusters sent to the client side later on.
+     * 
+     * @param clusterRenderer
+     *            the function creating the marker of a cluster
+     */
+    public void setClusterRenderer(SerializableFunction<Cluster, Marker> clusterRenderer) {
+        this.clusterRenderer = clusterRenderer;
+    }
+
+    @JsonIgnore
+    public double getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Sets the buffer around the viewport, relative to the size of the
+     * viewport.
+     * 
+     * @param buffer
+     *            the buffer, 0.5 means half of the viewport on each side
+     */
+    public void setBuffer(double buffer) {
+        this.buffer = buffer;
+    }
+
+}
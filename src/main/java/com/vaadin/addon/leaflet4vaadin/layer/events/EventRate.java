@@ -0,0 +1,129 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.events;
+
+import java.io.Serializable;
+
+/**
+ * Rate policy of an event type. The policy is enforced on the client side
+ * before the event is sent to the server, so high-frequency events like
+ * mousemove, move or drag do not cause a server round-trip for every browser
+ * event.
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-04
+ * @version 1.0
+ */
+public class EventRate implements Serializable {
+
+    private static final long serialVersionUID = -2717232165401318047L;
+
+    public static enum Mode {
+        throttle, debounce, trailing, batch;
+    }
+
+    private final Mode mode;
+    private final int wait;
+    private final int maxSize;
+
+    private EventRate(Mode mode, int wait) {
+        this(mode, wait, 0);
+    }
+
+    private EventRate(Mode mode, int wait, int maxSize) {
+        if (wait < 0) {
+            throw new IllegalArgumentException("The wait time must not be negative: " + wait);
+        }
+        this.mode = mode;
+        this.wait = wait;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The event is sent to the server immediately, then at most once in every
+     * given interval. The last event of an interval is always delivered.
+     *
+     * @param millis
+     *            the length of the interval in milliseconds
+     * @return the rate policy
+     */
+    public static EventRate throttle(int millis) {
+        return new EventRate(Mode.throttle, millis);
+    }
+
+    /**
+     * The event is sent to the server only when no other event of the same type
+     * has been fired in the given time.
+     *
+     * @param millis
+     *            the quiet period in milliseconds
+     * @return the rate policy
+     */
+    public static EventRate debounce(int millis) {
+        return new EventRate(Mode.debounce, millis);
+    }
+
+    /**
+     * Only the last event of every given interval is sent to the server, at the
+     * end of the interval.
+     *
+     * @param millis
+     *            the length of the interval in milliseconds
+     * @return the rate policy
+     */
+    public static EventRate trailing(int millis) {
+        return new EventRate(Mode.trailing, millis);
+    }
+
+    /**
+     * Every event is delivered, but the client side buffers them and sends the
+     * buffered events to the server in one call when the given time has
+     * elapsed since the first buffered event or the buffer is full.
+     *
+     * @param millis
+     *            the maximum time an event is buffered in milliseconds
+     * @param maxSize
+     *            the maximum number of buffered events, or 0 if only the time
+     *            limits the buffer
+     * @return the rate policy
+     * @see Evented#addBatchEventListener(com.vaadin.addon.leaflet4vaadin.layer.events.types.LeafletEventType,
+     *      LeafletBatchEventListener, EventRate)
+     */
+    public static EventRate batch(int millis, int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("The size of the batch must not be negative: " + maxSize);
+        }
+        return new EventRate(Mode.batch, millis, maxSize);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getWait() {
+        return wait;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public String toString() {
+        return "EventRate [mode=" + mode + ", wait=" + wait + ", maxSize=" + maxSize + "]";
+    }
+
+}
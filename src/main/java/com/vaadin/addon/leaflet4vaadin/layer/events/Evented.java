@@ -37,6 +37,18 @@ public interface Evented {
 	 */
 	<T extends LeafletEvent> void addEventListener(LeafletEventType eventType, LeafletEventListener<T> listener);
 
+	/**
+	 * Adds a listener function (fn) to a particular event type of the object. The
+	 * events are sent from the client side according to the given rate policy.
+	 * 
+	 * @param eventType type of the event to be listening
+	 * @param listener  the event listener
+	 * @param eventRate the rate policy of the event type
+	 * @param <T>       the generic type of the leaflet object
+	 */
+	<T extends LeafletEvent> void addEventListener(LeafletEventType eventType, LeafletEventListener<T> listener,
+			EventRate eventRate);
+
 	/**
 	 * Alias to addEventListener(…)
 	 * 
@@ -48,6 +60,46 @@ public interface Evented {
 		addEventListener(eventType, listener);
 	}
 
+	/**
+	 * Alias to addEventListener(…) with rate policy
+	 * 
+	 * @param eventType type of the event to be listening
+	 * @param listener  the event listener
+	 * @param eventRate the rate policy of the event type, e.g.
+	 *                  {@code EventRate.throttle(100)}
+	 * @param <T>       the generic type of the leaflet object
+	 */
+	default <T extends LeafletEvent> void on(LeafletEventType eventType, LeafletEventListener<T> listener,
+			EventRate eventRate) {
+		addEventListener(eventType, listener, eventRate);
+	}
+
+	/**
+	 * Adds a listener function (fn) to a particular event type of the object,
+	 * which receives the events in batches. The client side buffers the events
+	 * according to the given batch policy and sends them in one call.
+	 * 
+	 * @param eventType type of the event to be listening
+	 * @param listener  the batch event listener
+	 * @param batch     the batch policy, e.g. {@code EventRate.batch(250, 100)}
+	 * @param <T>       the generic type of the leaflet object
+	 */
+	<T extends LeafletEvent> void addBatchEventListener(LeafletEventType eventType, LeafletBatchEventListener<T> listener,
+			EventRate batch);
+
+	/**
+	 * Alias to addBatchEventListener(…)
+	 * 
+	 * @param eventType type of the event to be listening
+	 * @param listener  the batch event listener
+	 * @param batch     the batch policy, e.g. {@code EventRate.batch(250, 100)}
+	 * @param <T>       the generic type of the leaflet object
+	 */
+	default <T extends LeafletEvent> void onBatch(LeafletEventType eventType, LeafletBatchEventListener<T> listener,
+			EventRate batch) {
+		addBatchEventListener(eventType, listener, batch);
+	}
+
 	/**
 	 * Alias to off(…)
 	 * 
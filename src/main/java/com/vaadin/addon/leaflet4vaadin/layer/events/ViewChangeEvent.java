@@ -0,0 +1,84 @@
+// Copyright 2020 Gabor Kokeny and contributors
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.events;
+
+import com.vaadin.addon.leaflet4vaadin.layer.Layer;
+import com.vaadin.addon.leaflet4vaadin.layer.events.types.MapEventType;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+import com.vaadin.addon.leaflet4vaadin.types.Point;
+
+/**
+ * Fired when the view of the map has changed (moveend, zoomend). It carries
+ * the new view of the map, so the listeners do not need to query it from the
+ * client side.
+ */
+public class ViewChangeEvent extends LeafletEvent {
+
+    private final LatLng center;
+    private final double zoom;
+    private final LatLngBounds bounds;
+    private final Point size;
+
+    public ViewChangeEvent(Layer layer, MapEventType eventType, LatLng center, double zoom, LatLngBounds bounds, Point size) {
+        super(layer, eventType);
+        this.center = center;
+        this.zoom = zoom;
+        this.bounds = bounds;
+        this.size = size;
+    }
+
+    /**
+     * The center of the map after the change
+     * 
+     * @return the center of the map
+     */
+    public LatLng getCenter() {
+        return center;
+    }
+
+    /**
+     * The zoom level of the map after the change
+     * 
+     * @return the zoom level of the map
+     */
+    public double getZoom() {
+        return zoom;
+    }
+
+    /**
+     * The geographical bounds visible in the map after the change
+     * 
+     * @return the visible bounds of the map
+     */
+    public LatLngBounds getBounds() {
+        return bounds;
+    }
+
+    /**
+     * The size of the map container in pixels
+     * 
+     * @return the size of the map container
+     */
+    public Point getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "ViewChangeEvent [type=" + super.getType() + ", center=" + center + ", zoom=" + zoom + ", bounds=" + bounds + ", size=" + size + "]";
+    }
+
+}
@@ -31,6 +31,7 @@ import com.vaadin.addon.leaflet4vaadin.layer.events.Evented;
 import com.vaadin.addon.leaflet4vaadin.layer.events.LeafletEvent;
 import com.vaadin.addon.leaflet4vaadin.layer.events.LeafletEventListener;
 import com.vaadin.addon.leaflet4vaadin.layer.events.ResizeEvent;
+import com.vaadin.addon.leaflet4vaadin.layer.events.ViewChangeEvent;
 import com.vaadin.addon.leaflet4vaadin.layer.events.ZoomAnimEvent;
 
 public interface SupportsMapEvents extends Evented {
@@ -127,7 +128,7 @@ public interface SupportsMapEvents extends Evented {
 	 * 
 	 * @param listener the listener to call when the event occurs, not {@code null}
 	 */
-	default void onZoomEnd(LeafletEventListener<LeafletEvent> listener) {
+	default void onZoomEnd(LeafletEventListener<ViewChangeEvent> listener) {
 		on(zoomend, listener);
 	}
 
@@ -137,7 +138,7 @@ public interface SupportsMapEvents extends Evented {
 	 * 
 	 * @param listener the listener to call when the event occurs, not {@code null}
 	 */
-	default void onMoveEnd(LeafletEventListener<LeafletEvent> listener) {
+	default void onMoveEnd(LeafletEventListener<ViewChangeEvent> listener) {
 		on(moveend, listener);
 	}
 
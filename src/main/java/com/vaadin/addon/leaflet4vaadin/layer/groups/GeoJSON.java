@@ -14,11 +14,13 @@
 
 package com.vaadin.addon.leaflet4vaadin.layer.groups;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import com.vaadin.addon.leaflet4vaadin.LeafletMap;
 import com.vaadin.addon.leaflet4vaadin.layer.HasStyle;
 import com.vaadin.addon.leaflet4vaadin.layer.Identifiable;
 import com.vaadin.addon.leaflet4vaadin.layer.Layer;
@@ -26,14 +28,18 @@ import com.vaadin.addon.leaflet4vaadin.layer.groups.GeoJSONOptions.CoordsToLatLn
 import com.vaadin.addon.leaflet4vaadin.layer.groups.GeoJSONOptions.OnEachFeatureHandler;
 import com.vaadin.addon.leaflet4vaadin.layer.groups.GeoJSONOptions.PointToLayerHandler;
 import com.vaadin.addon.leaflet4vaadin.layer.groups.GeoJSONOptions.StyleHandler;
+import com.vaadin.addon.leaflet4vaadin.layer.map.functions.ExecutableFunctions;
 import com.vaadin.addon.leaflet4vaadin.layer.ui.marker.Marker;
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.MultiPolygon.MultiPolygonStructure;
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.MultiPolyline;
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.Polygon;
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.Polyline;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.GeometryStructure;
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.LatLngArray;
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.MultiLatLngArray;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.SimplifiedGeometry;
 import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.flow.shared.Registration;
 
 import org.geojson.Feature;
 import org.geojson.FeatureCollection;
@@ -49,11 +55,15 @@ import org.geojson.Point;
 /**
  * Represents a GeoJSON object or an array of GeoJSON objects. Allows you to
  * parse GeoJSON data and display it on the map. Extends FeatureGroup.
+ * <p>
+ * If simplification is set in the {@link GeoJSONOptions}, the lines and
+ * polygons are simplified depending on the zoom of the map while the layer is
+ * added to the map.
  * 
  * @author <strong>Gabor Kokeny</strong> Email:
  *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
  * @since 2020-03-22
- * @version 1.0
+ * @version 1.2
  */
 public class GeoJSON extends FeatureGroup implements GeoJSONFunctions {
 
@@ -61,6 +71,8 @@ public class GeoJSON extends FeatureGroup implements GeoJSONFunctions {
 
     private final GeoJSONOptions options;
     private final Map<Identifiable, Feature> layerFeatureMap = new HashMap<>();
+    private LeafletMap leafletMap;
+    private Registration viewStateRegistration;
 
     public GeoJSON(GeoJsonObject geoJson) {
         this(geoJson, new GeoJSONOptions());
@@ -76,6 +88,11 @@ public class GeoJSON extends FeatureGroup implements GeoJSONFunctions {
         if (geoJsonObject instanceof FeatureCollection) {
             FeatureCollection featureCollection = (FeatureCollection) geoJsonObject;
             featureCollection.getFeatures().forEach((feature) -> addData(feature));
+            if (options.simplificationAlgorithm() != null) {
+                List<SimplifiedGeometry> geometries = new ArrayList<>();
+                collectSimplifiedGeometries(this, geometries);
+                SimplifiedGeometry.precomputeAll(geometries);
+            }
             return this;
         }
 
@@ -100,10 +117,55 @@ public class GeoJSON extends FeatureGroup implements GeoJSONFunctions {
             handler.onEachFeature(feature, layer);
         }
 
+        if (leafletMap != null && leafletMap.getViewState() != null) {
+            ZoomSimplification.applyZoom(layer, ZoomSimplification.zoomLevel(leafletMap.getViewState()));
+        }
+
         layer.addTo(this);
         return this;
     }
 
+    /**
+     * Follows the zoom of the map with the simplified lines and polygons when
+     * the layer is added to a map, and stops following it when the layer is
+     * removed from the map.
+     */
+    @Override
+    protected void setParent(ExecutableFunctions parent) {
+        super.setParent(parent);
+        stopFollowingMap();
+        if (parent instanceof LeafletMap && options.simplificationAlgorithm() != null) {
+            leafletMap = (LeafletMap) parent;
+            viewStateRegistration = ZoomSimplification.follow(leafletMap, this);
+        }
+    }
+
+    /**
+     * Removes the layer from its parent and stops following the zoom of the
+     * map.
+     */
+    @Override
+    public void remove() {
+        super.remove();
+        stopFollowingMap();
+    }
+
+    private void stopFollowingMap() {
+        if (viewStateRegistration != null) {
+            viewStateRegistration.remove();
+            viewStateRegistration = null;
+        }
+        leafletMap = null;
+    }
+
+    private static void collectSimplifiedGeometries(Layer layer, List<SimplifiedGeometry> geometries) {
+        if (layer instanceof LayerGroup) {
+            ((LayerGroup) layer).getLayers().forEach(child -> collectSimplifiedGeometries(child, geometries));
+        } else if (layer instanceof Polyline && ((Polyline) layer).getLatlngs() instanceof SimplifiedGeometry) {
+            geometries.add((SimplifiedGeometry) ((Polyline) layer).getLatlngs());
+        }
+    }
+
     private void setLayerStyle(Layer layer, StyleHandler styleHandler) {
         if (layer instanceof HasStyle) {
             Feature feature = layerFeatureMap.get(layer);
@@ -157,7 +219,7 @@ public class GeoJSON extends FeatureGroup implements GeoJSONFunctions {
         } else if (geoJsonObject instanceof LineString) {
             LineString lineString = (LineString) geoJsonObject;
             List<LatLng> latLngs = lineString.getCoordinates().stream().map(coordsToLatLng::convert).collect(Collectors.toList());
-            layer = new Polyline(latLngs);
+            layer = options.simplificationAlgorithm() != null ? new Polyline(simplify(new LatLngArray(latLngs), options)) : new Polyline(latLngs);
         } else if (geoJsonObject instanceof MultiPoint) {
             MultiPoint multiPoint = (MultiPoint) geoJsonObject;
             FeatureGroup featureGroup = new FeatureGroup();
@@ -166,12 +228,19 @@ public class GeoJSON extends FeatureGroup implements GeoJSONFunctions {
         } else if (geoJsonObject instanceof MultiLineString) {
             MultiLineString multiLineString = (MultiLineString) geoJsonObject;
             MultiLatLngArray latLngs = multiCoordinateToLatLng(multiLineString.getCoordinates(), coordsToLatLng);
-            layer = new MultiPolyline(latLngs);
+            layer = options.simplificationAlgorithm() != null ? new MultiPolyline(simplify(latLngs, options)) : new MultiPolyline(latLngs);
         } else if (geoJsonObject instanceof org.geojson.Polygon) {
             org.geojson.Polygon polygon = (org.geojson.Polygon) geoJsonObject;
             List<LatLng> exteriorLatlngs = polygon.getExteriorRing().stream().map(coordsToLatLng::convert).collect(Collectors.toList());
             MultiLatLngArray interiorLatLngs = multiCoordinateToLatLng(polygon.getInteriorRings(), coordsToLatLng);
-            layer = new Polygon(exteriorLatlngs, interiorLatLngs);
+            if (options.simplificationAlgorithm() != null) {
+                MultiLatLngArray rings = new MultiLatLngArray();
+                rings.add(new LatLngArray(exteriorLatlngs));
+                rings.addAll(interiorLatLngs);
+                layer = new Polygon(simplify(rings, options));
+            } else {
+                layer = new Polygon(exteriorLatlngs, interiorLatLngs);
+            }
         } else if (geoJsonObject instanceof MultiPolygon) {
             MultiPolygon multiPolygon = (MultiPolygon) geoJsonObject;
 
@@ -179,7 +248,9 @@ public class GeoJSON extends FeatureGroup implements GeoJSONFunctions {
             for (List<List<LngLatAlt>> polygonCoordinates : multiPolygon.getCoordinates()) {
                 multiPolygonStructure.add(multiCoordinateToLatLng(polygonCoordinates, coordsToLatLng));
             }
-            layer = new com.vaadin.addon.leaflet4vaadin.layer.vectors.MultiPolygon(multiPolygonStructure);
+            layer = options.simplificationAlgorithm() != null
+                    ? new com.vaadin.addon.leaflet4vaadin.layer.vectors.MultiPolygon(simplify(multiPolygonStructure, options))
+                    : new com.vaadin.addon.leaflet4vaadin.layer.vectors.MultiPolygon(multiPolygonStructure);
         } else if (geoJsonObject instanceof GeometryCollection) {
             FeatureGroup geometryFeatureGroup = new FeatureGroup();
             GeometryCollection geometryCollection = (GeometryCollection) geoJsonObject;
@@ -190,6 +261,10 @@ public class GeoJSON extends FeatureGroup implements GeoJSONFunctions {
         return layer;
     }
 
+    private static SimplifiedGeometry simplify(GeometryStructure geometry, GeoJSONOptions options) {
+        return SimplifiedGeometry.of(geometry, options.simplificationAlgorithm(), options.simplificationTolerance());
+    }
+
     private static MultiLatLngArray multiCoordinateToLatLng(List<List<LngLatAlt>> multiLngLatAlts, CoordsToLatLngHandler coordsToLatLng) {
         MultiLatLngArray multiLatLngArray = new MultiLatLngArray();
         for (List<LngLatAlt> coords : multiLngLatAlts) {
@@ -19,6 +19,8 @@ import java.util.function.Predicate;
 
 import com.vaadin.addon.leaflet4vaadin.layer.Layer;
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.PathOptions;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.SimplificationAlgorithm;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.SimplifiedGeometry;
 import com.vaadin.addon.leaflet4vaadin.types.LatLng;
 
 import org.geojson.Feature;
@@ -43,6 +45,8 @@ public class GeoJSONOptions implements Serializable {
     private transient PointToLayerHandler pointToLayerHandler;
     private transient OnEachFeatureHandler onEachFeatureHandler;
     private transient CoordsToLatLngHandler coordsToLatLngHandler;
+    private SimplificationAlgorithm simplificationAlgorithm;
+    private double simplificationTolerance = SimplifiedGeometry.DEFAULT_TOLERANCE;
 
     public GeoJSONOptions() {
     }
@@ -153,6 +157,38 @@ public class GeoJSONOptions implements Serializable {
         this.onEachFeatureHandler = onEachFeatureHandler;
     }
 
+    /**
+     * @return the simplificationAlgorithm
+     */
+    SimplificationAlgorithm simplificationAlgorithm() {
+        return simplificationAlgorithm;
+    }
+
+    /**
+     * @return the simplificationTolerance
+     */
+    double simplificationTolerance() {
+        return simplificationTolerance;
+    }
+
+    /**
+     * Simplifies the lines and polygons depending on the zoom level of the map,
+     * so at low zoom levels they are sent to the client side with much fewer
+     * vertices. The levels are precomputed when data is added, and the GeoJSON
+     * layer swaps in the level of the new zoom after zooming. The default is to
+     * send the lines and polygons at full resolution.
+     * 
+     * @param algorithm the simplification algorithm, or null to disable it
+     * @param tolerance the tolerance in pixels
+     */
+    public void simplification(SimplificationAlgorithm algorithm, double tolerance) {
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("The tolerance must be positive: " + tolerance);
+        }
+        this.simplificationAlgorithm = algorithm;
+        this.simplificationTolerance = tolerance;
+    }
+
     @FunctionalInterface
     public static interface PointToLayerHandler {
         Layer pointToLayer(GeoJsonObject geoJson, LatLng latLng);
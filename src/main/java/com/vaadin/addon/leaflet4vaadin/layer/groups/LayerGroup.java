@@ -16,29 +16,41 @@ package com.vaadin.addon.leaflet4vaadin.layer.groups;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Consumer;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.vaadin.addon.leaflet4vaadin.annotations.LeafletArgument;
 import com.vaadin.addon.leaflet4vaadin.layer.Layer;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
 
 /**
  * Used to group several layers and handle them as one. If you add it to the
  * map, any layers added or removed from the group will be added/removed on the
  * map as well. Extends Layer.
+ * <p>
+ * The layers of the group can be indexed by their geographical extent with
+ * {@link #setSpatialIndexEnabled(boolean)}, to query them by area, radius or
+ * proximity without scanning all layers.
  * 
  * @author <strong>Gabor Kokeny</strong> Email:
  *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
  * @since 2020-02-06
- * @version 1.1
+ * @version 1.2
  */
 public class LayerGroup extends Layer implements LayerGroupFunctions {
 
 	private static final long serialVersionUID = 439247482151898231L;
 	@LeafletArgument
-	private List<Layer> layers = new ArrayList<>();
+	private final Map<String, Layer> layers = new LinkedHashMap<>();
+	private LayerIndex layerIndex;
+	private SpatialIndex spatialIndex;
 
 	public LayerGroup(Layer... layers) {
 		this(Arrays.asList(layers));
@@ -46,7 +58,11 @@ public class LayerGroup extends Layer implements LayerGroupFunctions {
 
 	public LayerGroup(List<Layer> layers) {
 		super();
-		this.layers = new ArrayList<>(layers);
+		layers.forEach(layer -> this.layers.put(layer.getUuid(), layer));
+	}
+
+	void setLayerIndex(LayerIndex layerIndex) {
+		this.layerIndex = layerIndex;
 	}
 
 	/**
@@ -67,19 +83,54 @@ public class LayerGroup extends Layer implements LayerGroupFunctions {
 	 */
 	public void addLayer(Layer layer) {
 		LayerGroupFunctions.super.addLayer(layer);
-		this.getLayers().add(layer);
+		this.layers.put(layer.getUuid(), layer);
+		if (layerIndex != null) {
+			layerIndex.register(layer);
+		}
+		if (spatialIndex != null) {
+			spatialIndex.insert(layer);
+		}
+	}
+
+	/**
+	 * Adds the given layers to the group. If the spatial index is enabled, the
+	 * layers are bulk loaded into it.
+	 * 
+	 * @param layers the layers to be add
+	 */
+	public void addLayers(Collection<? extends Layer> layers) {
+		for (Layer layer : layers) {
+			LayerGroupFunctions.super.addLayer(layer);
+			this.layers.put(layer.getUuid(), layer);
+			if (layerIndex != null) {
+				layerIndex.register(layer);
+			}
+		}
+		if (spatialIndex != null) {
+			spatialIndex.load(layers);
+		}
 	}
 
 	@Override
 	public void removeLayer(Layer layer) {
 		LayerGroupFunctions.super.removeLayer(layer);
-        getLayer(layer.getUuid()).ifPresent(l -> getLayers().remove(l));
+		detachLayer(layer.getUuid());
 	}
 
 	@Override
 	public void removeLayer(String layerId) {
 		LayerGroupFunctions.super.removeLayer(layerId);
-		getLayer(layerId).ifPresent(l -> getLayers().remove(l));
+		detachLayer(layerId);
+	}
+
+	private void detachLayer(String layerId) {
+		Layer removed = this.layers.remove(layerId);
+		if (removed != null && layerIndex != null) {
+			layerIndex.unregister(removed);
+		}
+		if (removed != null && spatialIndex != null) {
+			spatialIndex.remove(layerId);
+		}
 	}
 
 	@Override
@@ -95,6 +146,12 @@ public class LayerGroup extends Layer implements LayerGroupFunctions {
 	@Override
 	public void clearLayers() {
 		LayerGroupFunctions.super.clearLayers();
+		if (layerIndex != null) {
+			this.layers.values().forEach(layerIndex::unregister);
+		}
+		if (spatialIndex != null) {
+			spatialIndex.clear();
+		}
 		this.layers.clear();
 	}
 
@@ -117,7 +174,7 @@ public class LayerGroup extends Layer implements LayerGroupFunctions {
 	 */
 	public void eachLayer(Consumer<Layer> action) {
 		Objects.requireNonNull(action);
-		for (Layer layer : this.layers) {
+		for (Layer layer : this.layers.values()) {
 			action.accept(layer);
 		}
 	}
@@ -130,26 +187,33 @@ public class LayerGroup extends Layer implements LayerGroupFunctions {
 	 * @return the layer with the given internal ID.
 	 */
 	public Optional<Layer> getLayer(String layerId) {
-		return this.layers.stream().filter(layer -> layer.getUuid().equals(layerId)).findFirst();
+		return Optional.ofNullable(this.layers.get(layerId));
 	}
 
+	/**
+	 * Returns the layer with the given internal ID from this group or from any
+	 * of its nested groups.
+	 * 
+	 * @param layerId the id of the layer to be looking for
+	 * @return the layer with the given internal ID
+	 */
 	public Optional<Layer> findLayer(String layerId) {
-		Optional<Layer> result = Optional.empty();
 		if (this.getUuid().equals(layerId)) {
 			return Optional.of(this);
-		} else {
-			for (Layer child : layers) {
-				if (child instanceof LayerGroup) {
-					result = ((LayerGroup) child).findLayer(layerId);
-					if (result.isPresent()) {
-						break;
-					}
-				} else if (child.getUuid().equals(layerId)) {
-					result = Optional.of(child);
+		}
+		Layer child = this.layers.get(layerId);
+		if (child != null) {
+			return Optional.of(child);
+		}
+		for (Layer layer : this.layers.values()) {
+			if (layer instanceof LayerGroup) {
+				Optional<Layer> result = ((LayerGroup) layer).findLayer(layerId);
+				if (result.isPresent()) {
+					return result;
 				}
 			}
 		}
-		return result;
+		return Optional.empty();
 	}
 
 	/**
@@ -158,7 +222,7 @@ public class LayerGroup extends Layer implements LayerGroupFunctions {
 	 * @return an array of all the layers added to the group.
 	 */
 	public List<Layer> getLayers() {
-		return layers;
+		return new ArrayList<>(layers.values());
 	}
 
 	/**
@@ -180,4 +244,70 @@ public class LayerGroup extends Layer implements LayerGroupFunctions {
 		executeJs(this, "setZIndex", zIndex);
 	}
 
+	/**
+	 * Enables or disables the spatial index of the group. When it is enabled,
+	 * the layers already in the group are bulk loaded into the index, and the
+	 * index is maintained when layers are added or removed.
+	 * 
+	 * @param enabled true to enable the spatial index
+	 */
+	public void setSpatialIndexEnabled(boolean enabled) {
+		if (enabled && spatialIndex == null) {
+			spatialIndex = new SpatialIndex();
+			spatialIndex.load(this.layers.values());
+		} else if (!enabled) {
+			spatialIndex = null;
+		}
+	}
+
+	@JsonIgnore
+	public boolean isSpatialIndexEnabled() {
+		return spatialIndex != null;
+	}
+
+	/**
+	 * Returns the layers whose extent intersects the given bounds. The layer
+	 * moved after it was added has to be added again to update its position in
+	 * the index.
+	 * 
+	 * @param bounds the geographical area
+	 * @return the layers in the given area
+	 * @throws IllegalStateException if the spatial index is not enabled
+	 */
+	public List<Layer> query(LatLngBounds bounds) {
+		return requireSpatialIndex().query(bounds);
+	}
+
+	/**
+	 * Returns the layers whose extent is within the given distance from the
+	 * given point.
+	 * 
+	 * @param center the geographical point
+	 * @param meters the distance in meters
+	 * @return the layers within the given distance
+	 * @throws IllegalStateException if the spatial index is not enabled
+	 */
+	public List<Layer> withinRadius(LatLng center, double meters) {
+		return requireSpatialIndex().withinRadius(center, meters);
+	}
+
+	/**
+	 * Returns the k layers closest to the given point, the closest first.
+	 * 
+	 * @param center the geographical point
+	 * @param k      the maximum number of layers to return
+	 * @return the closest layers
+	 * @throws IllegalStateException if the spatial index is not enabled
+	 */
+	public List<Layer> nearest(LatLng center, int k) {
+		return requireSpatialIndex().nearest(center, k);
+	}
+
+	private SpatialIndex requireSpatialIndex() {
+		if (spatialIndex == null) {
+			throw new IllegalStateException("The spatial index of the layer group is not enabled");
+		}
+		return spatialIndex;
+	}
+
 }
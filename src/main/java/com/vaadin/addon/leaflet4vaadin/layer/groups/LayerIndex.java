@@ -0,0 +1,102 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.groups;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import com.vaadin.addon.leaflet4vaadin.layer.Layer;
+
+/**
+ * Index of all layers of a layer tree by their internal ID, including the
+ * layers of the nested layer groups. The index is maintained incrementally by
+ * the {@link LayerGroup}s of the tree when a layer is added or removed, so a
+ * layer can be looked up in constant time instead of walking the whole tree.
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-03
+ * @version 1.0
+ */
+public class LayerIndex implements Serializable {
+
+    private static final long serialVersionUID = -4651563186207307851L;
+
+    private final Map<String, Layer> layers = new HashMap<>();
+
+    /**
+     * Creates an index for the layer tree of the given root group.
+     *
+     * @param root
+     *            the root of the layer tree to be indexed
+     */
+    public LayerIndex(LayerGroup root) {
+        root.setLayerIndex(this);
+        root.eachLayer(this::register);
+    }
+
+    /**
+     * Adds the given layer and all of its nested layers to the index.
+     *
+     * @param layer
+     *            the layer to be indexed
+     */
+    void register(Layer layer) {
+        layers.put(layer.getUuid(), layer);
+        if (layer instanceof LayerGroup) {
+            LayerGroup layerGroup = (LayerGroup) layer;
+            layerGroup.setLayerIndex(this);
+            layerGroup.eachLayer(this::register);
+        }
+    }
+
+    /**
+     * Removes the given layer and all of its nested layers from the index.
+     *
+     * @param layer
+     *            the layer to be removed from the index
+     */
+    void unregister(Layer layer) {
+        layers.remove(layer.getUuid());
+        if (layer instanceof LayerGroup) {
+            LayerGroup layerGroup = (LayerGroup) layer;
+            layerGroup.setLayerIndex(null);
+            layerGroup.eachLayer(this::unregister);
+        }
+    }
+
+    /**
+     * Returns the layer with the given internal ID from anywhere in the tree.
+     *
+     * @param layerId
+     *            the id of the layer to be looking for
+     * @return the layer with the given internal ID
+     */
+    public Optional<Layer> find(String layerId) {
+        return Optional.ofNullable(layers.get(layerId));
+    }
+
+    /**
+     * Returns the number of the indexed layers
+     *
+     * @return the number of the indexed layers
+     */
+    public int size() {
+        return layers.size();
+    }
+
+}
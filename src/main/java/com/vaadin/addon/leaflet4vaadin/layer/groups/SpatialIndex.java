@@ -0,0 +1,676 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.groups;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import com.vaadin.addon.leaflet4vaadin.layer.Layer;
+import com.vaadin.addon.leaflet4vaadin.layer.map.crs.CRS;
+import com.vaadin.addon.leaflet4vaadin.layer.raster.ImageOverlay;
+import com.vaadin.addon.leaflet4vaadin.layer.ui.marker.Marker;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.CircleMarker;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.Polyline;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+
+/**
+ * R-tree of layers by their geographical extent, to answer rectangle, radius
+ * and nearest neighbour queries without scanning every layer.
+ * <p>
+ * The tree is maintained dynamically on insert and remove (quadratic split),
+ * and can be bulk loaded with the Sort-Tile-Recursive algorithm, which
+ * produces fully packed nodes. The extent of the markers, circle markers,
+ * polylines, polygons and image overlays is known on the server side, other
+ * layers are kept by the index but they are not returned by the spatial
+ * queries. Distances are measured in meters on the sphere, as in
+ * {@link CRS#EPSG3857}.
+ * <p>
+ * The extent of a layer is taken when it is inserted, so a layer has to be
+ * inserted again after its coordinates have been changed. A query area may
+ * cross the antimeridian, the layers are expected between -180 and 180
+ * longitude then.
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-10
+ * @version 1.2
+ */
+public class SpatialIndex implements Serializable {
+
+    private static final long serialVersionUID = -7745095287208911683L;
+
+    private static final int MAX_ENTRIES = 16;
+    private static final int MIN_ENTRIES = 6;
+    private static final double EARTH_RADIUS = 6371000;
+
+    private Node root = new Node(true);
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, Layer> unbounded = new LinkedHashMap<>();
+
+    /**
+     * Adds the given layer to the index, or updates its position if it has
+     * already been added.
+     *
+     * @param layer
+     *            the layer to be indexed
+     */
+    public void insert(Layer layer) {
+        remove(layer.getUuid());
+        double[] extent = extentOf(layer);
+        if (extent == null) {
+            unbounded.put(layer.getUuid(), layer);
+        } else {
+            Entry entry = new Entry(layer, extent);
+            entries.put(layer.getUuid(), entry);
+            insert(entry);
+        }
+    }
+
+    /**
+     * Adds the given layers to the index and rebuilds the tree with the
+     * Sort-Tile-Recursive algorithm. It is much faster than inserting the
+     * layers one by one and results in a better tree.
+     *
+     * @param layers
+     *            the layers to be indexed
+     */
+    public void load(Collection<? extends Layer> layers) {
+        for (Layer layer : layers) {
+            remove(layer.getUuid());
+            double[] extent = extentOf(layer);
+            if (extent == null) {
+                unbounded.put(layer.getUuid(), layer);
+            } else {
+                entries.put(layer.getUuid(), new Entry(layer, extent));
+            }
+        }
+        root = pack(new ArrayList<Box>(entries.values()), true);
+    }
+
+    /**
+     * Removes the layer with the given internal ID from the index.
+     *
+     * @param layerId
+     *            the id of the layer to be removed
+     * @return the removed layer or null if it has not been indexed
+     */
+    public Layer remove(String layerId) {
+        Layer layer = unbounded.remove(layerId);
+        if (layer != null) {
+            return layer;
+        }
+        Entry entry = entries.remove(layerId);
+        if (entry == null) {
+            return null;
+        }
+        Node leaf = entry.parent;
+        leaf.children.remove(entry);
+        condense(leaf);
+        return entry.layer;
+    }
+
+    /**
+     * Removes the given layer from the index.
+     *
+     * @param layer
+     *            the layer to be removed
+     * @return true if the layer has been indexed
+     */
+    public boolean remove(Layer layer) {
+        return remove(layer.getUuid()) != null;
+    }
+
+    /**
+     * Removes all layers from the index.
+     */
+    public void clear() {
+        root = new Node(true);
+        entries.clear();
+        unbounded.clear();
+    }
+
+    public boolean contains(String layerId) {
+        return entries.containsKey(layerId) || unbounded.containsKey(layerId);
+    }
+
+    /**
+     * Returns the number of the indexed layers, including the layers without
+     * known extent.
+     *
+     * @return the number of the indexed layers
+     */
+    public int size() {
+        return entries.size() + unbounded.size();
+    }
+
+    /**
+     * Returns all indexed layers in no particular order.
+     *
+     * @return the indexed layers
+     */
+    public List<Layer> getLayers() {
+        List<Layer> layers = new ArrayList<>(size());
+        entries.values().forEach(entry -> layers.add(entry.layer));
+        layers.addAll(unbounded.values());
+        return layers;
+    }
+
+    /**
+     * Returns the layers whose extent is not known on the server side, so
+     * they are not returned by the spatial queries.
+     *
+     * @return the layers without known extent
+     */
+    public Collection<Layer> getUnboundedLayers() {
+        return Collections.unmodifiableCollection(unbounded.values());
+    }
+
+    /**
+     * Returns the layers whose extent intersects the given bounds.
+     *
+     * @param bounds
+     *            the geographical area
+     * @return the layers in the given area
+     */
+    public List<Layer> query(LatLngBounds bounds) {
+        return query(bounds.getSouth(), bounds.getWest(), bounds.getNorth(), bounds.getEast());
+    }
+
+    /**
+     * Returns the layers whose extent intersects the given rectangle. The
+     * rectangle crosses the antimeridian if west is greater than east, or if
+     * either of them is beyond 180 degrees.
+     *
+     * @param south
+     *            the south latitude of the area
+     * @param west
+     *            the west longitude of the area
+     * @param north
+     *            the north latitude of the area
+     * @param east
+     *            the east longitude of the area
+     * @return the layers in the given area
+     */
+    public List<Layer> query(double south, double west, double north, double east) {
+        List<double[]> parts = splitAtAntimeridian(south, west, north, east);
+        if (parts.size() == 1) {
+            double[] part = parts.get(0);
+            return search(part[0], part[1], part[2], part[3]);
+        }
+        Set<Layer> result = new LinkedHashSet<>();
+        for (double[] part : parts) {
+            result.addAll(search(part[0], part[1], part[2], part[3]));
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Splits the given rectangle at the antimeridian into the rectangles
+     * between -180 and 180 degrees of longitude, as south, west, north, east.
+     * The rectangle crosses the antimeridian the same way as the area of
+     * {@link #query(double, double, double, double)}.
+     */
+    static List<double[]> splitAtAntimeridian(double south, double west, double north, double east) {
+        if (east - west >= 360) {
+            return Collections.singletonList(new double[] { south, -Double.MAX_VALUE, north, Double.MAX_VALUE });
+        }
+        if (west > east || west < -180 || east > 180) {
+            double wrappedWest = wrapLng(west);
+            double wrappedEast = wrapLng(east);
+            if (wrappedWest > wrappedEast) {
+                List<double[]> parts = new ArrayList<>(2);
+                parts.add(new double[] { south, wrappedWest, north, 180 });
+                parts.add(new double[] { south, -180, north, wrappedEast });
+                return parts;
+            }
+            return Collections.singletonList(new double[] { south, wrappedWest, north, wrappedEast });
+        }
+        return Collections.singletonList(new double[] { south, west, north, east });
+    }
+
+    static double wrapLng(double lng) {
+        return ((lng + 180) % 360 + 360) % 360 - 180;
+    }
+
+    private List<Layer> search(double south, double west, double north, double east) {
+        List<Layer> result = new ArrayList<>();
+        if (root.children.isEmpty() || !root.intersects(south, west, north, east)) {
+            return result;
+        }
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            for (Box child : node.children) {
+                if (child.intersects(south, west, north, east)) {
+                    if (node.leaf) {
+                        result.add(((Entry) child).layer);
+                    } else {
+                        stack.push((Node) child);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the layers whose extent is within the given distance from the
+     * given point.
+     *
+     * @param center
+     *            the geographical point
+     * @param meters
+     *            the distance in meters
+     * @return the layers within the given distance
+     */
+    public List<Layer> withinRadius(LatLng center, double meters) {
+        double lat = center.lat();
+        double lng = center.lng();
+        double latDelta = Math.toDegrees(meters / EARTH_RADIUS);
+        double south = lat - latDelta;
+        double north = lat + latDelta;
+        double west = -Double.MAX_VALUE;
+        double east = Double.MAX_VALUE;
+        if (south > -90 && north < 90) {
+            double lngDelta = latDelta / Math.cos(Math.toRadians(Math.max(Math.abs(south), Math.abs(north))));
+            if (lngDelta < 180) {
+                west = lng - lngDelta;
+                east = lng + lngDelta;
+            }
+        }
+        List<Layer> result = new ArrayList<>();
+        for (Layer layer : query(south, west, north, east)) {
+            if (entries.get(layer.getUuid()).distanceTo(lat, lng) <= meters) {
+                result.add(layer);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the k layers closest to the given point, ordered by their
+     * distance.
+     *
+     * @param center
+     *            the geographical point
+     * @param k
+     *            the maximum number of layers to return
+     * @return the closest layers, the closest first
+     */
+    public List<Layer> nearest(LatLng center, int k) {
+        double lat = center.lat();
+        double lng = center.lng();
+        List<Layer> result = new ArrayList<>(Math.min(k, entries.size()));
+        if (k <= 0 || root.children.isEmpty()) {
+            return result;
+        }
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator.comparingDouble(candidate -> candidate.distance));
+        queue.add(new Candidate(root, root.distanceTo(lat, lng)));
+        while (!queue.isEmpty() && result.size() < k) {
+            Box box = queue.poll().box;
+            if (box instanceof Entry) {
+                result.add(((Entry) box).layer);
+            } else {
+                for (Box child : ((Node) box).children) {
+                    queue.add(new Candidate(child, child.distanceTo(lat, lng)));
+                }
+            }
+        }
+        return result;
+    }
+
+    private void insert(Entry entry) {
+        Node node = root;
+        while (!node.leaf) {
+            node = chooseSubtree(node, entry);
+        }
+        node.add(entry);
+        while (node != null) {
+            Node parent = node.parent;
+            if (node.children.size() > MAX_ENTRIES) {
+                Node sibling = split(node);
+                if (parent == null) {
+                    root = new Node(false);
+                    root.add(node);
+                    root.add(sibling);
+                } else {
+                    parent.add(sibling);
+                }
+            } else {
+                node.extend(entry);
+            }
+            node = parent;
+        }
+    }
+
+    private static Node chooseSubtree(Node node, Box box) {
+        Node best = null;
+        double bestEnlargement = Double.POSITIVE_INFINITY;
+        double bestMargin = Double.POSITIVE_INFINITY;
+        for (Box child : node.children) {
+            double enlargement = child.enlargedArea(box) - child.area();
+            // the margin decides between the degenerated boxes of points
+            double margin = child.enlargedMargin(box);
+            if (enlargement < bestEnlargement || (enlargement == bestEnlargement && margin < bestMargin)) {
+                best = (Node) child;
+                bestEnlargement = enlargement;
+                bestMargin = margin;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Splits the given overflowing node with the quadratic algorithm, moves
+     * half of its children to the returned new node. The margin is used
+     * instead of the area, so the degenerated boxes of points are split well
+     * too.
+     */
+    private static Node split(Node node) {
+        List<Box> children = new ArrayList<>(node.children);
+        int seed1 = 0;
+        int seed2 = 1;
+        double worst = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < children.size(); i++) {
+            for (int j = i + 1; j < children.size(); j++) {
+                double waste = children.get(i).enlargedMargin(children.get(j)) - children.get(i).margin() - children.get(j).margin();
+                if (waste > worst) {
+                    worst = waste;
+                    seed1 = i;
+                    seed2 = j;
+                }
+            }
+        }
+        Node sibling = new Node(node.leaf);
+        Box first = children.get(seed1);
+        Box second = children.get(seed2);
+        children.remove(seed2);
+        children.remove(seed1);
+        node.children.clear();
+        node.reset();
+        node.add(first);
+        sibling.add(second);
+
+        while (!children.isEmpty()) {
+            if (node.children.size() + children.size() == MIN_ENTRIES) {
+                children.forEach(node::add);
+                break;
+            } else if (sibling.children.size() + children.size() == MIN_ENTRIES) {
+                children.forEach(sibling::add);
+                break;
+            }
+            int next = 0;
+            double maxPreference = -1;
+            for (int i = 0; i < children.size(); i++) {
+                Box child = children.get(i);
+                double preference = Math.abs((node.enlargedMargin(child) - node.margin()) - (sibling.enlargedMargin(child) - sibling.margin()));
+                if (preference > maxPreference) {
+                    maxPreference = preference;
+                    next = i;
+                }
+            }
+            Box child = children.remove(next);
+            double enlargement1 = node.enlargedMargin(child) - node.margin();
+            double enlargement2 = sibling.enlargedMargin(child) - sibling.margin();
+            if (enlargement1 < enlargement2 || (enlargement1 == enlargement2 && node.children.size() <= sibling.children.size())) {
+                node.add(child);
+            } else {
+                sibling.add(child);
+            }
+        }
+        return sibling;
+    }
+
+    /**
+     * Removes the underflowing nodes on the path from the given leaf to the
+     * root and inserts their entries again.
+     */
+    private void condense(Node leaf) {
+        List<Entry> orphans = new ArrayList<>();
+        Node node = leaf;
+        while (node.parent != null) {
+            Node parent = node.parent;
+            if (node.children.size() < MIN_ENTRIES) {
+                parent.children.remove(node);
+                collectEntries(node, orphans);
+            } else {
+                node.recalculate();
+            }
+            node = parent;
+        }
+        root.recalculate();
+        while (!root.leaf && root.children.size() == 1) {
+            root = (Node) root.children.get(0);
+            root.parent = null;
+        }
+        if (root.children.isEmpty()) {
+            root = new Node(true);
+        }
+        orphans.forEach(this::insert);
+    }
+
+    private static void collectEntries(Node node, List<Entry> result) {
+        for (Box child : node.children) {
+            if (node.leaf) {
+                result.add((Entry) child);
+            } else {
+                collectEntries((Node) child, result);
+            }
+        }
+    }
+
+    /**
+     * Packs the given boxes into fully loaded nodes with the
+     * Sort-Tile-Recursive algorithm, then packs the nodes again until a single
+     * root remains.
+     */
+    private static Node pack(List<Box> boxes, boolean leaf) {
+        if (boxes.size() <= MAX_ENTRIES) {
+            Node node = new Node(leaf);
+            boxes.forEach(node::add);
+            return node;
+        }
+        int nodeCount = (int) Math.ceil(boxes.size() / (double) MAX_ENTRIES);
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * MAX_ENTRIES;
+        boxes.sort(Comparator.comparingDouble(box -> box.west + box.east));
+        List<Box> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < boxes.size(); i += sliceSize) {
+            List<Box> slice = boxes.subList(i, Math.min(i + sliceSize, boxes.size()));
+            slice.sort(Comparator.comparingDouble(box -> box.south + box.north));
+            for (int j = 0; j < slice.size(); j += MAX_ENTRIES) {
+                Node node = new Node(leaf);
+                slice.subList(j, Math.min(j + MAX_ENTRIES, slice.size())).forEach(node::add);
+                nodes.add(node);
+            }
+        }
+        return pack(nodes, false);
+    }
+
+    /**
+     * Returns the geographical extent of the given layer as south, west,
+     * north, east, or null if the extent of the layer is not known on the
+     * server side.
+     *
+     * @param layer
+     *            the layer
+     * @return the extent of the layer or null
+     */
+    static double[] extentOf(Layer layer) {
+        if (layer instanceof Marker) {
+            return extentOf(((Marker) layer).getLatLng());
+        } else if (layer instanceof CircleMarker) {
+            return extentOf(((CircleMarker) layer).getLatlng());
+        } else if (layer instanceof Polyline) {
+            return extentOf(((Polyline) layer).getBounds());
+        } else if (layer instanceof ImageOverlay) {
+            return extentOf(((ImageOverlay) layer).getBounds());
+        }
+        return null;
+    }
+
+    private static double[] extentOf(LatLng latLng) {
+        if (latLng == null) {
+            return null;
+        }
+        return new double[] { latLng.lat(), latLng.lng(), latLng.lat(), latLng.lng() };
+    }
+
+    private static double[] extentOf(LatLngBounds bounds) {
+        if (bounds == null || bounds.getSouthWest() == null || bounds.getNorthEast() == null) {
+            return null;
+        }
+        return new double[] { bounds.getSouth(), bounds.getWest(), bounds.getNorth(), bounds.getEast() };
+    }
+
+    static boolean intersects(double[] a, double[] b) {
+        return a[0] <= b[2] && a[2] >= b[0] && a[1] <= b[3] && a[3] >= b[1];
+    }
+
+    /**
+     * A rectangle in the tree, either a node or an entry of a layer.
+     */
+    private abstract static class Box implements Serializable {
+
+        private static final long serialVersionUID = 1807651128396384539L;
+
+        double south = Double.POSITIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY;
+        double north = Double.NEGATIVE_INFINITY;
+        double east = Double.NEGATIVE_INFINITY;
+        Node parent;
+
+        void extend(Box box) {
+            south = Math.min(south, box.south);
+            west = Math.min(west, box.west);
+            north = Math.max(north, box.north);
+            east = Math.max(east, box.east);
+        }
+
+        void reset() {
+            south = Double.POSITIVE_INFINITY;
+            west = Double.POSITIVE_INFINITY;
+            north = Double.NEGATIVE_INFINITY;
+            east = Double.NEGATIVE_INFINITY;
+        }
+
+        double area() {
+            return (north - south) * (east - west);
+        }
+
+        double enlargedArea(Box box) {
+            return (Math.max(north, box.north) - Math.min(south, box.south)) * (Math.max(east, box.east) - Math.min(west, box.west));
+        }
+
+        double margin() {
+            return (north - south) + (east - west);
+        }
+
+        double enlargedMargin(Box box) {
+            return (Math.max(north, box.north) - Math.min(south, box.south)) + (Math.max(east, box.east) - Math.min(west, box.west));
+        }
+
+        boolean intersects(double south, double west, double north, double east) {
+            return this.south <= north && this.north >= south && this.west <= east && this.east >= west;
+        }
+
+        /**
+         * Returns the shortest distance in meters between the given point and
+         * this rectangle, 0 if the point is inside.
+         */
+        double distanceTo(double lat, double lng) {
+            if (lng >= west && lng <= east) {
+                return CRS.EPSG3857.distance(lat, lng, Math.max(south, Math.min(north, lat)), lng);
+            }
+            return Math.min(distanceToMeridian(lat, lng, west), distanceToMeridian(lat, lng, east));
+        }
+
+        private double distanceToMeridian(double lat, double lng, double meridian) {
+            double deltaLng = Math.toRadians(lng - meridian);
+            double closestLat = south;
+            if (Math.cos(deltaLng) > 0) {
+                // the closest point of the meridian's great circle to the point
+                closestLat = Math.toDegrees(Math.atan(Math.tan(Math.toRadians(lat)) / Math.cos(deltaLng)));
+            } else if (lat > 0) {
+                closestLat = north;
+            }
+            return CRS.EPSG3857.distance(lat, lng, Math.max(south, Math.min(north, closestLat)), meridian);
+        }
+    }
+
+    private static final class Node extends Box {
+
+        private static final long serialVersionUID = 5021906338493493283L;
+
+        final boolean leaf;
+        final List<Box> children = new ArrayList<>(MAX_ENTRIES + 1);
+
+        Node(boolean leaf) {
+            this.leaf = leaf;
+        }
+
+        void add(Box child) {
+            children.add(child);
+            child.parent = this;
+            extend(child);
+        }
+
+        void recalculate() {
+            reset();
+            children.forEach(this::extend);
+        }
+    }
+
+    private static final class Entry extends Box {
+
+        private static final long serialVersionUID = -3359587862393437962L;
+
+        final Layer layer;
+
+        Entry(Layer layer, double[] extent) {
+            this.layer = layer;
+            this.south = extent[0];
+            this.west = extent[1];
+            this.north = extent[2];
+            this.east = extent[3];
+        }
+    }
+
+    private static final class Candidate {
+
+        final Box box;
+        final double distance;
+
+        Candidate(Box box, double distance) {
+            this.box = box;
+            this.distance = distance;
+        }
+    }
+
+}
@@ -0,0 +1,426 @@
+// Copyright 2020 Gabor Kokeny and contributors
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.groups;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.vaadin.addon.leaflet4vaadin.LeafletMap;
+import com.vaadin.addon.leaflet4vaadin.layer.Layer;
+import com.vaadin.addon.leaflet4vaadin.layer.map.functions.ExecutableFunctions;
+import com.vaadin.addon.leaflet4vaadin.layer.map.MapViewState;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+import com.vaadin.flow.shared.Registration;
+
+/**
+ * A layer group for large number of layers, which sends only the layers around
+ * the visible area of the map to the client side.
+ * <p>
+ * All layers of the group are kept in a server-side {@link SpatialIndex}, which
+ * also answers the spatial queries of the group. When the
+ * view of the map changes, the layers intersecting the viewport extended by
+ * the buffer are looked up in the index and only the layers which are not on
+ * the client side yet are sent. Layers which went off-screen stay on the
+ * client side until their number exceeds the high-water mark, then the least
+ * recently visible ones are removed from the client side. Layers whose extent
+ * is not known on the server side are always sent. At most
+ * {@link #getMaxVisibleLayers()} layers are sent for one view, the ones closest
+ * to the center of the view, so zooming out over a dense area does not send
+ * all its layers.
+ * <p>
+ * The group follows the view of the map while it is added to the map, with
+ * {@link #addTo(LeafletMap)} or {@link LeafletMap#addLayer(Layer)}, otherwise
+ * the viewport has to be set with {@link #updateViewport(LatLngBounds)}. {@link #getLayers()} returns the
+ * layers which are on the client side, {@link #getIndexedLayers()} returns all
+ * layers of the group.
+ * <p>
+ * The state of the group is not sent to the client side, only its layers
+ * around the viewport.
+ * 
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-09
+ * @version 1.2
+ */
+public class ViewportLayerGroup extends LayerGroup {
+
+    private static final long serialVersionUID = -1453394779386924560L;
+
+    /**
+     * The default buffer around the viewport, relative to its size
+     */
+    public static final double DEFAULT_BUFFER = 0.5;
+
+    /**
+     * The default maximum number of layers kept on the client side
+     */
+    public static final int DEFAULT_HIGH_WATER_MARK = 5000;
+
+    /**
+     * The default maximum number of layers sent for one view
+     */
+    public static final int DEFAULT_MAX_VISIBLE_LAYERS = 2000;
+
+    private final SpatialIndex index = new SpatialIndex();
+    private double buffer = DEFAULT_BUFFER;
+    private int highWaterMark = DEFAULT_HIGH_WATER_MARK;
+    private int maxVisibleLayers = DEFAULT_MAX_VISIBLE_LAYERS;
+
+    /**
+     * The viewport extended by the buffer, split at the antimeridian into
+     * rectangles as south, west, north, east
+     */
+    private List<double[]> area;
+
+    /**
+     * The view change in which the layers on the client side were visible
+     * last time, by their internal ID in the order they were sent, so the
+     * layers last visible in the same view are evicted in that order
+     */
+    private final Map<String, Long> lastVisible = new LinkedHashMap<>();
+    private long viewChange = 0;
+
+    /**
+     * The number of layers on the client side, which are visible in the
+     * current view
+     */
+    private int visibleCount = 0;
+
+    private Registration viewStateRegistration;
+
+    public ViewportLayerGroup() {
+        super();
+    }
+
+    @Override
+    public String getLeafletType() {
+        return LayerGroup.class.getSimpleName();
+    }
+
+    /**
+     * Follows the view of the map when the group is added to a map, and stops
+     * following it when the group is removed from the map.
+     */
+    @Override
+    protected void setParent(ExecutableFunctions parent) {
+        super.setParent(parent);
+        stopFollowingMap();
+        if (parent instanceof LeafletMap) {
+            LeafletMap leafletMap = (LeafletMap) parent;
+            viewStateRegistration = leafletMap.addViewStateChangeListener(event -> updateViewport(event.getViewState()));
+            if (leafletMap.getViewState() != null) {
+                updateViewport(leafletMap.getViewState());
+            }
+        }
+    }
+
+    /**
+     * Removes the group from its parent and stops following the view of the
+     * map.
+     */
+    @Override
+    public void remove() {
+        super.remove();
+        stopFollowingMap();
+    }
+
+    private void stopFollowingMap() {
+        if (viewStateRegistration != null) {
+            viewStateRegistration.remove();
+            viewStateRegistration = null;
+        }
+    }
+
+    /**
+     * Adds the given layer to the group. It is sent to the client side only if
+     * it is around the current viewport.
+     * 
+     * @param layer
+     *            the layer to be add
+     */
+    @Override
+    public void addLayer(Layer layer) {
+        index.insert(layer);
+        if (area != null && visibleCount < maxVisibleLayers && isInArea(layer)) {
+            sendLayer(layer);
+        }
+    }
+
+    /**
+     * Updates the position of the given layer in the spatial index after its
+     * geographical position has been changed.
+     * 
+     * @param layer
+     *            the layer which has been moved
+     */
+    public void updateLayer(Layer layer) {
+        if (index.contains(layer.getUuid())) {
+            index.insert(layer);
+            if (area != null && visibleCount < maxVisibleLayers && !isOnClient(layer.getUuid()) && isInArea(layer)) {
+                sendLayer(layer);
+            }
+        }
+    }
+
+    @Override
+    public void removeLayer(Layer layer) {
+        index.remove(layer.getUuid());
+        if (isOnClient(layer.getUuid())) {
+            forget(layer.getUuid());
+            super.removeLayer(layer);
+        }
+    }
+
+    @Override
+    public void removeLayer(String layerId) {
+        index.remove(layerId);
+        if (isOnClient(layerId)) {
+            forget(layerId);
+            super.removeLayer(layerId);
+        }
+    }
+
+    @Override
+    public boolean hasLayer(String layerId) {
+        return index.contains(layerId);
+    }
+
+    @Override
+    public void clearLayers() {
+        index.clear();
+        lastVisible.clear();
+        visibleCount = 0;
+        super.clearLayers();
+    }
+
+    /**
+     * Returns all layers of the group, including the ones which are not on the
+     * client side.
+     * 
+     * @return all layers of the group
+     */
+    @JsonIgnore
+    public Collection<Layer> getIndexedLayers() {
+        return Collections.unmodifiableCollection(index.getLayers());
+    }
+
+    /**
+     * The spatial index of this group is always enabled.
+     */
+    @Override
+    public void setSpatialIndexEnabled(boolean enabled) {
+        if (!enabled) {
+            throw new UnsupportedOperationException("The spatial index of a viewport layer group cannot be disabled");
+        }
+    }
+
+    @Override
+    public boolean isSpatialIndexEnabled() {
+        return true;
+    }
+
+    @Override
+    public List<Layer> query(LatLngBounds bounds) {
+        return index.query(bounds);
+    }
+
+    @Override
+    public List<Layer> withinRadius(LatLng center, double meters) {
+        return index.withinRadius(center, meters);
+    }
+
+    @Override
+    public List<Layer> nearest(LatLng center, int k) {
+        return index.nearest(center, k);
+    }
+
+    private void updateViewport(MapViewState viewState) {
+        if (viewState.getBounds() != null) {
+            updateViewport(viewState.getBounds());
+        }
+    }
+
+    /**
+     * Sends the layers around the given viewport to the client side, which are
+     * not there yet, and removes the least recently visible layers from the
+     * client side if there are more than the high-water mark. If there are
+     * more layers around the viewport than the maximum number of visible
+     * layers, only the ones closest to the center of the viewport are sent.
+     * 
+     * @param viewport
+     *            the visible area of the map
+     */
+    public void updateViewport(LatLngBounds viewport) {
+        viewChange++;
+        visibleCount = 0;
+        double south = viewport.getSouth();
+        double west = viewport.getWest();
+        double north = viewport.getNorth();
+        double east = viewport.getEast();
+        // a view across the antimeridian has its east edge west of its west edge
+        if (east < west) {
+            east += 360;
+        }
+        double latBuffer = (north - south) * buffer;
+        double lngBuffer = (east - west) * buffer;
+        area = SpatialIndex.splitAtAntimeridian(south - latBuffer, west - lngBuffer, north + latBuffer, east + lngBuffer);
+
+        List<Layer> visible = index.query(south - latBuffer, west - lngBuffer, north + latBuffer, east + lngBuffer);
+        if (visible.size() > maxVisibleLayers) {
+            visible = closestInArea(new LatLng((south + north) / 2, SpatialIndex.wrapLng((west + east) / 2)));
+        }
+        visible.addAll(index.getUnboundedLayers());
+        for (Layer layer : visible) {
+            if (isOnClient(layer.getUuid())) {
+                markVisible(layer.getUuid());
+            } else {
+                sendLayer(layer);
+            }
+        }
+        evictLayers();
+    }
+
+    private List<Layer> closestInArea(LatLng center) {
+        List<Layer> closest = new ArrayList<>(maxVisibleLayers);
+        for (Layer layer : index.nearest(center, maxVisibleLayers)) {
+            if (isInArea(layer)) {
+                closest.add(layer);
+            }
+        }
+        return closest;
+    }
+
+    private void sendLayer(Layer layer) {
+        super.addLayer(layer);
+        markVisible(layer.getUuid());
+    }
+
+    private void markVisible(String layerId) {
+        Long previous = lastVisible.put(layerId, viewChange);
+        if (previous == null || previous < viewChange) {
+            visibleCount++;
+        }
+    }
+
+    private void forget(String layerId) {
+        Long previous = lastVisible.remove(layerId);
+        if (previous != null && previous == viewChange) {
+            visibleCount--;
+        }
+    }
+
+    private void evictLayers() {
+        int excess = lastVisible.size() - highWaterMark;
+        if (excess <= 0) {
+            return;
+        }
+        List<Map.Entry<String, Long>> offScreen = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : lastVisible.entrySet()) {
+            if (entry.getValue() < viewChange) {
+                offScreen.add(entry);
+            }
+        }
+        offScreen.sort(Map.Entry.comparingByValue());
+        for (int i = 0; i < excess && i < offScreen.size(); i++) {
+            String layerId = offScreen.get(i).getKey();
+            lastVisible.remove(layerId);
+            getLayer(layerId).ifPresent(super::removeLayer);
+        }
+    }
+
+    private boolean isOnClient(String layerId) {
+        return lastVisible.containsKey(layerId);
+    }
+
+    private boolean isInArea(Layer layer) {
+        double[] extent = SpatialIndex.extentOf(layer);
+        if (extent == null) {
+            return true;
+        }
+        for (double[] part : area) {
+            if (SpatialIndex.intersects(extent, part)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of layers which are sent to the client side
+     * 
+     * @return the number of layers on the client side
+     */
+    @JsonIgnore
+    public int getClientLayerCount() {
+        return lastVisible.size();
+    }
+
+    @JsonIgnore
+    public double getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Sets the buffer around the viewport, relative to the size of the
+     * viewport. The layers in the buffer are sent in advance, so they are
+     * already on the client side when the map is panned a little.
+     * 
+     * @param buffer
+     *            the buffer, 0.5 means half of the viewport on each side
+     */
+    public void setBuffer(double buffer) {
+        this.buffer = buffer;
+    }
+
+    @JsonIgnore
+    public int getMaxVisibleLayers() {
+        return maxVisibleLayers;
+    }
+
+    /**
+     * Sets the maximum number of layers sent for one view. When there are more
+     * layers around the viewport, e.g. when the map is zoomed out, only the
+     * ones closest to the center of the viewport are sent.
+     * 
+     * @param maxVisibleLayers
+     *            the maximum number of layers sent for one view
+     */
+    public void setMaxVisibleLayers(int maxVisibleLayers) {
+        this.maxVisibleLayers = maxVisibleLayers;
+    }
+
+    @JsonIgnore
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Sets the number of layers kept on the client side, above which the
+     * off-screen layers are removed from the client side.
+     * 
+     * @param highWaterMark
+     *            the maximum number of layers on the client side
+     */
+    public void setHighWaterMark(int highWaterMark) {
+        this.highWaterMark = highWaterMark;
+    }
+
+}
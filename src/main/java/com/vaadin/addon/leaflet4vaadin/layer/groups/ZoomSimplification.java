@@ -0,0 +1,79 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.groups;
+
+import com.vaadin.addon.leaflet4vaadin.LeafletMap;
+import com.vaadin.addon.leaflet4vaadin.layer.Layer;
+import com.vaadin.addon.leaflet4vaadin.layer.map.MapViewState;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.Polyline;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.SimplifiedGeometry;
+import com.vaadin.flow.shared.Registration;
+
+/**
+ * Keeps the {@link SimplifiedGeometry} of the vector layers of a layer group at
+ * the level of the zoom of the map. When the zoom of the map changes, the
+ * layers whose level has been changed send their new level to the client side,
+ * so the finer geometry is swapped in after zooming in.
+ * 
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-14
+ * @version 1.0
+ */
+public final class ZoomSimplification {
+
+    private ZoomSimplification() {
+    }
+
+    /**
+     * Follows the zoom of the given map with the simplified layers of the given
+     * layer group, including the layers of its nested groups.
+     * 
+     * @param leafletMap
+     *            the map to follow
+     * @param layerGroup
+     *            the layer group with the simplified layers
+     * @return a handle that can be used to stop following the map
+     */
+    public static Registration follow(LeafletMap leafletMap, LayerGroup layerGroup) {
+        if (leafletMap.getViewState() != null) {
+            applyZoom(layerGroup, zoomLevel(leafletMap.getViewState()));
+        }
+        return leafletMap.addViewStateChangeListener(event -> applyZoom(layerGroup, zoomLevel(event.getViewState())));
+    }
+
+    static int zoomLevel(MapViewState viewState) {
+        return (int) Math.floor(viewState.getZoom());
+    }
+
+    /**
+     * Sets the given zoom on the given simplified layer, or on the simplified
+     * layers of the given layer group including the layers of its nested
+     * groups.
+     * 
+     * @param layer
+     *            the simplified layer or the layer group
+     * @param zoom
+     *            the zoom level of the map
+     */
+    public static void applyZoom(Layer layer, int zoom) {
+        if (layer instanceof LayerGroup) {
+            ((LayerGroup) layer).getLayers().forEach(child -> applyZoom(child, zoom));
+        } else if (layer instanceof Polyline) {
+            ((Polyline) layer).setSimplificationZoom(zoom);
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.map;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import com.vaadin.addon.leaflet4vaadin.types.Bounds;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+import com.vaadin.addon.leaflet4vaadin.types.Point;
+
+/**
+ * Snapshot of the map view. The client side pushes a new snapshot after each
+ * moveend, zoomend and resize event, so the state of the view can be read on
+ * the server side without a round-trip.
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-05
+ * @version 1.0
+ */
+public class MapViewState implements Serializable {
+
+    private static final long serialVersionUID = 6189562710466227411L;
+
+    private final LatLng center;
+    private final double zoom;
+    private final LatLngBounds bounds;
+    private final Point size;
+    private final Bounds pixelBounds;
+    private final Point pixelOrigin;
+
+    public MapViewState(LatLng center, double zoom, LatLngBounds bounds, Point size, Bounds pixelBounds, Point pixelOrigin) {
+        this.center = center;
+        this.zoom = zoom;
+        this.bounds = bounds;
+        this.size = size;
+        this.pixelBounds = pixelBounds;
+        this.pixelOrigin = pixelOrigin;
+    }
+
+    /**
+     * Creates a snapshot from the compact array pushed by the client side:
+     * center lat, center lng, zoom, south, west, north, east, size x, size y,
+     * pixel bounds min x, min y, max x, max y, pixel origin x, pixel origin y.
+     *
+     * @param state
+     *            the values of the snapshot
+     * @return the snapshot of the map view
+     */
+    public static MapViewState of(double... state) {
+        if (state.length != 15) {
+            throw new IllegalArgumentException("Invalid map view state, expected 15 values but got " + state.length);
+        }
+        LatLngBounds bounds = new LatLngBounds();
+        bounds.setSouthWest(new LatLng(state[3], state[4]));
+        bounds.setNorthEast(new LatLng(state[5], state[6]));
+        Bounds pixelBounds = new Bounds();
+        pixelBounds.setMin(Point.of(state[9], state[10]));
+        pixelBounds.setMax(Point.of(state[11], state[12]));
+        return new MapViewState(new LatLng(state[0], state[1]), state[2], bounds, Point.of(state[7], state[8]), pixelBounds,
+                Point.of(state[13], state[14]));
+    }
+
+    /**
+     * Returns the geographical center of the map view
+     * 
+     * @return the geographical center of the map view
+     */
+    public LatLng getCenter() {
+        return center;
+    }
+
+    /**
+     * Returns the zoom level of the map view
+     * 
+     * @return the zoom level of the map view
+     */
+    public double getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Returns the geographical bounds visible in the map view
+     * 
+     * @return the geographical bounds visible in the map view
+     */
+    public LatLngBounds getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Returns the size of the map container (in pixels).
+     * 
+     * @return the size of the map container
+     */
+    public Point getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the bounds of the map view in projected pixel coordinates
+     * 
+     * @return the bounds of the map view in projected pixel coordinates
+     */
+    public Bounds getPixelBounds() {
+        return pixelBounds;
+    }
+
+    /**
+     * Returns the projected pixel coordinates of the top left point of the map
+     * layer
+     * 
+     * @return the projected pixel coordinates of the top left point of the map
+     *         layer
+     */
+    public Point getPixelOrigin() {
+        return pixelOrigin;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+
+}
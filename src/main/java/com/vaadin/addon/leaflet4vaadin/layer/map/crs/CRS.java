@@ -0,0 +1,369 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.map.crs;
+
+import java.io.Serializable;
+
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+import com.vaadin.addon.leaflet4vaadin.types.Point;
+
+/**
+ * Server side implementation of the coordinate reference systems of Leaflet
+ * (L.CRS). The math is the same as in Leaflet, so coordinates can be converted
+ * between geographical and pixel space without calling the client side.
+ * <p>
+ * The bulk methods work on flat arrays of interleaved coordinates, e.g.
+ * {@code [lat0, lng0, lat1, lng1, ...]} and {@code [x0, y0, x1, y1, ...]}, so
+ * large geometries can be converted without allocating an object per
+ * coordinate.
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-06
+ * @version 1.0
+ */
+public abstract class CRS implements Serializable {
+
+    private static final long serialVersionUID = -2203314706103766592L;
+
+    private static final double MERCATOR_SCALE = 0.5 / (Math.PI * Projection.SphericalMercator.R);
+
+    /**
+     * The most common CRS for online maps, used by almost all free and
+     * commercial tile providers. Uses Spherical Mercator projection. Set in by
+     * default in the map's crs option.
+     */
+    public static final CRS EPSG3857 = new Earth("EPSG:3857", Projection.SPHERICAL_MERCATOR,
+            new Transformation(MERCATOR_SCALE, 0.5, -MERCATOR_SCALE, 0.5));
+
+    /**
+     * A common CRS among GIS enthusiasts. Uses simple Equirectangular
+     * projection.
+     */
+    public static final CRS EPSG4326 = new Earth("EPSG:4326", Projection.LON_LAT, new Transformation(1 / 180d, 1, -1 / 180d, 0.5));
+
+    /**
+     * A simple CRS that maps longitude and latitude into x and y directly. May be
+     * used for maps of flat surfaces (e.g. game maps).
+     */
+    public static final CRS SIMPLE = new Simple();
+
+    private final String code;
+    private final Projection projection;
+    private final Transformation transformation;
+    private final double[] wrapLng;
+    private final double[] wrapLat;
+
+    protected CRS(String code, Projection projection, Transformation transformation, double[] wrapLng, double[] wrapLat) {
+        this.code = code;
+        this.projection = projection;
+        this.transformation = transformation;
+        this.wrapLng = wrapLng;
+        this.wrapLat = wrapLat;
+    }
+
+    /**
+     * Returns the scale used when transforming projected coordinates into pixel
+     * coordinates for a particular zoom.
+     * 
+     * @param zoom
+     *            the zoom level
+     * @return the scale of the given zoom level
+     */
+    public double scale(double zoom) {
+        return 256 * Math.pow(2, zoom);
+    }
+
+    /**
+     * Inverse of scale(), returns the zoom level corresponding to a scale factor
+     * of scale.
+     * 
+     * @param scale
+     *            the scale factor
+     * @return the zoom level of the given scale
+     */
+    public double zoom(double scale) {
+        return Math.log(scale / 256) / Math.log(2);
+    }
+
+    /**
+     * Projects geographical coordinates into pixel coordinates for a given zoom.
+     * 
+     * @param latLng
+     *            the geographical coordinate
+     * @param zoom
+     *            the zoom level
+     * @return the pixel coordinate
+     */
+    public Point latLngToPoint(LatLng latLng, double zoom) {
+        double scale = scale(zoom);
+        return Point.of(transformation.transformX(projection.projectX(latLng.lng()), scale),
+                transformation.transformY(projection.projectY(latLng.lat()), scale));
+    }
+
+    /**
+     * The inverse of latLngToPoint. Projects pixel coordinates on a given zoom
+     * into geographical coordinates.
+     * 
+     * @param point
+     *            the pixel coordinate
+     * @param zoom
+     *            the zoom level
+     * @return the geographical coordinate
+     */
+    public LatLng pointToLatLng(Point point, double zoom) {
+        double scale = scale(zoom);
+        return new LatLng(projection.unprojectLat(transformation.untransformY(point.getY(), scale)),
+                projection.unprojectLng(transformation.untransformX(point.getX(), scale)));
+    }
+
+    /**
+     * Projects geographical coordinates into pixel coordinates for a given zoom.
+     * 
+     * @param latLngs
+     *            the interleaved geographical coordinates: lat, lng, lat, lng...
+     * @param zoom
+     *            the zoom level
+     * @return the interleaved pixel coordinates: x, y, x, y...
+     */
+    public double[] latLngsToPoints(double[] latLngs, double zoom) {
+        double[] points = new double[latLngs.length];
+        latLngsToPoints(latLngs, zoom, points);
+        return points;
+    }
+
+    /**
+     * Projects geographical coordinates into pixel coordinates for a given zoom
+     * and writes them into the given array, which may be the source array
+     * itself.
+     * 
+     * @param latLngs
+     *            the interleaved geographical coordinates: lat, lng, lat, lng...
+     * @param zoom
+     *            the zoom level
+     * @param points
+     *            the array of the interleaved pixel coordinates: x, y, x, y...
+     */
+    public void latLngsToPoints(double[] latLngs, double zoom, double[] points) {
+        double scale = scale(zoom);
+        for (int i = 0; i + 1 < latLngs.length; i += 2) {
+            double lat = latLngs[i];
+            double lng = latLngs[i + 1];
+            points[i] = transformation.transformX(projection.projectX(lng), scale);
+            points[i + 1] = transformation.transformY(projection.projectY(lat), scale);
+        }
+    }
+
+    /**
+     * Projects pixel coordinates on a given zoom into geographical coordinates.
+     * 
+     * @param points
+     *            the interleaved pixel coordinates: x, y, x, y...
+     * @param zoom
+     *            the zoom level
+     * @return the interleaved geographical coordinates: lat, lng, lat, lng...
+     */
+    public double[] pointsToLatLngs(double[] points, double zoom) {
+        double[] latLngs = new double[points.length];
+        pointsToLatLngs(points, zoom, latLngs);
+        return latLngs;
+    }
+
+    /**
+     * Projects pixel coordinates on a given zoom into geographical coordinates
+     * and writes them into the given array, which may be the source array
+     * itself.
+     * 
+     * @param points
+     *            the interleaved pixel coordinates: x, y, x, y...
+     * @param zoom
+     *            the zoom level
+     * @param latLngs
+     *            the array of the interleaved geographical coordinates: lat,
+     *            lng, lat, lng...
+     */
+    public void pointsToLatLngs(double[] points, double zoom, double[] latLngs) {
+        double scale = scale(zoom);
+        for (int i = 0; i + 1 < points.length; i += 2) {
+            double x = points[i];
+            double y = points[i + 1];
+            latLngs[i] = projection.unprojectLat(transformation.untransformY(y, scale));
+            latLngs[i + 1] = projection.unprojectLng(transformation.untransformX(x, scale));
+        }
+    }
+
+    /**
+     * Projects geographical coordinates into coordinates in units accepted for
+     * this CRS (e.g. meters for EPSG:3857, for passing it to WMS services).
+     * 
+     * @param latLng
+     *            the geographical coordinate
+     * @return the projected coordinate
+     */
+    public Point project(LatLng latLng) {
+        return Point.of(projection.projectX(latLng.lng()), projection.projectY(latLng.lat()));
+    }
+
+    /**
+     * Given a projected coordinate returns the corresponding LatLng. The inverse
+     * of project.
+     * 
+     * @param point
+     *            the projected coordinate
+     * @return the geographical coordinate
+     */
+    public LatLng unproject(Point point) {
+        return new LatLng(projection.unprojectLat(point.getY()), projection.unprojectLng(point.getX()));
+    }
+
+    /**
+     * Returns the distance between two geographical coordinates.
+     * 
+     * @param latLng1
+     *            the first geographical coordinate
+     * @param latLng2
+     *            the second geographical coordinate
+     * @return the distance between the given geographical coordinates
+     */
+    public double distance(LatLng latLng1, LatLng latLng2) {
+        return distance(latLng1.lat(), latLng1.lng(), latLng2.lat(), latLng2.lng());
+    }
+
+    /**
+     * Returns the distance between two geographical coordinates.
+     * 
+     * @param lat1
+     *            the latitude of the first coordinate
+     * @param lng1
+     *            the longitude of the first coordinate
+     * @param lat2
+     *            the latitude of the second coordinate
+     * @param lng2
+     *            the longitude of the second coordinate
+     * @return the distance between the given geographical coordinates
+     */
+    public abstract double distance(double lat1, double lng1, double lat2, double lng2);
+
+    /**
+     * Returns a LatLng where lat and lng has been wrapped according to the CRS's
+     * wrapLat and wrapLng properties, if they are outside the CRS's bounds.
+     * 
+     * @param latLng
+     *            the geographical coordinate
+     * @return the wrapped coordinate
+     */
+    public LatLng wrapLatLng(LatLng latLng) {
+        double lng = wrapLng != null ? wrapNum(latLng.lng(), wrapLng[0], wrapLng[1]) : latLng.lng();
+        double lat = wrapLat != null ? wrapNum(latLng.lat(), wrapLat[0], wrapLat[1]) : latLng.lat();
+        return new LatLng(lat, lng, latLng.getAltitude());
+    }
+
+    /**
+     * Returns a LatLngBounds with the same size as the given one, ensuring that
+     * its center is within the CRS's bounds.
+     * 
+     * @param bounds
+     *            the bounds to be wrapped
+     * @return the wrapped bounds
+     */
+    public LatLngBounds wrapLatLngBounds(LatLngBounds bounds) {
+        LatLng center = bounds.getCenter();
+        LatLng newCenter = wrapLatLng(center);
+        double latShift = center.lat() - newCenter.lat();
+        double lngShift = center.lng() - newCenter.lng();
+        if (latShift == 0 && lngShift == 0) {
+            return bounds;
+        }
+        LatLngBounds wrapped = new LatLngBounds();
+        wrapped.setSouthWest(new LatLng(bounds.getSouth() - latShift, bounds.getWest() - lngShift));
+        wrapped.setNorthEast(new LatLng(bounds.getNorth() - latShift, bounds.getEast() - lngShift));
+        return wrapped;
+    }
+
+    /**
+     * Returns true if the CRS is not wrapped around, e.g. Simple
+     * 
+     * @return true if the CRS is infinite
+     */
+    public boolean isInfinite() {
+        return wrapLng == null && wrapLat == null;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    private static double wrapNum(double x, double min, double max) {
+        double d = max - min;
+        return x == max ? x : ((x - min) % d + d) % d + min;
+    }
+
+    @Override
+    public String toString() {
+        return "CRS [code=" + code + "]";
+    }
+
+    private static class Earth extends CRS {
+
+        private static final long serialVersionUID = 5342063151405612163L;
+
+        /**
+         * Mean Earth Radius, as recommended for use by the International Union of
+         * Geodesy and Geophysics
+         */
+        private static final double R = 6371000;
+
+        private Earth(String code, Projection projection, Transformation transformation) {
+            super(code, projection, transformation, new double[] { -180, 180 }, null);
+        }
+
+        @Override
+        public double distance(double lat1, double lng1, double lat2, double lng2) {
+            double rad = Math.PI / 180;
+            double sinDLat = Math.sin((lat2 - lat1) * rad / 2);
+            double sinDLon = Math.sin((lng2 - lng1) * rad / 2);
+            double a = sinDLat * sinDLat + Math.cos(lat1 * rad) * Math.cos(lat2 * rad) * sinDLon * sinDLon;
+            double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+            return R * c;
+        }
+    }
+
+    private static class Simple extends CRS {
+
+        private static final long serialVersionUID = -1591566049406567062L;
+
+        private Simple() {
+            super("Simple", Projection.LON_LAT, new Transformation(1, 0, -1, 0), null, null);
+        }
+
+        @Override
+        public double scale(double zoom) {
+            return Math.pow(2, zoom);
+        }
+
+        @Override
+        public double zoom(double scale) {
+            return Math.log(scale) / Math.log(2);
+        }
+
+        @Override
+        public double distance(double lat1, double lng1, double lat2, double lng2) {
+            double dx = lng2 - lng1;
+            double dy = lat2 - lat1;
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.map.crs;
+
+import java.io.Serializable;
+
+/**
+ * An object with methods for projecting geographical coordinates of the world
+ * onto a flat surface (and back). The coordinates are projected independently,
+ * the same way as the projections of Leaflet (L.Projection).
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-06
+ * @version 1.0
+ */
+public interface Projection extends Serializable {
+
+    /**
+     * Spherical Mercator projection — the most common projection for online
+     * maps, used by almost all free and commercial tile providers. Assumes that
+     * Earth is a sphere. Used by the EPSG:3857 CRS.
+     */
+    Projection SPHERICAL_MERCATOR = new SphericalMercator();
+
+    /**
+     * Equirectangular, or Plate Carree projection — the most simple projection,
+     * mostly used by GIS enthusiasts. Directly maps x as longitude, and y as
+     * latitude. Also suitable for flat worlds, e.g. game maps. Used by the
+     * EPSG:4326 and Simple CRS.
+     */
+    Projection LON_LAT = new LonLat();
+
+    double projectX(double lng);
+
+    double projectY(double lat);
+
+    double unprojectLng(double x);
+
+    double unprojectLat(double y);
+
+    class LonLat implements Projection {
+
+        private static final long serialVersionUID = -3547413620958421862L;
+
+        @Override
+        public double projectX(double lng) {
+            return lng;
+        }
+
+        @Override
+        public double projectY(double lat) {
+            return lat;
+        }
+
+        @Override
+        public double unprojectLng(double x) {
+            return x;
+        }
+
+        @Override
+        public double unprojectLat(double y) {
+            return y;
+        }
+    }
+
+    class SphericalMercator implements Projection {
+
+        private static final long serialVersionUID = 5765466883495931035L;
+
+        public static final double R = 6378137;
+        public static final double MAX_LATITUDE = 85.0511287798;
+
+        private static final double D = Math.PI / 180;
+
+        @Override
+        public double projectX(double lng) {
+            return R * lng * D;
+        }
+
+        @Override
+        public double projectY(double lat) {
+            double sin = Math.sin(Math.max(Math.min(MAX_LATITUDE, lat), -MAX_LATITUDE) * D);
+            return R * Math.log((1 + sin) / (1 - sin)) / 2;
+        }
+
+        @Override
+        public double unprojectLng(double x) {
+            return x / D / R;
+        }
+
+        @Override
+        public double unprojectLat(double y) {
+            return (2 * Math.atan(Math.exp(y / R)) - (Math.PI / 2)) / D;
+        }
+    }
+}
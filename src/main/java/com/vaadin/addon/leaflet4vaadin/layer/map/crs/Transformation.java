@@ -0,0 +1,60 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.map.crs;
+
+import java.io.Serializable;
+
+/**
+ * Represents an affine transformation: a set of coefficients a, b, c, d for
+ * transforming a point of a form (x, y) into (a*x + b, c*y + d) and doing the
+ * reverse. Used by Leaflet in its projections code (L.Transformation).
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-06
+ * @version 1.0
+ */
+public final class Transformation implements Serializable {
+
+    private static final long serialVersionUID = 2401948233307632451L;
+
+    private final double a;
+    private final double b;
+    private final double c;
+    private final double d;
+
+    public Transformation(double a, double b, double c, double d) {
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.d = d;
+    }
+
+    public double transformX(double x, double scale) {
+        return scale * (a * x + b);
+    }
+
+    public double transformY(double y, double scale) {
+        return scale * (c * y + d);
+    }
+
+    public double untransformX(double x, double scale) {
+        return (x / scale - b) / a;
+    }
+
+    public double untransformY(double y, double scale) {
+        return (y / scale - d) / c;
+    }
+}
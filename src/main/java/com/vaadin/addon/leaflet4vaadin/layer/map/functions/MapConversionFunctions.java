@@ -17,20 +17,45 @@ package com.vaadin.addon.leaflet4vaadin.layer.map.functions;
 import java.util.concurrent.CompletableFuture;
 
 import com.vaadin.addon.leaflet4vaadin.layer.events.MouseEvent;
+import com.vaadin.addon.leaflet4vaadin.layer.map.MapViewState;
+import com.vaadin.addon.leaflet4vaadin.layer.map.crs.CRS;
 import com.vaadin.addon.leaflet4vaadin.types.LatLng;
 import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
 import com.vaadin.addon.leaflet4vaadin.types.Point;
 
 /**
  * Map Conversion Methods
+ * <p>
+ * The conversions which depend only on the CRS of the map are computed on the
+ * server side. The conversions which depend on the map view are computed on the
+ * server side as well, from the last {@link MapViewState} pushed by the client,
+ * and are sent to the client side only before the map is initialized.
  * 
  * @author <strong>Gabor Kokeny</strong> Email:
  *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
  * @since 2020-03-16
- * @version 1.1
+ * @version 1.2
  */
 public interface MapConversionFunctions extends ExecutableFunctions {
 
+    /**
+     * Returns the coordinate reference system of the map, used by the server
+     * side conversions.
+     * 
+     * @return the coordinate reference system of the map
+     */
+    default CRS getCrs() {
+        return CRS.EPSG3857;
+    }
+
+    /**
+     * Returns the last snapshot of the map view pushed by the client side.
+     * 
+     * @return the last snapshot of the map view, or null if the map is not
+     *         initialized on the client side yet
+     */
+    MapViewState getViewState();
+
     /**
      * Projects a geographical coordinate LatLng according to the projection of the
      * map's CRS, then scales it according to zoom and the CRS's Transformation. The
@@ -41,7 +66,7 @@ public interface MapConversionFunctions extends ExecutableFunctions {
      * @return the pixel coordinate relative to the CRS origin
      */
     default CompletableFuture<Point> project(LatLng latLng, int zoom) {
-        return call("project", Point.class, latLng, zoom);
+        return CompletableFuture.completedFuture(getCrs().latLngToPoint(latLng, zoom));
     }
 
     /**
@@ -52,7 +77,7 @@ public interface MapConversionFunctions extends ExecutableFunctions {
      * @return the geographical coordinate
      */
     default CompletableFuture<LatLng> unproject(Point point, int zoom) {
-        return call("unproject", LatLng.class, point, zoom);
+        return CompletableFuture.completedFuture(getCrs().pointToLatLng(point, zoom));
     }
 
     /**
@@ -63,7 +88,12 @@ public interface MapConversionFunctions extends ExecutableFunctions {
      * @return the corresponding geographical coordinate
      */
     default CompletableFuture<LatLng> layerPointToLatLng(Point point) {
-        return call("layerPointToLatLng", LatLng.class, point);
+        MapViewState viewState = getViewState();
+        if (viewState == null) {
+            return call("layerPointToLatLng", LatLng.class, point);
+        }
+        Point origin = viewState.getPixelOrigin();
+        return CompletableFuture.completedFuture(getCrs().pointToLatLng(Point.of(point.getX() + origin.getX(), point.getY() + origin.getY()), viewState.getZoom()));
     }
 
     /**
@@ -74,7 +104,13 @@ public interface MapConversionFunctions extends ExecutableFunctions {
      * @return the corresponding pixel coordinate
      */
     default CompletableFuture<Point> latLngToLayerPoint(LatLng latLng) {
-        return call("latLngToLayerPoint", Point.class, latLng);
+        MapViewState viewState = getViewState();
+        if (viewState == null) {
+            return call("latLngToLayerPoint", Point.class, latLng);
+        }
+        Point projected = getCrs().latLngToPoint(latLng, viewState.getZoom());
+        Point origin = viewState.getPixelOrigin();
+        return CompletableFuture.completedFuture(Point.of(Math.round(projected.getX()) - origin.getX(), Math.round(projected.getY()) - origin.getY()));
     }
 
     /**
@@ -88,7 +124,7 @@ public interface MapConversionFunctions extends ExecutableFunctions {
      * @return the wrapped latlng
      */
     default CompletableFuture<LatLng> wrapLatLng(LatLng latLng) {
-        return call("wrapLatLng", LatLng.class, latLng);
+        return CompletableFuture.completedFuture(getCrs().wrapLatLng(latLng));
     }
 
     /**
@@ -103,7 +139,7 @@ public interface MapConversionFunctions extends ExecutableFunctions {
      * @see LatLngBounds
      */
     default CompletableFuture<LatLngBounds> wrapLatLngBounds(LatLngBounds bounds) {
-        return call("wrapLatLng", LatLngBounds.class, bounds);
+        return CompletableFuture.completedFuture(getCrs().wrapLatLngBounds(bounds));
     }
 
     /**
@@ -116,7 +152,7 @@ public interface MapConversionFunctions extends ExecutableFunctions {
      * @see LatLng
      */
     default CompletableFuture<Double> distance(LatLng latLng1, LatLng latLng2) {
-        return call("distance", Double.class, latLng1, latLng2);
+        return CompletableFuture.completedFuture(getCrs().distance(latLng1, latLng2));
     }
 
     /**
@@ -129,7 +165,12 @@ public interface MapConversionFunctions extends ExecutableFunctions {
      * @see Point
      */
     default CompletableFuture<Point> containerPointToLayerPoint(Point point) {
-        return call("containerPointToLayerPoint", Point.class, point);
+        MapViewState viewState = getViewState();
+        if (viewState == null) {
+            return call("containerPointToLayerPoint", Point.class, point);
+        }
+        Point offset = containerOffset(viewState);
+        return CompletableFuture.completedFuture(Point.of(point.getX() + offset.getX(), point.getY() + offset.getY()));
     }
 
     /**
@@ -141,7 +182,12 @@ public interface MapConversionFunctions extends ExecutableFunctions {
      * @see Point
      */
     default CompletableFuture<Point> layerPointToContainerPoint(Point point) {
-        return call("layerPointToContainerPoint", Point.class, point);
+        MapViewState viewState = getViewState();
+        if (viewState == null) {
+            return call("layerPointToContainerPoint", Point.class, point);
+        }
+        Point offset = containerOffset(viewState);
+        return CompletableFuture.completedFuture(Point.of(point.getX() - offset.getX(), point.getY() - offset.getY()));
     }
 
     /**
@@ -155,7 +201,12 @@ public interface MapConversionFunctions extends ExecutableFunctions {
      * @see LatLng
      */
     default CompletableFuture<LatLng> containerPointToLatLng(Point point) {
-        return call("containerPointToLatLng", LatLng.class, point);
+        MapViewState viewState = getViewState();
+        if (viewState == null) {
+            return call("containerPointToLatLng", LatLng.class, point);
+        }
+        Point min = viewState.getPixelBounds().getMin();
+        return CompletableFuture.completedFuture(getCrs().pointToLatLng(Point.of(point.getX() + min.getX(), point.getY() + min.getY()), viewState.getZoom()));
     }
 
     /**
@@ -169,7 +220,13 @@ public interface MapConversionFunctions extends ExecutableFunctions {
      * @see LatLng
      */
     default CompletableFuture<Point> latLngToContainerPoint(LatLng latLng) {
-        return call("latLngToContainerPoint", Point.class, latLng);
+        MapViewState viewState = getViewState();
+        if (viewState == null) {
+            return call("latLngToContainerPoint", Point.class, latLng);
+        }
+        Point projected = getCrs().latLngToPoint(latLng, viewState.getZoom());
+        Point min = viewState.getPixelBounds().getMin();
+        return CompletableFuture.completedFuture(Point.of(Math.round(projected.getX()) - min.getX(), Math.round(projected.getY()) - min.getY()));
     }
 
     /**
@@ -215,4 +272,94 @@ public interface MapConversionFunctions extends ExecutableFunctions {
     default CompletableFuture<LatLng> mouseEventToLatLng(MouseEvent mouseEvent) {
         return call("mouseEventToLatLng", LatLng.class, mouseEvent);
     }
-}
\ No newline at end of file
+
+    /**
+     * Converts geographical coordinates to pixel coordinates relative to the
+     * map container, using the last snapshot of the map view.
+     * 
+     * @param latLngs the interleaved geographical coordinates: lat, lng, lat,
+     *                lng...
+     * @return the interleaved pixel coordinates relative to the map container:
+     *         x, y, x, y...
+     * @throws IllegalStateException if the map is not initialized on the client
+     *                               side yet
+     */
+    default double[] latLngsToContainerPoints(double[] latLngs) {
+        MapViewState viewState = requireViewState();
+        double[] points = getCrs().latLngsToPoints(latLngs, viewState.getZoom());
+        Point min = viewState.getPixelBounds().getMin();
+        for (int i = 0; i + 1 < points.length; i += 2) {
+            points[i] = Math.round(points[i]) - min.getX();
+            points[i + 1] = Math.round(points[i + 1]) - min.getY();
+        }
+        return points;
+    }
+
+    /**
+     * Converts geographical coordinates to pixel coordinates relative to the
+     * origin pixel, using the last snapshot of the map view.
+     * 
+     * @param latLngs the interleaved geographical coordinates: lat, lng, lat,
+     *                lng...
+     * @return the interleaved pixel coordinates relative to the origin pixel: x,
+     *         y, x, y...
+     * @throws IllegalStateException if the map is not initialized on the client
+     *                               side yet
+     */
+    default double[] latLngsToLayerPoints(double[] latLngs) {
+        MapViewState viewState = requireViewState();
+        double[] points = getCrs().latLngsToPoints(latLngs, viewState.getZoom());
+        Point origin = viewState.getPixelOrigin();
+        for (int i = 0; i + 1 < points.length; i += 2) {
+            points[i] = Math.round(points[i]) - origin.getX();
+            points[i + 1] = Math.round(points[i + 1]) - origin.getY();
+        }
+        return points;
+    }
+
+    /**
+     * Converts pixel coordinates relative to the map container to geographical
+     * coordinates, using the last snapshot of the map view.
+     * 
+     * @param points the interleaved pixel coordinates relative to the map
+     *               container: x, y, x, y...
+     * @return the interleaved geographical coordinates: lat, lng, lat, lng...
+     * @throws IllegalStateException if the map is not initialized on the client
+     *                               side yet
+     */
+    default double[] containerPointsToLatLngs(double[] points) {
+        MapViewState viewState = requireViewState();
+        Point min = viewState.getPixelBounds().getMin();
+        double[] latLngs = new double[points.length];
+        for (int i = 0; i + 1 < points.length; i += 2) {
+            latLngs[i] = points[i] + min.getX();
+            latLngs[i + 1] = points[i + 1] + min.getY();
+        }
+        getCrs().pointsToLatLngs(latLngs, viewState.getZoom(), latLngs);
+        return latLngs;
+    }
+
+    /**
+     * Returns the offset of the map container from the origin pixel.
+     */
+    static Point containerOffset(MapViewState viewState) {
+        Point min = viewState.getPixelBounds().getMin();
+        Point origin = viewState.getPixelOrigin();
+        return Point.of(min.getX() - origin.getX(), min.getY() - origin.getY());
+    }
+
+    /**
+     * Returns the last snapshot of the map view pushed by the client side.
+     * 
+     * @return the last snapshot of the map view
+     * @throws IllegalStateException if the map is not initialized on the client
+     *                               side yet
+     */
+    default MapViewState requireViewState() {
+        MapViewState viewState = getViewState();
+        if (viewState == null) {
+            throw new IllegalStateException("The map is not initialized on the client side yet");
+        }
+        return viewState;
+    }
+}
@@ -18,6 +18,8 @@ import java.util.ArrayList;
 
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.GeometryStructure;
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.MultiLatLngArray;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.PackedLatLngArray;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.SimplifiedGeometry;
 import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
 
 /**
@@ -28,19 +30,47 @@ public class MultiPolygon extends Polygon {
 
     private static final long serialVersionUID = 2133788010825025903L;
 
-    private MultiPolygonStructure latlngs;
+    private GeometryStructure latlngs;
 
     public MultiPolygon(MultiPolygonStructure latlngs) {
         this.latlngs = latlngs;
     }
 
+    /**
+     * Creates a multi polygon from packed coordinates with polygon offsets.
+     * 
+     * @param latlngs
+     *            the packed coordinates of the polygons
+     */
+    public MultiPolygon(PackedLatLngArray latlngs) {
+        if (latlngs.getPolygonCount() == 0 && !latlngs.isEmpty()) {
+            throw new IllegalArgumentException("The packed coordinates of a multi polygon must have polygon offsets");
+        }
+        this.latlngs = latlngs;
+    }
+
+    /**
+     * Creates a multi polygon which sends a simplified geometry to the client
+     * side, the source geometry must have polygon offsets.
+     * 
+     * @param latlngs
+     *            the simplified coordinates of the polygons
+     */
+    public MultiPolygon(SimplifiedGeometry latlngs) {
+        PackedLatLngArray source = latlngs.getSource();
+        if (source.getPolygonCount() == 0 && !source.isEmpty()) {
+            throw new IllegalArgumentException("The packed coordinates of a multi polygon must have polygon offsets");
+        }
+        this.latlngs = latlngs;
+    }
+
     @Override
     public String getLeafletType() {
         return Polygon.class.getSimpleName();
     }
 
     @Override
-    public MultiPolygonStructure getLatlngs() {
+    public GeometryStructure getLatlngs() {
         return latlngs;
     }
 
@@ -48,6 +78,9 @@ public class MultiPolygon extends Polygon {
 
         private static final long serialVersionUID = -8597806785233271725L;
 
+        /**
+         * Returns the bounds of all polygons, computed on each call.
+         */
         @Override
         public LatLngBounds getBounds() {
             LatLngBounds bounds = new LatLngBounds();
@@ -16,6 +16,8 @@ package com.vaadin.addon.leaflet4vaadin.layer.vectors;
 
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.GeometryStructure;
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.MultiLatLngArray;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.PackedLatLngArray;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.SimplifiedGeometry;
 
 /**
  * A class for drawing multi polyline overlays on a map.
@@ -23,12 +25,33 @@ import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.MultiLatLngArray;
 public class MultiPolyline extends Polyline {
 
     private static final long serialVersionUID = 1274901686872790896L;
-    private final MultiLatLngArray latlngs;
+    private final GeometryStructure latlngs;
 
     public MultiPolyline(MultiLatLngArray latlngs) {
         this.latlngs = latlngs;
     }
 
+    /**
+     * Creates a multi polyline from packed coordinates, each ring is a line.
+     * 
+     * @param latlngs
+     *            the packed coordinates of the lines
+     */
+    public MultiPolyline(PackedLatLngArray latlngs) {
+        this.latlngs = latlngs;
+    }
+
+    /**
+     * Creates a multi polyline which sends a simplified geometry to the client
+     * side, each ring is a line.
+     * 
+     * @param latlngs
+     *            the simplified coordinates of the lines
+     */
+    public MultiPolyline(SimplifiedGeometry latlngs) {
+        this.latlngs = latlngs;
+    }
+
     @Override
     public GeometryStructure getLatlngs() {
         return this.latlngs;
@@ -21,6 +21,8 @@ import com.vaadin.addon.leaflet4vaadin.annotations.LeafletArgument;
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.GeometryStructure;
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.LatLngArray;
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.MultiLatLngArray;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.PackedLatLngArray;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.SimplifiedGeometry;
 import com.vaadin.addon.leaflet4vaadin.types.LatLng;
 
 /**
@@ -33,21 +35,43 @@ public class Polygon extends Polyline {
     private static final long serialVersionUID = -128072866378031092L;
 
 	@LeafletArgument
-    private final MultiLatLngArray latlngs;
+    private final GeometryStructure latlngs;
 
     public Polygon(LatLng... latLngs) {
         this(Arrays.asList(latLngs));
     }
 
     public Polygon(List<LatLng> exteriorLatlngs) {
-        latlngs = new MultiLatLngArray();
-        latlngs.add(new LatLngArray(exteriorLatlngs));
+        MultiLatLngArray rings = new MultiLatLngArray();
+        rings.add(new LatLngArray(exteriorLatlngs));
+        latlngs = rings;
     }
 
     public Polygon(List<LatLng> exteriorLatlngs, MultiLatLngArray interiorRings) {
-        latlngs = new MultiLatLngArray();
-        latlngs.add(new LatLngArray(exteriorLatlngs));
-        latlngs.addAll(interiorRings);
+        MultiLatLngArray rings = new MultiLatLngArray();
+        rings.add(new LatLngArray(exteriorLatlngs));
+        rings.addAll(interiorRings);
+        latlngs = rings;
+    }
+
+    /**
+     * Creates a polygon from packed coordinates, the first ring is the
+     * exterior ring, the other ones are the holes.
+     * 
+     * @param latlngs the packed coordinates of the polygon
+     */
+    public Polygon(PackedLatLngArray latlngs) {
+        this.latlngs = latlngs;
+    }
+
+    /**
+     * Creates a polygon which sends a simplified geometry to the client side,
+     * the first ring is the exterior ring, the other ones are the holes.
+     * 
+     * @param latlngs the simplified coordinates of the polygon
+     */
+    public Polygon(SimplifiedGeometry latlngs) {
+        this.latlngs = latlngs;
     }
 
     @Override
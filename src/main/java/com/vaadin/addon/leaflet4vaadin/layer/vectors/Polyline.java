@@ -18,6 +18,9 @@ import java.util.List;
 
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.GeometryStructure;
 import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.LatLngArray;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.MultiLatLngArray;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.PackedLatLngArray;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.SimplifiedGeometry;
 import com.vaadin.addon.leaflet4vaadin.types.LatLng;
 import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
 import com.vaadin.addon.leaflet4vaadin.annotations.LeafletArgument;
@@ -32,7 +35,7 @@ public class Polyline extends Path {
     private double smoothFactor = 1.0;
     private boolean noClip;
     @LeafletArgument
-    private final LatLngArray latlngs;
+    private final GeometryStructure latlngs;
 
     public Polyline(LatLng... latlngs) {
         this(new LatLngArray(latlngs));
@@ -46,6 +49,26 @@ public class Polyline extends Path {
         this.latlngs = latlngs;
     }
 
+    /**
+     * Creates a polyline from packed coordinates, which are kept and sent to
+     * the client side without creating a {@link LatLng} object per vertex.
+     * 
+     * @param latlngs the packed coordinates of the polyline
+     */
+    public Polyline(PackedLatLngArray latlngs) {
+        this.latlngs = latlngs;
+    }
+
+    /**
+     * Creates a polyline which sends a simplified geometry to the client side,
+     * depending on the zoom level set by {@link #setSimplificationZoom(int)}.
+     * 
+     * @param latlngs the simplified coordinates of the polyline
+     */
+    public Polyline(SimplifiedGeometry latlngs) {
+        this.latlngs = latlngs;
+    }
+
     /**
      * Returns true if the Polyline has no LatLngs.
      * 
@@ -95,4 +118,45 @@ public class Polyline extends Path {
         return latlngs;
     }
 
+    /**
+     * Sends the coordinates to the client side as encoded polylines with the
+     * given precision, which is several times smaller than LatLng objects. It
+     * takes effect the next time the layer is sent, e.g. when it is added to
+     * the map. Packed coordinates select their encoding with
+     * {@link PackedLatLngArray#withEncodedPolyline(int)} instead.
+     * 
+     * @param precision the number of decimal digits to keep, between 5 and 7, or
+     *                  0 to send LatLng objects
+     * @throws IllegalStateException if the coordinates are not a
+     *                               {@link LatLngArray} or a
+     *                               {@link MultiLatLngArray}
+     */
+    public void setPolylinePrecision(int precision) {
+        GeometryStructure geometry = getLatlngs();
+        if (geometry instanceof LatLngArray) {
+            ((LatLngArray) geometry).setPolylinePrecision(precision);
+        } else if (geometry instanceof MultiLatLngArray) {
+            ((MultiLatLngArray) geometry).setPolylinePrecision(precision);
+        } else {
+            throw new IllegalStateException("The encoding of " + geometry.getClass().getSimpleName() + " cannot be changed");
+        }
+    }
+
+    /**
+     * Replaces the geometry on the client side with its level simplified for
+     * the given zoom, if the geometry is a {@link SimplifiedGeometry} and the
+     * level has been changed.
+     * 
+     * @param zoom the zoom level of the map
+     */
+    public void setSimplificationZoom(int zoom) {
+        GeometryStructure geometry = getLatlngs();
+        if (geometry instanceof SimplifiedGeometry) {
+            SimplifiedGeometry simplified = (SimplifiedGeometry) geometry;
+            if (simplified.setDisplayedZoom(zoom)) {
+                executeJs(this, "setLatLngs", simplified.getDisplayedLevel());
+            }
+        }
+    }
+
 }
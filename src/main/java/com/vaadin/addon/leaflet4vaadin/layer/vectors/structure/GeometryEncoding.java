@@ -0,0 +1,47 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.vectors.structure;
+
+/**
+ * The encoding of the coordinates of a {@link PackedLatLngArray} sent to the
+ * client side.
+ * 
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-13
+ * @version 1.0
+ */
+public enum GeometryEncoding {
+
+    /**
+     * Nested JSON arrays of [lat, lng] pairs.
+     */
+    JSON,
+
+    /**
+     * Little-endian Float64 or Float32 buffer of the coordinates, sent as a
+     * base64 string, or as a stream resource fetched by the client side if
+     * it is larger than {@link PackedLatLngArray#getInlineLimit()}.
+     */
+    BINARY,
+
+    /**
+     * One encoded polyline string per ring, with the coordinates quantized to
+     * 5-7 decimal digits, see {@link PolylineCodec}. Compact enough to be sent
+     * inline for medium-sized tracks.
+     */
+    ENCODED_POLYLINE;
+
+}
@@ -14,25 +14,42 @@
 
 package com.vaadin.addon.leaflet4vaadin.layer.vectors.structure;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.vaadin.addon.leaflet4vaadin.types.LatLng;
 import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
 
 /**
  * Represents list of LatLng coordinates
+ * <p>
+ * The coordinates are sent to the client side as an array of LatLng objects,
+ * or as an encoded polyline if {@link #setPolylinePrecision(int)} is set, see
+ * {@link PolylineCodec}.
  * 
  * @author <strong>Gabor Kokeny</strong> Email:
  *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
  * @since 2020-03-23
- * @version 1.0
+ * @version 1.3
  */
+@JsonSerialize(using = LatLngArray.Serializer.class)
 public class LatLngArray extends ArrayList<LatLng> implements GeometryStructure {
 
 	private static final long serialVersionUID = -909287963967251959L;
 
+	/**
+	 * The number of decimal digits of the encoded polyline, or 0 if the
+	 * coordinates are sent as LatLng objects
+	 */
+	private int polylinePrecision;
+
 	public LatLngArray(LatLng[] latlngs) {
 		this(Arrays.asList(latlngs));
 	}
@@ -41,11 +58,80 @@ public class LatLngArray extends ArrayList<LatLng> implements GeometryStructure
 		addAll(latlngs);
 	}
 
+	/**
+	 * Returns the bounds of the coordinates. The bounds are computed in a single
+	 * pass on each call and not memoised, because the coordinates are mutable.
+	 */
 	@Override
 	public LatLngBounds getBounds() {
-		LatLngBounds bounds = new LatLngBounds(get(0));
-		forEach((latlng) -> bounds.extend(latlng));
-		return bounds;
+		return computeBounds(this);
+	}
+
+	/**
+	 * Sends the coordinates to the client side as an encoded polyline with the
+	 * given precision, from the next time the array is serialized.
+	 * 
+	 * @param precision
+	 *            the number of decimal digits to keep, between 5 and 7, or 0 to
+	 *            send LatLng objects
+	 */
+	public void setPolylinePrecision(int precision) {
+		if (precision != 0) {
+			PolylineCodec.checkPrecision(precision);
+		}
+		this.polylinePrecision = precision;
+	}
+
+	/**
+	 * @return the number of decimal digits of the encoded polyline, or 0 if the
+	 *         coordinates are sent as LatLng objects
+	 */
+	public int getPolylinePrecision() {
+		return polylinePrecision;
+	}
+
+	private static LatLngBounds computeBounds(List<LatLng> latlngs) {
+		if (latlngs.isEmpty()) {
+			return new LatLngBounds();
+		}
+		double south = Double.POSITIVE_INFINITY;
+		double west = Double.POSITIVE_INFINITY;
+		double north = Double.NEGATIVE_INFINITY;
+		double east = Double.NEGATIVE_INFINITY;
+		for (LatLng latlng : latlngs) {
+			double lat = latlng.lat();
+			double lng = latlng.lng();
+			south = Math.min(south, lat);
+			west = Math.min(west, lng);
+			north = Math.max(north, lat);
+			east = Math.max(east, lng);
+		}
+		return new LatLngBounds(south, west, north, east);
+	}
+
+	/**
+	 * Writes the array as LatLng objects or as an encoded polyline.
+	 */
+	public static class Serializer extends StdSerializer<LatLngArray> {
+
+		private static final long serialVersionUID = 2794376920452468719L;
+
+		public Serializer() {
+			super(LatLngArray.class);
+		}
+
+		@Override
+		public void serialize(LatLngArray value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+			if (value.polylinePrecision != 0) {
+				PolylineCodec.writeEncoded(generator, value.polylinePrecision, Collections.singletonList(value));
+				return;
+			}
+			generator.writeStartArray();
+			for (LatLng latlng : value) {
+				provider.defaultSerializeValue(latlng, generator);
+			}
+			generator.writeEndArray();
+		}
 	}
 
 }
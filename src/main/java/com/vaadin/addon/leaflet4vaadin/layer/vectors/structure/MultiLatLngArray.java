@@ -14,30 +14,98 @@
 
 package com.vaadin.addon.leaflet4vaadin.layer.vectors.structure;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
 
 /**
  * Represents multi dimensional list of LatLng coordinates
+ * <p>
+ * The rings are sent to the client side as arrays of LatLng objects, or as
+ * encoded polylines if {@link #setPolylinePrecision(int)} is set, see
+ * {@link PolylineCodec}.
  * 
  * @author <strong>Gabor Kokeny</strong> Email:
  *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
  * @since 2020-03-23
- * @version 1.0
+ * @version 1.3
  */
+@JsonSerialize(using = MultiLatLngArray.Serializer.class)
 public class MultiLatLngArray extends ArrayList<LatLngArray> implements GeometryStructure {
 
 	private static final long serialVersionUID = 7453345091992067182L;
 
+	/**
+	 * The number of decimal digits of the encoded polylines, or 0 if the rings
+	 * are sent as they are serialized on their own
+	 */
+	private int polylinePrecision;
+
 	public MultiLatLngArray() {
 	}
 
+	/**
+	 * Returns the bounds of all rings, computed on each call.
+	 */
 	@Override
 	public LatLngBounds getBounds() {
-		LatLngBounds bounds = new LatLngBounds(get(0));
-		forEach((latlng) -> bounds.extend(latlng));
+		LatLngBounds bounds = new LatLngBounds();
+		forEach(ring -> bounds.extend(ring.getBounds()));
 		return bounds;
 	}
 
+	/**
+	 * Sends all rings to the client side as encoded polylines with the given
+	 * precision, from the next time the array is serialized. The precision of
+	 * the rings themselves is not used then.
+	 * 
+	 * @param precision
+	 *            the number of decimal digits to keep, between 5 and 7, or 0 to
+	 *            serialize the rings on their own
+	 */
+	public void setPolylinePrecision(int precision) {
+		if (precision != 0) {
+			PolylineCodec.checkPrecision(precision);
+		}
+		this.polylinePrecision = precision;
+	}
+
+	/**
+	 * @return the number of decimal digits of the encoded polylines, or 0 if
+	 *         the rings are serialized on their own
+	 */
+	public int getPolylinePrecision() {
+		return polylinePrecision;
+	}
+
+	/**
+	 * Writes the rings as arrays or as encoded polylines.
+	 */
+	public static class Serializer extends StdSerializer<MultiLatLngArray> {
+
+		private static final long serialVersionUID = -3720160914467233419L;
+
+		public Serializer() {
+			super(MultiLatLngArray.class);
+		}
+
+		@Override
+		public void serialize(MultiLatLngArray value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+			if (value.polylinePrecision != 0) {
+				PolylineCodec.writeEncoded(generator, value.polylinePrecision, value);
+				return;
+			}
+			generator.writeStartArray();
+			for (LatLngArray ring : value) {
+				provider.defaultSerializeValue(ring, generator);
+			}
+			generator.writeEndArray();
+		}
+	}
+
 }
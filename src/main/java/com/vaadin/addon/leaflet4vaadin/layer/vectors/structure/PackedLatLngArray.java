@@ -0,0 +1,642 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.vectors.structure;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.MultiPolygon.MultiPolygonStructure;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+import com.vaadin.flow.server.StreamRegistration;
+import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.server.VaadinSession;
+
+/**
+ * Geometry structure which stores the coordinates in one flat primitive array
+ * instead of one {@link LatLng} object per vertex.
+ * <p>
+ * The latitudes and longitudes of all vertices are interleaved in a
+ * {@code double[]}, or in a {@code float[]} with reduced precision. A geometry
+ * may have several rings (e.g. a polygon with holes, or a multi polyline), the
+ * rings are given by the index of their first vertex. The rings of a multi
+ * polygon are grouped into polygons by the index of their first ring. The
+ * altitude of the vertices is not stored.
+ * <p>
+ * The structure is immutable, the arrays given to the factory methods are
+ * taken over without copying, so they must not be changed afterwards. It is
+ * serialized directly from the array as nested arrays of [lat, lng] pairs, in
+ * the form expected by Leaflet:
+ * <ul>
+ * <li>one ring: [[lat, lng], ...]</li>
+ * <li>several rings: [[[lat, lng], ...], ...]</li>
+ * <li>polygons: [[[[lat, lng], ...], ...], ...]</li>
+ * </ul>
+ * With {@link GeometryEncoding#BINARY} the coordinates are sent as a binary
+ * buffer instead, which the client side turns directly into LatLng arrays.
+ * Small buffers are inlined as base64, larger ones are registered as a
+ * {@link StreamResource} in the current session and fetched by the client
+ * side. The resource serves a snapshot of the coordinates taken when it was
+ * registered, it is reused by the later serializations of the geometry and
+ * its views, and unregistered when the client side has fetched it. With
+ * {@link GeometryEncoding#ENCODED_POLYLINE} each ring is sent as an encoded
+ * polyline string, see {@link PolylineCodec}.
+ * 
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-12
+ * @version 1.2
+ */
+@JsonSerialize(using = PackedLatLngArray.Serializer.class)
+public class PackedLatLngArray implements GeometryStructure, Serializable {
+
+    private static final long serialVersionUID = 3319565720549087385L;
+
+    private static final int[] SINGLE_RING = new int[] { 0 };
+
+    /**
+     * The default size in bytes up to which binary coordinates are inlined
+     */
+    public static final int DEFAULT_INLINE_LIMIT = 64 * 1024;
+
+    private static volatile int inlineLimit = DEFAULT_INLINE_LIMIT;
+
+    private final double[] coordinates;
+    private final float[] floatCoordinates;
+    private final int vertexCount;
+
+    /**
+     * The index of the first vertex of each ring, followed by the number of
+     * vertices
+     */
+    private final int[] ringOffsets;
+
+    /**
+     * The index of the first ring of each polygon, followed by the number of
+     * rings, or null if the geometry is not a multi polygon
+     */
+    private final int[] polygonOffsets;
+
+    private final GeometryEncoding encoding;
+    private final int polylinePrecision;
+
+    /**
+     * The stream resource serving the binary coordinates, shared by the views
+     * of the geometry
+     */
+    private final BinaryResource binaryResource;
+
+    /**
+     * The memoised bounds as south, west, north, east
+     */
+    private transient volatile double[] bounds;
+
+    private PackedLatLngArray(PackedLatLngArray source, GeometryEncoding encoding, int polylinePrecision) {
+        this.coordinates = source.coordinates;
+        this.floatCoordinates = source.floatCoordinates;
+        this.vertexCount = source.vertexCount;
+        this.ringOffsets = source.ringOffsets;
+        this.polygonOffsets = source.polygonOffsets;
+        this.encoding = encoding;
+        this.polylinePrecision = polylinePrecision;
+        this.binaryResource = source.binaryResource;
+        this.bounds = source.bounds;
+    }
+
+    private PackedLatLngArray(double[] coordinates, float[] floatCoordinates, int[] ringOffsets, int[] polygonOffsets) {
+        int length = coordinates != null ? coordinates.length : floatCoordinates.length;
+        if (length % 2 != 0) {
+            throw new IllegalArgumentException("The coordinates must be latitude, longitude pairs");
+        }
+        this.coordinates = coordinates;
+        this.floatCoordinates = floatCoordinates;
+        this.vertexCount = length / 2;
+        this.ringOffsets = terminate(ringOffsets, vertexCount, "ring");
+        this.polygonOffsets = polygonOffsets == null ? null : terminate(polygonOffsets, ringOffsets.length, "polygon");
+        this.encoding = GeometryEncoding.JSON;
+        this.polylinePrecision = PolylineCodec.DEFAULT_PRECISION;
+        this.binaryResource = new BinaryResource();
+    }
+
+    private static int[] terminate(int[] offsets, int count, String name) {
+        if (offsets.length == 0 || offsets[0] != 0) {
+            throw new IllegalArgumentException("The first " + name + " must start at 0");
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1] || offsets[i] > count) {
+                throw new IllegalArgumentException("Invalid " + name + " offset at " + i + ": " + offsets[i]);
+            }
+        }
+        int[] terminated = Arrays.copyOf(offsets, offsets.length + 1);
+        terminated[offsets.length] = count;
+        return terminated;
+    }
+
+    /**
+     * Creates a geometry with one ring.
+     * 
+     * @param latlngs
+     *            the interleaved latitudes and longitudes of the vertices
+     * @return the packed geometry
+     */
+    public static PackedLatLngArray of(double... latlngs) {
+        return new PackedLatLngArray(latlngs, null, SINGLE_RING, null);
+    }
+
+    /**
+     * Creates a geometry with several rings, e.g. a polygon with holes or a
+     * multi polyline.
+     * 
+     * @param latlngs
+     *            the interleaved latitudes and longitudes of the vertices
+     * @param ringOffsets
+     *            the index of the first vertex of each ring
+     * @return the packed geometry
+     */
+    public static PackedLatLngArray ofRings(double[] latlngs, int[] ringOffsets) {
+        return new PackedLatLngArray(latlngs, null, ringOffsets, null);
+    }
+
+    /**
+     * Creates a multi polygon geometry.
+     * 
+     * @param latlngs
+     *            the interleaved latitudes and longitudes of the vertices
+     * @param ringOffsets
+     *            the index of the first vertex of each ring
+     * @param polygonOffsets
+     *            the index of the first ring of each polygon
+     * @return the packed geometry
+     */
+    public static PackedLatLngArray ofPolygons(double[] latlngs, int[] ringOffsets, int[] polygonOffsets) {
+        return new PackedLatLngArray(latlngs, null, ringOffsets, polygonOffsets);
+    }
+
+    /**
+     * Creates a geometry with one ring from the given coordinates.
+     * 
+     * @param latlngs
+     *            the vertices
+     * @return the packed geometry
+     */
+    public static PackedLatLngArray of(List<LatLng> latlngs) {
+        double[] coordinates = new double[latlngs.size() * 2];
+        int i = 0;
+        for (LatLng latlng : latlngs) {
+            coordinates[i++] = latlng.lat();
+            coordinates[i++] = latlng.lng();
+        }
+        return of(coordinates);
+    }
+
+    /**
+     * Creates a geometry with one ring from the given coordinates.
+     * 
+     * @param latlngs
+     *            the vertices
+     * @return the packed geometry
+     */
+    public static PackedLatLngArray of(LatLngArray latlngs) {
+        return of((List<LatLng>) latlngs);
+    }
+
+    /**
+     * Packs the given geometry structure.
+     * 
+     * @param structure
+     *            a {@link LatLngArray}, {@link MultiLatLngArray} or
+     *            {@link MultiPolygonStructure}
+     * @return the packed geometry
+     */
+    public static PackedLatLngArray of(GeometryStructure structure) {
+        if (structure instanceof PackedLatLngArray) {
+            return (PackedLatLngArray) structure;
+        } else if (structure instanceof LatLngArray) {
+            return of((List<LatLng>) structure);
+        } else if (structure instanceof MultiLatLngArray) {
+            MultiLatLngArray rings = (MultiLatLngArray) structure;
+            Packer packer = new Packer(rings.stream().mapToInt(List::size).sum(), rings.size());
+            rings.forEach(packer::addRing);
+            return ofRings(packer.coordinates, packer.ringOffsets);
+        } else if (structure instanceof MultiPolygonStructure) {
+            MultiPolygonStructure polygons = (MultiPolygonStructure) structure;
+            int vertices = polygons.stream().flatMap(List::stream).mapToInt(List::size).sum();
+            int rings = polygons.stream().mapToInt(List::size).sum();
+            Packer packer = new Packer(vertices, rings);
+            int[] polygonOffsets = new int[polygons.size()];
+            for (int p = 0; p < polygonOffsets.length; p++) {
+                polygonOffsets[p] = packer.ring;
+                polygons.get(p).forEach(packer::addRing);
+            }
+            return ofPolygons(packer.coordinates, packer.ringOffsets, polygonOffsets);
+        }
+        throw new IllegalArgumentException("Unsupported geometry structure: " + structure.getClass().getName());
+    }
+
+    /**
+     * Returns a copy of this geometry, which stores the coordinates in a
+     * {@code float[]}. It halves the memory usage, the precision of the
+     * coordinates is about 1 meter.
+     * 
+     * @return the geometry with float coordinates
+     */
+    public PackedLatLngArray toFloatPrecision() {
+        if (floatCoordinates != null) {
+            return this;
+        }
+        float[] floats = new float[coordinates.length];
+        for (int i = 0; i < floats.length; i++) {
+            floats[i] = (float) coordinates[i];
+        }
+        PackedLatLngArray packed = new PackedLatLngArray(null, floats, Arrays.copyOf(ringOffsets, ringOffsets.length - 1),
+                polygonOffsets == null ? null : Arrays.copyOf(polygonOffsets, polygonOffsets.length - 1));
+        return new PackedLatLngArray(packed, encoding, polylinePrecision);
+    }
+
+    /**
+     * Returns a view of this geometry, which is sent to the client side with
+     * the given encoding. The coordinates are shared.
+     * 
+     * @param encoding
+     *            the encoding of the coordinates
+     * @return the geometry with the given encoding
+     */
+    public PackedLatLngArray withEncoding(GeometryEncoding encoding) {
+        return encoding == this.encoding ? this : new PackedLatLngArray(this, encoding, polylinePrecision);
+    }
+
+    /**
+     * Returns a view of this geometry, which is sent to the client side as
+     * encoded polylines with the given precision. The coordinates are shared.
+     * 
+     * @param precision
+     *            the number of decimal digits to keep, between 5 and 7
+     * @return the geometry sent as encoded polylines
+     */
+    public PackedLatLngArray withEncodedPolyline(int precision) {
+        PolylineCodec.checkPrecision(precision);
+        return new PackedLatLngArray(this, GeometryEncoding.ENCODED_POLYLINE, precision);
+    }
+
+    /**
+     * Returns a view of this geometry with the encoding of the given geometry.
+     */
+    PackedLatLngArray withEncodingOf(PackedLatLngArray other) {
+        if (encoding == other.encoding && polylinePrecision == other.polylinePrecision) {
+            return this;
+        }
+        return new PackedLatLngArray(this, other.encoding, other.polylinePrecision);
+    }
+
+    public GeometryEncoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * @return the number of decimal digits kept by the encoded polyline
+     *         encoding
+     */
+    public int getPolylinePrecision() {
+        return polylinePrecision;
+    }
+
+    /**
+     * Returns the coordinates as little-endian Float64 or Float32 values,
+     * depending on the precision of the geometry.
+     * 
+     * @return the binary coordinates
+     */
+    public byte[] toByteArray() {
+        if (coordinates != null) {
+            ByteBuffer buffer = ByteBuffer.allocate(coordinates.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asDoubleBuffer().put(coordinates);
+            return buffer.array();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(floatCoordinates.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(floatCoordinates);
+        return buffer.array();
+    }
+
+    public static int getInlineLimit() {
+        return inlineLimit;
+    }
+
+    /**
+     * Sets the size in bytes up to which the binary coordinates are inlined in
+     * the JSON of the layer, larger ones are fetched as a stream resource.
+     * 
+     * @param inlineLimit
+     *            the size in bytes
+     */
+    public static void setInlineLimit(int inlineLimit) {
+        PackedLatLngArray.inlineLimit = inlineLimit;
+    }
+
+    /**
+     * @return true if the coordinates are stored in a {@code float[]}
+     */
+    public boolean isFloatPrecision() {
+        return floatCoordinates != null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return vertexCount == 0;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getRingCount() {
+        return ringOffsets.length - 1;
+    }
+
+    /**
+     * @return the number of polygons, or 0 if this is not a multi polygon
+     */
+    public int getPolygonCount() {
+        return polygonOffsets == null ? 0 : polygonOffsets.length - 1;
+    }
+
+    /**
+     * @param ring
+     *            the index of the ring
+     * @return the index of the first vertex of the ring
+     */
+    public int getRingStart(int ring) {
+        return ringOffsets[ring];
+    }
+
+    /**
+     * @param ring
+     *            the index of the ring
+     * @return the index after the last vertex of the ring
+     */
+    public int getRingEnd(int ring) {
+        return ringOffsets[ring + 1];
+    }
+
+    /**
+     * @param polygon
+     *            the index of the polygon
+     * @return the index of the first ring of the polygon
+     */
+    public int getPolygonStart(int polygon) {
+        return polygonOffsets[polygon];
+    }
+
+    /**
+     * @param polygon
+     *            the index of the polygon
+     * @return the index after the last ring of the polygon
+     */
+    public int getPolygonEnd(int polygon) {
+        return polygonOffsets[polygon + 1];
+    }
+
+    public double getLat(int vertex) {
+        return coordinates != null ? coordinates[2 * vertex] : floatCoordinates[2 * vertex];
+    }
+
+    public double getLng(int vertex) {
+        return coordinates != null ? coordinates[2 * vertex + 1] : floatCoordinates[2 * vertex + 1];
+    }
+
+    public LatLng getLatLng(int vertex) {
+        return new LatLng(getLat(vertex), getLng(vertex));
+    }
+
+    /**
+     * Calculates the boundary of the geometry once, and returns a copy of it
+     * later on.
+     */
+    @Override
+    public LatLngBounds getBounds() {
+        double[] bounds = this.bounds;
+        if (bounds == null) {
+            bounds = computeBounds();
+            this.bounds = bounds;
+        }
+        if (vertexCount == 0) {
+            return new LatLngBounds();
+        }
+        return new LatLngBounds(bounds[0], bounds[1], bounds[2], bounds[3]);
+    }
+
+    private double[] computeBounds() {
+        double south = Double.POSITIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY;
+        double north = Double.NEGATIVE_INFINITY;
+        double east = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < vertexCount; i++) {
+            double lat = getLat(i);
+            double lng = getLng(i);
+            south = Math.min(south, lat);
+            north = Math.max(north, lat);
+            west = Math.min(west, lng);
+            east = Math.max(east, lng);
+        }
+        return new double[] { south, west, north, east };
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[vertices=" + vertexCount + ", rings=" + getRingCount() + ", polygons=" + getPolygonCount() + "]";
+    }
+
+    /**
+     * Collects the coordinates of {@link LatLng} rings into a flat array.
+     */
+    private static final class Packer {
+
+        final double[] coordinates;
+        final int[] ringOffsets;
+        int vertex;
+        int ring;
+
+        Packer(int vertices, int rings) {
+            coordinates = new double[vertices * 2];
+            ringOffsets = new int[rings];
+        }
+
+        void addRing(List<LatLng> latlngs) {
+            ringOffsets[ring++] = vertex;
+            for (LatLng latlng : latlngs) {
+                coordinates[2 * vertex] = latlng.lat();
+                coordinates[2 * vertex + 1] = latlng.lng();
+                vertex++;
+            }
+        }
+    }
+
+    /**
+     * The stream resource serving the binary coordinates of a geometry. The
+     * registration is stored as a session attribute, so each session registers
+     * the resource at most once until it has been fetched.
+     */
+    private static class BinaryResource implements Serializable {
+
+        private static final long serialVersionUID = -2468813297384061526L;
+
+        private String name;
+
+        private synchronized String getName() {
+            if (name == null) {
+                name = "latlngs-" + UUID.randomUUID() + ".bin";
+            }
+            return name;
+        }
+
+        /**
+         * Returns the URI of the resource in the session, registers a snapshot
+         * of the binary coordinates if the resource is not registered yet.
+         */
+        URI register(VaadinSession session, PackedLatLngArray value) {
+            String name = getName();
+            StreamRegistration registration = (StreamRegistration) session.getAttribute(name);
+            if (registration == null) {
+                byte[] bytes = value.toByteArray();
+                StreamResource resource = new StreamResource(name, () -> {
+                    unregister(VaadinSession.getCurrent(), name);
+                    return new ByteArrayInputStream(bytes);
+                });
+                resource.setContentType("application/octet-stream");
+                registration = session.getResourceRegistry().registerResource(resource);
+                session.setAttribute(name, registration);
+            }
+            return registration.getResourceUri();
+        }
+
+        private static void unregister(VaadinSession session, String name) {
+            StreamRegistration registration = session == null ? null : (StreamRegistration) session.getAttribute(name);
+            if (registration != null) {
+                session.setAttribute(name, null);
+                registration.unregister();
+            }
+        }
+    }
+
+    /**
+     * Writes the geometry as nested arrays of [lat, lng] pairs directly from
+     * the packed coordinates.
+     */
+    public static class Serializer extends StdSerializer<PackedLatLngArray> {
+
+        private static final long serialVersionUID = -5412587826338414117L;
+
+        public Serializer() {
+            super(PackedLatLngArray.class);
+        }
+
+        @Override
+        public void serialize(PackedLatLngArray value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            if (value.encoding == GeometryEncoding.BINARY) {
+                writeBinary(value, generator);
+            } else if (value.encoding == GeometryEncoding.ENCODED_POLYLINE) {
+                writeEncoded(value, generator);
+            } else if (value.polygonOffsets != null) {
+                generator.writeStartArray();
+                for (int polygon = 0; polygon < value.getPolygonCount(); polygon++) {
+                    writeRings(value, value.getPolygonStart(polygon), value.getPolygonEnd(polygon), generator);
+                }
+                generator.writeEndArray();
+            } else if (value.getRingCount() > 1) {
+                writeRings(value, 0, value.getRingCount(), generator);
+            } else {
+                writeRing(value, 0, value.vertexCount, generator);
+            }
+        }
+
+        /**
+         * Writes the offsets and the binary coordinates, or the URL of the
+         * stream resource serving them.
+         */
+        private static void writeBinary(PackedLatLngArray value, JsonGenerator generator) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("leafletType", "PackedLatLngs");
+            generator.writeStringField("precision", value.isFloatPrecision() ? "float32" : "float64");
+            generator.writeFieldName("ringOffsets");
+            generator.writeArray(value.ringOffsets, 0, value.ringOffsets.length);
+            if (value.polygonOffsets != null) {
+                generator.writeFieldName("polygonOffsets");
+                generator.writeArray(value.polygonOffsets, 0, value.polygonOffsets.length);
+            }
+            int byteLength = value.vertexCount * 2 * (value.isFloatPrecision() ? Float.BYTES : Double.BYTES);
+            VaadinSession session = byteLength > inlineLimit ? VaadinSession.getCurrent() : null;
+            if (session != null) {
+                generator.writeStringField("url", value.binaryResource.register(session, value).toString());
+            } else {
+                generator.writeBinaryField("data", value.toByteArray());
+            }
+            generator.writeEndObject();
+        }
+
+        /**
+         * Writes each ring as an encoded polyline string.
+         */
+        private static void writeEncoded(PackedLatLngArray value, JsonGenerator generator) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("leafletType", "EncodedLatLngs");
+            generator.writeNumberField("precision", value.polylinePrecision);
+            generator.writeArrayFieldStart("rings");
+            for (int ring = 0; ring < value.getRingCount(); ring++) {
+                generator.writeString(PolylineCodec.encode(value, ring, value.polylinePrecision));
+            }
+            generator.writeEndArray();
+            if (value.polygonOffsets != null) {
+                generator.writeFieldName("polygonOffsets");
+                generator.writeArray(value.polygonOffsets, 0, value.polygonOffsets.length);
+            }
+            generator.writeEndObject();
+        }
+
+        private static void writeRings(PackedLatLngArray value, int from, int to, JsonGenerator generator) throws IOException {
+            generator.writeStartArray();
+            for (int ring = from; ring < to; ring++) {
+                writeRing(value, value.getRingStart(ring), value.getRingEnd(ring), generator);
+            }
+            generator.writeEndArray();
+        }
+
+        private static void writeRing(PackedLatLngArray value, int from, int to, JsonGenerator generator) throws IOException {
+            generator.writeStartArray();
+            for (int i = from; i < to; i++) {
+                generator.writeStartArray();
+                if (value.coordinates != null) {
+                    generator.writeNumber(value.coordinates[2 * i]);
+                    generator.writeNumber(value.coordinates[2 * i + 1]);
+                } else {
+                    generator.writeNumber(value.floatCoordinates[2 * i]);
+                    generator.writeNumber(value.floatCoordinates[2 * i + 1]);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.vectors.structure;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+
+/**
+ * Encoder and decoder of the encoded polyline format.
+ * <p>
+ * The coordinates are quantized to the given number of decimal digits, and
+ * each coordinate is written as the zig-zag encoded difference from the
+ * previous one, in chunks of 5 bits mapped to printable ASCII characters.
+ * Consecutive vertices of a track differ only a little, so most coordinates
+ * take 2-4 characters. The precision can be 5 (about 1 meter, the precision of
+ * the original algorithm), 6 or 7 decimal digits.
+ * <p>
+ * The codec is selected with {@link LatLngArray#setPolylinePrecision(int)},
+ * {@link MultiLatLngArray#setPolylinePrecision(int)} or
+ * {@link PackedLatLngArray#withEncodedPolyline(int)}.
+ * 
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-13
+ * @version 1.1
+ */
+public final class PolylineCodec {
+
+    /**
+     * The default number of decimal digits, as in the original algorithm
+     */
+    public static final int DEFAULT_PRECISION = 5;
+
+    public static final int MIN_PRECISION = 5;
+    public static final int MAX_PRECISION = 7;
+
+    private PolylineCodec() {
+    }
+
+    /**
+     * Encodes the given coordinates.
+     * 
+     * @param latlngs
+     *            the coordinates
+     * @param precision
+     *            the number of decimal digits to keep, between 5 and 7
+     * @return the encoded polyline
+     */
+    public static String encode(List<LatLng> latlngs, int precision) {
+        double factor = factor(precision);
+        StringBuilder encoded = new StringBuilder(latlngs.size() * 8);
+        long lat = 0;
+        long lng = 0;
+        for (LatLng latlng : latlngs) {
+            long nextLat = Math.round(latlng.lat() * factor);
+            long nextLng = Math.round(latlng.lng() * factor);
+            append(encoded, nextLat - lat);
+            append(encoded, nextLng - lng);
+            lat = nextLat;
+            lng = nextLng;
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Encodes the given ring of the packed coordinates.
+     * 
+     * @param packed
+     *            the packed coordinates
+     * @param ring
+     *            the index of the ring
+     * @param precision
+     *            the number of decimal digits to keep, between 5 and 7
+     * @return the encoded polyline
+     */
+    public static String encode(PackedLatLngArray packed, int ring, int precision) {
+        double factor = factor(precision);
+        int start = packed.getRingStart(ring);
+        int end = packed.getRingEnd(ring);
+        StringBuilder encoded = new StringBuilder((end - start) * 8);
+        long lat = 0;
+        long lng = 0;
+        for (int i = start; i < end; i++) {
+            long nextLat = Math.round(packed.getLat(i) * factor);
+            long nextLng = Math.round(packed.getLng(i) * factor);
+            append(encoded, nextLat - lat);
+            append(encoded, nextLng - lng);
+            lat = nextLat;
+            lng = nextLng;
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Decodes the given encoded polyline.
+     * 
+     * @param encoded
+     *            the encoded polyline
+     * @param precision
+     *            the number of decimal digits it was encoded with
+     * @return the interleaved latitudes and longitudes
+     * @throws IllegalArgumentException
+     *             if the encoded polyline is malformed
+     */
+    public static double[] decode(String encoded, int precision) {
+        double factor = factor(precision);
+        double[] coordinates = new double[encoded.length() / 2 * 2];
+        int count = 0;
+        long lat = 0;
+        long lng = 0;
+        int index = 0;
+        long[] value = new long[1];
+        while (index < encoded.length()) {
+            index = read(encoded, index, value);
+            lat += value[0];
+            index = read(encoded, index, value);
+            lng += value[0];
+            coordinates[count++] = lat / factor;
+            coordinates[count++] = lng / factor;
+        }
+        return Arrays.copyOf(coordinates, count);
+    }
+
+    /**
+     * Writes the given rings as an encoded polyline object, which the client
+     * side turns into a LatLng array, or an array of them if there are several
+     * rings.
+     */
+    static void writeEncoded(JsonGenerator generator, int precision, List<? extends List<LatLng>> rings) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("leafletType", "EncodedLatLngs");
+        generator.writeNumberField("precision", precision);
+        generator.writeArrayFieldStart("rings");
+        for (List<LatLng> ring : rings) {
+            generator.writeString(encode(ring, precision));
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    static void checkPrecision(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("The precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION + ": " + precision);
+        }
+    }
+
+    private static double factor(int precision) {
+        checkPrecision(precision);
+        return Math.pow(10, precision);
+    }
+
+    private static void append(StringBuilder encoded, long delta) {
+        long value = delta < 0 ? ~(delta << 1) : delta << 1;
+        while (value >= 0x20) {
+            encoded.append((char) ((0x20 | (value & 0x1f)) + 63));
+            value >>= 5;
+        }
+        encoded.append((char) (value + 63));
+    }
+
+    private static int read(String encoded, int index, long[] value) {
+        long result = 0;
+        int shift = 0;
+        int chunk;
+        do {
+            if (index >= encoded.length()) {
+                throw new IllegalArgumentException("Malformed encoded polyline at " + index);
+            }
+            chunk = encoded.charAt(index++) - 63;
+            result |= (long) (chunk & 0x1f) << shift;
+            shift += 5;
+        } while (chunk >= 0x20);
+        value[0] = (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+        return index;
+    }
+
+}
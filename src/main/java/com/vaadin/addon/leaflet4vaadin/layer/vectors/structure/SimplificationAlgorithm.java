@@ -0,0 +1,39 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.vectors.structure;
+
+/**
+ * The line simplification algorithms of {@link SimplifiedGeometry}.
+ * 
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-14
+ * @version 1.0
+ */
+public enum SimplificationAlgorithm {
+
+    /**
+     * Ramer-Douglas-Peucker: keeps the vertices which are farther from the
+     * simplified line than the tolerance.
+     */
+    DOUGLAS_PEUCKER,
+
+    /**
+     * Visvalingam-Whyatt: removes the vertices whose effective area is smaller
+     * than the square of the tolerance, keeps the shape smoother.
+     */
+    VISVALINGAM;
+
+}
@@ -0,0 +1,502 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.vectors.structure;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+
+/**
+ * Geometry structure which sends a simplified version of its geometry to the
+ * client side, depending on the zoom level of the map.
+ * <p>
+ * The vertices are projected to the pixel space of zoom level 0 once, and the
+ * chosen algorithm ranks each vertex by its significance: the distance from the
+ * simplified line for Douglas-Peucker, and the effective area for Visvalingam.
+ * A zoom level is then just the vertices whose significance, scaled to that
+ * zoom, exceeds the tolerance in pixels, so the levels are cheap to build and
+ * they are cached. Every ring keeps its first and last vertex and its most
+ * significant interior vertex, the second one too if the ring is closed, so
+ * polygon rings never collapse into a line or a point.
+ * <p>
+ * The geometry is serialized as the level of the displayed zoom, which is the
+ * most detailed level until {@link #setDisplayedZoom(int)} is called, see
+ * {@code ZoomSimplification} which follows the zoom of the map. The encoding of
+ * the source geometry is kept by the levels.
+ * 
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-14
+ * @version 1.0
+ */
+@JsonSerialize(using = SimplifiedGeometry.Serializer.class)
+public class SimplifiedGeometry implements GeometryStructure, Serializable {
+
+    private static final long serialVersionUID = -4658812430185003442L;
+
+    /**
+     * The default tolerance in pixels
+     */
+    public static final double DEFAULT_TOLERANCE = 1.0;
+
+    /**
+     * The maximum zoom level with its own simplification level
+     */
+    public static final int MAX_ZOOM = 24;
+
+    private static final double TILE_SIZE = 256;
+    private static final double MAX_LATITUDE = 85.0511287798;
+
+    private final PackedLatLngArray source;
+    private final SimplificationAlgorithm algorithm;
+    private final double tolerance;
+
+    /**
+     * The significance of each vertex at zoom 0, in squared pixels
+     */
+    private double[] significance;
+    private final PackedLatLngArray[] levels = new PackedLatLngArray[MAX_ZOOM + 1];
+    private int displayedZoom = MAX_ZOOM;
+
+    public SimplifiedGeometry(PackedLatLngArray source, SimplificationAlgorithm algorithm, double tolerance) {
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("The tolerance must be positive: " + tolerance);
+        }
+        this.source = source;
+        this.algorithm = algorithm;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Simplifies the given geometry with the Douglas-Peucker algorithm and the
+     * default tolerance.
+     * 
+     * @param geometry
+     *            the geometry to simplify
+     * @return the simplified geometry
+     */
+    public static SimplifiedGeometry of(GeometryStructure geometry) {
+        return of(geometry, SimplificationAlgorithm.DOUGLAS_PEUCKER, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Simplifies the given geometry.
+     * 
+     * @param geometry
+     *            the geometry to simplify
+     * @param algorithm
+     *            the simplification algorithm
+     * @param tolerance
+     *            the tolerance in pixels
+     * @return the simplified geometry
+     */
+    public static SimplifiedGeometry of(GeometryStructure geometry, SimplificationAlgorithm algorithm, double tolerance) {
+        if (geometry instanceof SimplifiedGeometry) {
+            geometry = ((SimplifiedGeometry) geometry).getSource();
+        }
+        return new SimplifiedGeometry(PackedLatLngArray.of(geometry), algorithm, tolerance);
+    }
+
+    /**
+     * Computes all levels of the given geometries on the common fork-join pool.
+     * 
+     * @param geometries
+     *            the geometries to precompute
+     */
+    public static void precomputeAll(Collection<SimplifiedGeometry> geometries) {
+        precomputeAll(geometries, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes all levels of the given geometries in parallel on the given
+     * fork-join pool.
+     * 
+     * @param geometries
+     *            the geometries to precompute
+     * @param pool
+     *            the pool to run the computation
+     */
+    public static void precomputeAll(Collection<SimplifiedGeometry> geometries, ForkJoinPool pool) {
+        pool.submit(() -> geometries.parallelStream().forEach(SimplifiedGeometry::precomputeLevels)).join();
+    }
+
+    /**
+     * Computes all levels of the geometry.
+     */
+    public void precomputeLevels() {
+        for (int zoom = 0; zoom <= MAX_ZOOM; zoom++) {
+            getLevel(zoom);
+        }
+    }
+
+    /**
+     * Returns the geometry simplified for the given zoom level.
+     * 
+     * @param zoom
+     *            the zoom level
+     * @return the simplified geometry
+     */
+    public synchronized PackedLatLngArray getLevel(int zoom) {
+        int level = Math.max(0, Math.min(zoom, MAX_ZOOM));
+        if (levels[level] == null) {
+            levels[level] = computeLevel(level);
+        }
+        return levels[level];
+    }
+
+    /**
+     * Sets the zoom level of the map, the geometry is serialized as the level
+     * of this zoom.
+     * 
+     * @param zoom
+     *            the zoom level
+     * @return true if the displayed level has been changed
+     */
+    public synchronized boolean setDisplayedZoom(int zoom) {
+        PackedLatLngArray displayed = getLevel(displayedZoom);
+        displayedZoom = Math.max(0, Math.min(zoom, MAX_ZOOM));
+        return getLevel(displayedZoom) != displayed;
+    }
+
+    public synchronized int getDisplayedZoom() {
+        return displayedZoom;
+    }
+
+    /**
+     * @return the level of the displayed zoom
+     */
+    public PackedLatLngArray getDisplayedLevel() {
+        return getLevel(getDisplayedZoom());
+    }
+
+    /**
+     * @return the original geometry
+     */
+    public PackedLatLngArray getSource() {
+        return source;
+    }
+
+    public SimplificationAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return source.isEmpty();
+    }
+
+    /**
+     * Returns the bounds of the original geometry.
+     */
+    @Override
+    public LatLngBounds getBounds() {
+        return source.getBounds();
+    }
+
+    private PackedLatLngArray computeLevel(int zoom) {
+        if (significance == null) {
+            significance = computeSignificance();
+        }
+        double scaledTolerance = tolerance / (1 << zoom);
+        double threshold = scaledTolerance * scaledTolerance;
+        int kept = 0;
+        for (double value : significance) {
+            if (value > threshold) {
+                kept++;
+            }
+        }
+        if (kept == source.getVertexCount()) {
+            return source;
+        }
+        for (PackedLatLngArray level : levels) {
+            if (level != null && level.getVertexCount() == kept) {
+                return level;
+            }
+        }
+
+        double[] coordinates = new double[kept * 2];
+        int[] ringOffsets = new int[source.getRingCount()];
+        int vertex = 0;
+        for (int ring = 0; ring < ringOffsets.length; ring++) {
+            ringOffsets[ring] = vertex;
+            for (int i = source.getRingStart(ring); i < source.getRingEnd(ring); i++) {
+                if (significance[i] > threshold) {
+                    coordinates[2 * vertex] = source.getLat(i);
+                    coordinates[2 * vertex + 1] = source.getLng(i);
+                    vertex++;
+                }
+            }
+        }
+        PackedLatLngArray level;
+        if (source.getPolygonCount() > 0) {
+            int[] polygonOffsets = new int[source.getPolygonCount()];
+            for (int polygon = 0; polygon < polygonOffsets.length; polygon++) {
+                polygonOffsets[polygon] = source.getPolygonStart(polygon);
+            }
+            level = PackedLatLngArray.ofPolygons(coordinates, ringOffsets, polygonOffsets);
+        } else {
+            level = PackedLatLngArray.ofRings(coordinates, ringOffsets);
+        }
+        if (source.isFloatPrecision()) {
+            level = level.toFloatPrecision();
+        }
+        return level.withEncodingOf(source);
+    }
+
+    private double[] computeSignificance() {
+        int vertexCount = source.getVertexCount();
+        double[] x = new double[vertexCount];
+        double[] y = new double[vertexCount];
+        for (int i = 0; i < vertexCount; i++) {
+            x[i] = (source.getLng(i) / 360 + 0.5) * TILE_SIZE;
+            double sin = Math.sin(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, source.getLat(i))) * Math.PI / 180);
+            y[i] = (0.5 - 0.25 * Math.log((1 + sin) / (1 - sin)) / Math.PI) * TILE_SIZE;
+        }
+        double[] values = new double[vertexCount];
+        for (int ring = 0; ring < source.getRingCount(); ring++) {
+            int start = source.getRingStart(ring);
+            int end = source.getRingEnd(ring);
+            if (end - start == 0) {
+                continue;
+            }
+            if (algorithm == SimplificationAlgorithm.VISVALINGAM) {
+                visvalingam(x, y, start, end, values);
+            } else {
+                douglasPeucker(x, y, start, end, values);
+            }
+            values[start] = Double.POSITIVE_INFINITY;
+            values[end - 1] = Double.POSITIVE_INFINITY;
+            boolean closed = end - start > 3 && x[start] == x[end - 1] && y[start] == y[end - 1];
+            keepMostSignificant(values, start + 1, end - 1);
+            if (closed) {
+                keepMostSignificant(values, start + 1, end - 1);
+            }
+        }
+        return values;
+    }
+
+    private static void keepMostSignificant(double[] values, int from, int to) {
+        int index = -1;
+        for (int i = from; i < to; i++) {
+            if (values[i] != Double.POSITIVE_INFINITY && (index < 0 || values[i] > values[index])) {
+                index = i;
+            }
+        }
+        if (index >= 0) {
+            values[index] = Double.POSITIVE_INFINITY;
+        }
+    }
+
+    /**
+     * The significance of a vertex is its squared distance from the line
+     * between the vertices it has been chosen between, limited by the
+     * significance of those vertices, so the vertices kept for a tolerance are
+     * the same as of the recursive algorithm.
+     */
+    private static void douglasPeucker(double[] x, double[] y, int start, int end, double[] values) {
+        int[] stack = new int[2 * (end - start)];
+        double[] limits = new double[end - start];
+        int size = 0;
+        stack[0] = start;
+        stack[1] = end - 1;
+        limits[0] = Double.POSITIVE_INFINITY;
+        size++;
+        while (size > 0) {
+            size--;
+            int first = stack[2 * size];
+            int last = stack[2 * size + 1];
+            double limit = limits[size];
+            double max = 0;
+            int index = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = squareSegmentDistance(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (distance > max) {
+                    max = distance;
+                    index = i;
+                }
+            }
+            if (index >= 0) {
+                double value = Math.min(max, limit);
+                values[index] = value;
+                stack[2 * size] = first;
+                stack[2 * size + 1] = index;
+                limits[size++] = value;
+                stack[2 * size] = index;
+                stack[2 * size + 1] = last;
+                limits[size++] = value;
+            }
+        }
+    }
+
+    private static double squareSegmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double x = ax;
+        double y = ay;
+        if (dx != 0 || dy != 0) {
+            double t = ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy);
+            if (t > 1) {
+                x = bx;
+                y = by;
+            } else if (t > 0) {
+                x += dx * t;
+                y += dy * t;
+            }
+        }
+        dx = px - x;
+        dy = py - y;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * The significance of a vertex is the area of the triangle with its
+     * neighbours when it is removed, at least the area of the previously
+     * removed vertex.
+     */
+    private static void visvalingam(double[] x, double[] y, int start, int end, double[] values) {
+        int n = end - start;
+        if (n < 3) {
+            return;
+        }
+        int[] prev = new int[n];
+        int[] next = new int[n];
+        double[] areas = new double[n];
+        int[] heap = new int[n];
+        int[] positions = new int[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            prev[i] = i - 1;
+            next[i] = i + 1;
+        }
+        for (int i = 1; i < n - 1; i++) {
+            areas[i] = area(x, y, start + i - 1, start + i, start + i + 1);
+            heap[size] = i;
+            positions[i] = size;
+            siftUp(heap, positions, areas, size, size);
+            size++;
+        }
+        double max = 0;
+        while (size > 0) {
+            int i = heap[0];
+            size--;
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(heap, positions, areas, size, 0);
+            positions[i] = -1;
+
+            max = Math.max(max, areas[i]);
+            values[start + i] = max;
+            int p = prev[i];
+            int q = next[i];
+            next[p] = q;
+            prev[q] = p;
+            if (p > 0) {
+                areas[p] = area(x, y, start + prev[p], start + p, start + q);
+                update(heap, positions, areas, size, p);
+            }
+            if (q < n - 1) {
+                areas[q] = area(x, y, start + p, start + q, start + next[q]);
+                update(heap, positions, areas, size, q);
+            }
+        }
+    }
+
+    private static double area(double[] x, double[] y, int a, int b, int c) {
+        return Math.abs((x[a] - x[c]) * (y[b] - y[a]) - (x[a] - x[b]) * (y[c] - y[a])) / 2;
+    }
+
+    private static void update(int[] heap, int[] positions, double[] areas, int size, int item) {
+        int position = positions[item];
+        if (position >= 0 && position < size) {
+            siftDown(heap, positions, areas, size, siftUp(heap, positions, areas, size, position));
+        }
+    }
+
+    private static int siftUp(int[] heap, int[] positions, double[] areas, int size, int position) {
+        int item = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >> 1;
+            if (areas[heap[parent]] <= areas[item]) {
+                break;
+            }
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = item;
+        positions[item] = position;
+        return position;
+    }
+
+    private static void siftDown(int[] heap, int[] positions, double[] areas, int size, int position) {
+        if (size == 0) {
+            return;
+        }
+        int item = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && areas[heap[child + 1]] < areas[heap[child]]) {
+                child++;
+            }
+            if (areas[item] <= areas[heap[child]]) {
+                break;
+            }
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = item;
+        positions[item] = position;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + algorithm + ", tolerance=" + tolerance + ", displayedZoom=" + getDisplayedZoom() + ", source=" + source
+                + "]";
+    }
+
+    /**
+     * Writes the level of the displayed zoom.
+     */
+    public static class Serializer extends StdSerializer<SimplifiedGeometry> {
+
+        private static final long serialVersionUID = 6209183409624418531L;
+
+        public Serializer() {
+            super(SimplifiedGeometry.class);
+        }
+
+        @Override
+        public void serialize(SimplifiedGeometry value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            provider.defaultSerializeValue(value.getDisplayedLevel(), generator);
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.operations;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.vaadin.addon.leaflet4vaadin.LeafletMap;
+import com.vaadin.addon.leaflet4vaadin.layer.Identifiable;
+
+/**
+ * Builder of a batch of leaflet function calls, which are evaluated on the
+ * client side in one round-trip. Each queued call returns a typed key, which
+ * can be used to read its result from the {@link BatchResult}.
+ * 
+ * <pre>
+ * BatchCall batch = leafletMap.batchCall();
+ * BatchResult.Key&lt;Integer&gt; zoom = batch.add("getZoom", Integer.class);
+ * BatchResult.Key&lt;LatLngBounds&gt; bounds = batch.add("getBounds", LatLngBounds.class);
+ * batch.execute().thenAccept(result -&gt; update(result.get(zoom), result.get(bounds)));
+ * </pre>
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-07
+ * @version 1.0
+ */
+public class BatchCall implements Serializable {
+
+    private static final long serialVersionUID = 1870276340937851128L;
+
+    private final LeafletMap leafletMap;
+    private final List<LeafletOperation> operations = new ArrayList<>();
+    private final List<BatchResult.Key<?>> keys = new ArrayList<>();
+
+    public BatchCall(LeafletMap leafletMap) {
+        this.leafletMap = leafletMap;
+    }
+
+    /**
+     * Queues a function call on the map.
+     * 
+     * @param functionName
+     *            the name of the leaflet function
+     * @param resultType
+     *            the type of the result
+     * @param arguments
+     *            the arguments of the function
+     * @param <T>
+     *            the type of the result
+     * @return the key of the result in the {@link BatchResult}
+     */
+    public <T extends Serializable> BatchResult.Key<T> add(String functionName, Class<T> resultType, Serializable... arguments) {
+        return add(leafletMap, functionName, resultType, arguments);
+    }
+
+    /**
+     * Queues a function call on the given target.
+     * 
+     * @param target
+     *            the target of the function call, e.g. a layer
+     * @param functionName
+     *            the name of the leaflet function
+     * @param resultType
+     *            the type of the result
+     * @param arguments
+     *            the arguments of the function
+     * @param <T>
+     *            the type of the result
+     * @return the key of the result in the {@link BatchResult}
+     */
+    public <T extends Serializable> BatchResult.Key<T> add(Identifiable target, String functionName, Class<T> resultType, Serializable... arguments) {
+        BatchResult.Key<T> key = new BatchResult.Key<>(operations.size(), resultType);
+        operations.add(new LeafletOperation(target, functionName, arguments));
+        keys.add(key);
+        return key;
+    }
+
+    /**
+     * Sends all the queued function calls to the client side in one call.
+     * 
+     * @return the results of the function calls
+     */
+    public CompletableFuture<BatchResult> execute() {
+        return leafletMap.call(this);
+    }
+
+    public List<LeafletOperation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    public List<BatchResult.Key<?>> getKeys() {
+        return Collections.unmodifiableList(keys);
+    }
+
+    public int size() {
+        return operations.size();
+    }
+}
@@ -0,0 +1,81 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.operations;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Results of the function calls of a {@link BatchCall}.
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-07
+ * @version 1.0
+ */
+public class BatchResult implements Serializable {
+
+    private static final long serialVersionUID = -5402316180389373592L;
+
+    private final List<Object> results;
+
+    public BatchResult(List<Object> results) {
+        this.results = results;
+    }
+
+    /**
+     * Returns the result of the function call identified by the given key.
+     * 
+     * @param key
+     *            the key returned when the call was added to the batch
+     * @param <T>
+     *            the type of the result
+     * @return the result of the function call
+     */
+    public <T extends Serializable> T get(Key<T> key) {
+        return key.getResultType().cast(results.get(key.getIndex()));
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * Typed key of a function call in a batch.
+     * 
+     * @param <T>
+     *            the type of the result
+     */
+    public static final class Key<T extends Serializable> implements Serializable {
+
+        private static final long serialVersionUID = -8035787520893806185L;
+
+        private final int index;
+        private final Class<T> resultType;
+
+        Key(int index, Class<T> resultType) {
+            this.index = index;
+            this.resultType = resultType;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Class<T> getResultType() {
+            return resultType;
+        }
+    }
+}
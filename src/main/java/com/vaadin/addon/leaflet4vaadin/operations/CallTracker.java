@@ -0,0 +1,335 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.operations;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.vaadin.flow.function.SerializableConsumer;
+import com.vaadin.flow.function.SerializableSupplier;
+
+/**
+ * Keeps track of the function calls sent to the client side, whose results
+ * are still expected by the server side.
+ * <p>
+ * Each call completes with its result, exceptionally with the error of the
+ * client side, or exceptionally with a {@link TimeoutException} when its
+ * timeout elapses. At most {@link #getMaxInFlight()} calls are sent to the
+ * client side at the same time, the others wait in a queue and are sent when
+ * an earlier call completes.
+ * <p>
+ * The tracker must be accessed with the session locked. The executor which
+ * applies the timeouts with the session locked, e.g. through
+ * {@code UI.access}, is captured when a call is submitted. If it cannot run
+ * the timeout any more, because the UI has been detached in the meantime, the
+ * call is failed without the lock and without updating the tracker, whose
+ * calls are cancelled on detach anyway.
+ * <p>
+ * The timeouts share one scheduler thread, which is started on demand and
+ * stops when no timeout is pending, so no thread is left behind when the
+ * application is undeployed.
+ * <p>
+ * The pending calls are not serialized with the tracker, because their
+ * futures are held by the code waiting for them in the current JVM. A
+ * deserialized tracker starts without pending calls.
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-08
+ * @version 1.1
+ */
+public class CallTracker implements Serializable {
+
+    private static final long serialVersionUID = -1289154263386813380L;
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 32;
+
+    private static final long SCHEDULER_KEEP_ALIVE_MILLIS = 1_000;
+
+    private static final ScheduledThreadPoolExecutor timeoutScheduler = createTimeoutScheduler();
+
+    private final SerializableSupplier<Executor> access;
+    private long defaultTimeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+    private transient Set<TrackedCall<?>> inFlight = new LinkedHashSet<>();
+    private transient Deque<TrackedCall<?>> queued = new ArrayDeque<>();
+
+    private long completed;
+    private long failed;
+    private long timedOut;
+    private long cancelled;
+
+    /**
+     * Creates a tracker which applies the timeouts through the executor
+     * returned by the given function.
+     *
+     * @param access
+     *            returns an executor which runs the given commands with the
+     *            session locked, or null if the session cannot be accessed,
+     *            e.g. because the UI is not attached
+     */
+    public CallTracker(SerializableSupplier<Executor> access) {
+        this.access = access;
+    }
+
+    private static ScheduledThreadPoolExecutor createTimeoutScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "leaflet-call-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // the thread stops when there is no pending timeout
+        scheduler.setKeepAliveTime(SCHEDULER_KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS);
+        scheduler.allowCoreThreadTimeOut(true);
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Sends a function call with the default timeout.
+     *
+     * @param sender
+     *            sends the call to the client side and completes the given
+     *            future with its result
+     * @param <T>
+     *            the type of the result
+     * @return the result of the function call
+     */
+    public <T> CompletableFuture<T> submit(SerializableConsumer<CompletableFuture<T>> sender) {
+        return submit(sender, defaultTimeoutMillis);
+    }
+
+    /**
+     * Sends a function call, or queues it if there are already too many calls
+     * in flight.
+     *
+     * @param sender
+     *            sends the call to the client side and completes the given
+     *            future with its result
+     * @param timeoutMillis
+     *            the time to wait for the result, measured from the submission
+     *            of the call, or 0 to wait without limit
+     * @param <T>
+     *            the type of the result
+     * @return the result of the function call
+     */
+    public <T> CompletableFuture<T> submit(SerializableConsumer<CompletableFuture<T>> sender, long timeoutMillis) {
+        TrackedCall<T> call = new TrackedCall<>(sender);
+        call.future.whenComplete((result, error) -> onComplete(call, error));
+        expireAfter(call.future, timeoutMillis, call);
+        if (inFlight.size() < maxInFlight) {
+            send(call);
+        } else {
+            queued.add(call);
+        }
+        return call.future;
+    }
+
+    /**
+     * Completes the given future exceptionally with a {@link TimeoutException}
+     * if it is not completed within the given time, e.g. for a call which
+     * waits to be sent until the map is initialized on the client side.
+     *
+     * @param future
+     *            the future of a function call
+     * @param timeoutMillis
+     *            the time to wait for the result, or 0 to wait without limit
+     */
+    public void expireAfter(CompletableFuture<?> future, long timeoutMillis) {
+        expireAfter(future, timeoutMillis, null);
+    }
+
+    private void expireAfter(CompletableFuture<?> future, long timeoutMillis, TrackedCall<?> call) {
+        if (timeoutMillis <= 0 || future.isDone()) {
+            return;
+        }
+        Executor executor = access.get();
+        ScheduledFuture<?> timeout = timeoutScheduler.schedule(() -> expire(future, timeoutMillis, executor, call), timeoutMillis, TimeUnit.MILLISECONDS);
+        future.whenComplete((result, error) -> timeout.cancel(false));
+    }
+
+    private void expire(CompletableFuture<?> future, long timeoutMillis, Executor executor, TrackedCall<?> call) {
+        TimeoutException timeout = new TimeoutException("No result in " + timeoutMillis + " ms");
+        try {
+            if (executor == null) {
+                throw new IllegalStateException("The session cannot be accessed");
+            }
+            executor.execute(() -> {
+                if (future.completeExceptionally(timeout)) {
+                    timedOut++;
+                }
+            });
+        } catch (RuntimeException e) {
+            // the tracker cannot be updated without the session lock
+            if (call != null) {
+                call.unlocked = true;
+            }
+            future.completeExceptionally(timeout);
+        }
+    }
+
+    private void send(TrackedCall<?> call) {
+        inFlight.add(call);
+        call.send();
+    }
+
+    private void onComplete(TrackedCall<?> call, Throwable error) {
+        if (call.unlocked) {
+            return;
+        }
+        if (error == null) {
+            completed++;
+        } else if (!(error instanceof TimeoutException) && !(error instanceof CancellationException)) {
+            failed++;
+        }
+        boolean wasInFlight = inFlight.remove(call);
+        queued.remove(call);
+        while (wasInFlight && inFlight.size() < maxInFlight && !queued.isEmpty()) {
+            send(queued.poll());
+        }
+    }
+
+    /**
+     * Cancels all the calls in flight and in the queue, e.g. when the map is
+     * detached and their results will never arrive.
+     */
+    public void cancelAll() {
+        List<TrackedCall<?>> calls = new ArrayList<>(queued);
+        calls.addAll(inFlight);
+        queued.clear();
+        for (TrackedCall<?> call : calls) {
+            if (call.future.cancel(false)) {
+                cancelled++;
+            }
+        }
+    }
+
+    public long getDefaultTimeoutMillis() {
+        return defaultTimeoutMillis;
+    }
+
+    /**
+     * Sets the timeout of the calls which are submitted without timeout
+     *
+     * @param defaultTimeoutMillis
+     *            the timeout in milliseconds, or 0 to wait without limit
+     */
+    public void setDefaultTimeoutMillis(long defaultTimeoutMillis) {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Sets the maximum number of calls sent to the client side at the same
+     * time
+     *
+     * @param maxInFlight
+     *            the maximum number of calls in flight
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("At least one call must be allowed in flight: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Returns the number of calls waiting for their results, including the
+     * queued ones
+     *
+     * @return the number of pending calls
+     */
+    public int getPending() {
+        return inFlight.size() + queued.size();
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    public int getQueued() {
+        return queued.size();
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getTimedOut() {
+        return timedOut;
+    }
+
+    public long getCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public String toString() {
+        return "CallTracker [pending=" + getPending() + ", inFlight=" + getInFlight() + ", completed=" + completed + ", failed=" + failed + ", timedOut="
+                + timedOut + ", cancelled=" + cancelled + "]";
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        inFlight = new LinkedHashSet<>();
+        queued = new ArrayDeque<>();
+    }
+
+    /**
+     * A call whose result is expected. It is not serializable, see the
+     * description of the tracker.
+     */
+    private static class TrackedCall<T> {
+
+        private final SerializableConsumer<CompletableFuture<T>> sender;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private volatile boolean unlocked;
+
+        private TrackedCall(SerializableConsumer<CompletableFuture<T>> sender) {
+            this.sender = sender;
+        }
+
+        private void send() {
+            try {
+                sender.accept(future);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
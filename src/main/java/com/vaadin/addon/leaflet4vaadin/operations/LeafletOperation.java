@@ -14,12 +14,20 @@
 
 package com.vaadin.addon.leaflet4vaadin.operations;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vaadin.addon.leaflet4vaadin.controls.LeafletControl;
 import com.vaadin.addon.leaflet4vaadin.layer.Identifiable;
+import com.vaadin.addon.leaflet4vaadin.serialization.LeafletSerializer;
+
+import elemental.json.Json;
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
 
 /**
  * {@link LeafletOperation} class contains all pieces of information is required
@@ -28,22 +36,52 @@ import com.vaadin.addon.leaflet4vaadin.layer.Identifiable;
  * @author <strong>Gabor Kokeny</strong> Email:
  *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
  * @since 2020-03-11
- * @version 1.0
+ * @version 1.1
  */
 public class LeafletOperation implements Serializable {
 
     private static final long serialVersionUID = -7752937288867492721L;
+
+    /**
+     * Setter functions where only the last invocation per target has effect on
+     * the client-side state.
+     */
+    private static final Set<String> IDEMPOTENT_FUNCTIONS = Collections
+            .unmodifiableSet(new HashSet<>(Arrays.asList("setLatLng", "setStyle", "setOpacity", "setZIndexOffset", "setIcon", "setContent",
+                    "setLatLngs")));
+
     private String layerId;
     private boolean controlOperation;
     private String functionName;
     private Serializable[] arguments;
-    private final ObjectMapper mapper = new ObjectMapper();
 
+    /**
+     * The arguments encoded when the operation was created
+     */
+    private JsonValue jsonArguments;
+
+    /**
+     * Creates the operation and encodes its arguments right away, so the
+     * client-side receives the state of the arguments at the time of the
+     * invocation, even if they are changed before the operation is sent.
+     * 
+     * @param target
+     *            the target of the function
+     * @param functionName
+     *            the name of the function
+     * @param arguments
+     *            the arguments of the function
+     */
     public LeafletOperation(Identifiable target, String functionName, Serializable... arguments) {
         this.layerId = target.getUuid();
         this.functionName = functionName;
         this.arguments = arguments;
         this.controlOperation = target instanceof LeafletControl;
+        try {
+            this.jsonArguments = LeafletSerializer.toJsonValue(arguments);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to convert arguments to JSON.", e);
+        }
     }
 
     /**
@@ -66,14 +104,65 @@ public class LeafletOperation implements Serializable {
     }
 
     /**
-     * @return the arguments
+     * Returns true if a later invocation of the same function on the same target
+     * overrides the effect of this operation.
+     * 
+     * @return true if the operation is an idempotent setter
      */
-    public String getArguments() {
-        try {
-            return mapper.writeValueAsString(arguments);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Unable to convert arguments to JSON.", e);
+    boolean isIdempotent() {
+        return IDEMPOTENT_FUNCTIONS.contains(functionName);
+    }
+
+    /**
+     * Returns the id of the first argument if it is an {@link Identifiable} or
+     * an id itself, e.g. the layer of an addLayer or removeLayer operation.
+     * 
+     * @return the id of the first argument or null
+     */
+    String getFirstArgumentId() {
+        if (arguments == null || arguments.length == 0) {
+            return null;
         }
+        Serializable argument = arguments[0];
+        if (argument instanceof Identifiable) {
+            return ((Identifiable) argument).getUuid();
+        } else if (argument instanceof String) {
+            return (String) argument;
+        }
+        return null;
+    }
+
+    /**
+     * @return the first argument or null if there is no argument
+     */
+    Serializable getFirstArgument() {
+        return arguments == null || arguments.length == 0 ? null : arguments[0];
+    }
+
+    /**
+     * Returns the arguments as a native JSON array, as they were encoded when
+     * the operation was created. The arguments are encoded only once, so the
+     * client-side receives them without any escaping and does not have to
+     * parse them again.
+     * 
+     * @return the arguments
+     */
+    public JsonValue getArguments() {
+        return jsonArguments;
+    }
+
+    /**
+     * Converts this operation to the JSON object expected by the client-side.
+     * 
+     * @return the JSON representation of this operation
+     */
+    public JsonObject toJson() {
+        JsonObject json = Json.createObject();
+        json.put("layerId", Json.create(layerId));
+        json.put("controlOperation", Json.create(controlOperation));
+        json.put("functionName", Json.create(functionName));
+        json.put("arguments", getArguments());
+        return json;
     }
 
 }
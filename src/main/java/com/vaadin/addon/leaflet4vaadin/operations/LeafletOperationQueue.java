@@ -0,0 +1,187 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.operations;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.vaadin.addon.leaflet4vaadin.layer.Layer;
+import com.vaadin.addon.leaflet4vaadin.layer.groups.LayerGroup;
+
+/**
+ * Collects the {@link LeafletOperation}s issued during one server round-trip,
+ * so they can be sent to the client-side in a single function call and be
+ * applied there in the same order as they were issued.
+ * <p>
+ * Redundant operations are coalesced while they are queued:
+ * <ul>
+ * <li>for idempotent setters (e.g. setLatLng, setStyle) only the last
+ * invocation per target is kept, at its own position, so the operations issued
+ * between the invocations (e.g. addLatLng between two setLatLngs) cannot
+ * change the state it sets</li>
+ * <li>a layer which was added and removed again on the same target is not sent
+ * at all, together with the operations issued on it and on its popup and
+ * tooltip in between. Layer groups are always sent, because the operations of
+ * their nested layers cannot be told apart in the queue</li>
+ * </ul>
+ * So the size of the payload is bounded by the number of changed objects
+ * instead of the number of calls.
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-02
+ * @version 1.3
+ */
+public class LeafletOperationQueue implements Serializable {
+
+    private static final long serialVersionUID = 4216790165532795826L;
+
+    private static final String ADD_LAYER = "addLayer";
+    private static final String REMOVE_LAYER = "removeLayer";
+
+    /**
+     * Operations in issue order, the slots of dropped operations are null.
+     */
+    private final List<LeafletOperation> operations = new ArrayList<>();
+
+    /**
+     * Slot of the last idempotent setter by target and function name.
+     */
+    private final Map<String, Integer> setterSlots = new HashMap<>();
+
+    /**
+     * Slot of the last pending addLayer operation by target and added layer.
+     */
+    private final Map<String, Integer> addLayerSlots = new HashMap<>();
+
+    /**
+     * Slots of the pending operations by the id of their target.
+     */
+    private final Map<String, List<Integer>> targetSlots = new HashMap<>();
+
+    private int size = 0;
+
+    /**
+     * Appends the given operation to the end of the queue and drops the
+     * operations which have been made redundant by it, e.g. the pending
+     * invocation of a repeated idempotent setter.
+     *
+     * @param operation
+     *            the operation to be queued
+     */
+    public void add(LeafletOperation operation) {
+        if (operation.isIdempotent()) {
+            Integer previous = setterSlots.get(key(operation.getLayerId(), operation.getFunctionName()));
+            if (previous != null) {
+                drop(previous);
+            }
+        } else if (!operation.isControlOperation() && REMOVE_LAYER.equals(operation.getFunctionName())) {
+            String layerId = operation.getFirstArgumentId();
+            Integer addSlot = addLayerSlots.remove(key(operation.getLayerId(), layerId));
+            if (addSlot != null) {
+                Layer layer = (Layer) operations.get(addSlot).getFirstArgument();
+                drop(addSlot);
+                dropTargetOperationsAfter(layerId, addSlot);
+                if (layer.getPopup() != null) {
+                    dropTargetOperationsAfter(layer.getPopup().getUuid(), addSlot);
+                }
+                if (layer.getTooltip() != null) {
+                    dropTargetOperationsAfter(layer.getTooltip().getUuid(), addSlot);
+                }
+                return;
+            }
+        }
+
+        int slot = operations.size();
+        operations.add(operation);
+        size++;
+        targetSlots.computeIfAbsent(operation.getLayerId(), id -> new ArrayList<>()).add(slot);
+        if (operation.isIdempotent()) {
+            setterSlots.put(key(operation.getLayerId(), operation.getFunctionName()), slot);
+        } else if (!operation.isControlOperation() && ADD_LAYER.equals(operation.getFunctionName()) && isCancellable(operation.getFirstArgument())) {
+            addLayerSlots.put(key(operation.getLayerId(), operation.getFirstArgumentId()), slot);
+        }
+    }
+
+    /**
+     * Returns true if the operations of the given added layer can be told apart
+     * in the queue, so its addLayer operation can be cancelled.
+     */
+    private static boolean isCancellable(Object layer) {
+        return layer instanceof Layer && !(layer instanceof LayerGroup);
+    }
+
+    private void dropTargetOperationsAfter(String layerId, int fromSlot) {
+        List<Integer> slots = targetSlots.get(layerId);
+        if (slots != null) {
+            for (Integer slot : slots) {
+                if (slot > fromSlot) {
+                    drop(slot);
+                }
+            }
+        }
+    }
+
+    private void drop(int slot) {
+        if (operations.get(slot) != null) {
+            operations.set(slot, null);
+            size--;
+        }
+    }
+
+    private static String key(String targetId, String name) {
+        return targetId + "#" + name;
+    }
+
+    /**
+     * Returns true if there is no pending operation in the queue.
+     *
+     * @return true if the queue is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of pending operations
+     *
+     * @return the number of pending operations
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all pending operations from the queue and returns them in the
+     * order as they were added.
+     *
+     * @return the pending operations in issue order
+     */
+    public List<LeafletOperation> drain() {
+        List<LeafletOperation> drained = new ArrayList<>(size);
+        operations.stream().filter(Objects::nonNull).forEach(drained::add);
+        operations.clear();
+        setterSlots.clear();
+        addLayerSlots.clear();
+        targetSlots.clear();
+        size = 0;
+        return drained;
+    }
+
+}
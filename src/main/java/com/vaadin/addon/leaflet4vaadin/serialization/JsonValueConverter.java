@@ -0,0 +1,81 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.serialization;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+
+/**
+ * Converts the elemental {@link JsonValue} trees received from the client-side
+ * into Jackson trees, so they can be decoded by Jackson without being rendered
+ * as text first. The values sent to the client-side are written directly by
+ * {@link LeafletSerializer#toJsonValue(Object)}.
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-02
+ * @version 1.2
+ */
+public final class JsonValueConverter {
+
+    private static final JsonNodeFactory NODE_FACTORY = JsonNodeFactory.instance;
+
+    private JsonValueConverter() {
+    }
+
+    /**
+     * Converts the given elemental {@link JsonValue} tree into a Jackson tree.
+     *
+     * @param value
+     *            the elemental json value to convert
+     * @return the equivalent Jackson tree
+     */
+    public static JsonNode toJsonNode(JsonValue value) {
+        if (value == null) {
+            return NODE_FACTORY.nullNode();
+        }
+        switch (value.getType()) {
+        case OBJECT:
+            JsonObject object = (JsonObject) value;
+            ObjectNode objectNode = NODE_FACTORY.objectNode();
+            for (String key : object.keys()) {
+                objectNode.set(key, toJsonNode(object.get(key)));
+            }
+            return objectNode;
+        case ARRAY:
+            JsonArray array = (JsonArray) value;
+            ArrayNode arrayNode = NODE_FACTORY.arrayNode(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                arrayNode.add(toJsonNode(array.get(i)));
+            }
+            return arrayNode;
+        case NUMBER:
+            return NODE_FACTORY.numberNode(value.asNumber());
+        case BOOLEAN:
+            return NODE_FACTORY.booleanNode(value.asBoolean());
+        case STRING:
+            return NODE_FACTORY.textNode(value.asString());
+        default:
+            return NODE_FACTORY.nullNode();
+        }
+    }
+
+}
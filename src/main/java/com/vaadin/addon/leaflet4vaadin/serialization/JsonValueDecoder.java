@@ -0,0 +1,141 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.serialization;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.vaadin.addon.leaflet4vaadin.types.Bounds;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+import com.vaadin.addon.leaflet4vaadin.types.Point;
+
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
+
+/**
+ * Registry of the decoders which create the results of function calls
+ * directly from the elemental {@link JsonValue} received from the client-side.
+ * <p>
+ * The primitive wrappers, {@link String} and the basic types ({@link LatLng},
+ * {@link LatLngBounds}, {@link Point}, {@link Bounds}) are decoded by reading
+ * the fields of the json tree, without rendering it as text and parsing it
+ * again. Other types are read from the equivalent Jackson tree by the shared
+ * reader of the {@link LeafletSerializer}. Decoders for further types can be
+ * registered with {@link #register(Class, Function)}.
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-08
+ * @version 1.0
+ */
+public final class JsonValueDecoder {
+
+    private static final Map<Class<?>, Function<JsonValue, ?>> decoders = new ConcurrentHashMap<>();
+
+    static {
+        register(String.class, JsonValue::asString);
+        register(Boolean.class, JsonValue::asBoolean);
+        register(Double.class, JsonValue::asNumber);
+        register(Float.class, value -> (float) value.asNumber());
+        register(Long.class, value -> (long) value.asNumber());
+        register(Integer.class, value -> (int) value.asNumber());
+        register(Short.class, value -> (short) value.asNumber());
+        register(LatLng.class, JsonValueDecoder::decodeLatLng);
+        register(LatLngBounds.class, JsonValueDecoder::decodeLatLngBounds);
+        register(Point.class, JsonValueDecoder::decodePoint);
+        register(Bounds.class, JsonValueDecoder::decodeBounds);
+    }
+
+    private JsonValueDecoder() {
+    }
+
+    /**
+     * Registers the decoder of the given type, it replaces the decoder which
+     * has been registered before.
+     *
+     * @param type
+     *            the type to decode
+     * @param decoder
+     *            the function which creates the value from a non-null json value
+     * @param <T>
+     *            the type to decode
+     */
+    public static <T> void register(Class<T> type, Function<JsonValue, T> decoder) {
+        decoders.put(type, decoder);
+    }
+
+    /**
+     * Decodes the given json value to an instance of the given type.
+     *
+     * @param value
+     *            the json value to decode
+     * @param type
+     *            the type of the result
+     * @param <T>
+     *            the type of the result
+     * @return the decoded value, or null if the json value is null
+     * @throws IOException
+     *             if the json value cannot be decoded to the given type
+     */
+    public static <T> T decode(JsonValue value, Class<T> type) throws IOException {
+        if (value == null || value.getType() == JsonType.NULL) {
+            return null;
+        }
+        Function<JsonValue, ?> decoder = decoders.get(type);
+        if (decoder == null) {
+            return LeafletSerializer.readerFor(type).readValue(JsonValueConverter.toJsonNode(value));
+        }
+        try {
+            return type.cast(decoder.apply(value));
+        } catch (RuntimeException e) {
+            throw new IOException("Failed to decode " + type.getSimpleName() + " from " + value.toJson(), e);
+        }
+    }
+
+    private static LatLng decodeLatLng(JsonValue value) {
+        JsonObject json = (JsonObject) value;
+        LatLng latLng = new LatLng(json.getNumber("lat"), json.getNumber("lng"));
+        if (json.hasKey("alt")) {
+            latLng.setAltitude(json.getNumber("alt"));
+        }
+        return latLng;
+    }
+
+    private static LatLngBounds decodeLatLngBounds(JsonValue value) {
+        JsonObject json = (JsonObject) value;
+        LatLngBounds bounds = new LatLngBounds();
+        bounds.setSouthWest(decodeLatLng(json.getObject("_southWest")));
+        bounds.setNorthEast(decodeLatLng(json.getObject("_northEast")));
+        return bounds;
+    }
+
+    private static Point decodePoint(JsonValue value) {
+        JsonObject json = (JsonObject) value;
+        return new Point(json.getNumber("x"), json.getNumber("y"));
+    }
+
+    private static Bounds decodeBounds(JsonValue value) {
+        JsonObject json = (JsonObject) value;
+        Bounds bounds = new Bounds();
+        bounds.setMin(decodePoint(json.getObject("min")));
+        bounds.setMax(decodePoint(json.getObject("max")));
+        return bounds;
+    }
+
+}
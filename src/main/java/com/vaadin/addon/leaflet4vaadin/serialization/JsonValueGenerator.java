@@ -0,0 +1,251 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.serialization;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.base.GeneratorBase;
+import com.fasterxml.jackson.core.json.JsonWriteContext;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+
+/**
+ * Jackson generator which builds an elemental {@link JsonValue} tree directly
+ * from the tokens written by the serializers, so objects can be passed to the
+ * client-side as native JSON values in one encoding pass, without rendering
+ * them as text or building an intermediate Jackson tree.
+ * <p>
+ * Raw values cannot be represented in the tree and are not supported.
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-15
+ * @version 1.0
+ */
+final class JsonValueGenerator extends GeneratorBase {
+
+    private final Deque<JsonValue> containers = new ArrayDeque<>();
+    private String fieldName;
+    private JsonValue root;
+
+    JsonValueGenerator(ObjectCodec codec) {
+        super(0, codec);
+    }
+
+    /**
+     * @return the value written to the generator, or null if nothing has been
+     *         written yet
+     */
+    JsonValue getValue() {
+        return root;
+    }
+
+    private void append(JsonValue value) {
+        JsonValue container = containers.peek();
+        if (container == null) {
+            root = value;
+        } else if (container instanceof JsonArray) {
+            JsonArray array = (JsonArray) container;
+            array.set(array.length(), value);
+        } else {
+            ((JsonObject) container).put(fieldName, value);
+        }
+    }
+
+    private void writeValue(String typeMessage, JsonValue value) throws IOException {
+        _verifyValueWrite(typeMessage);
+        append(value);
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        _verifyValueWrite("start an array");
+        _writeContext = _writeContext.createChildArrayContext();
+        JsonArray array = Json.createArray();
+        append(array);
+        containers.push(array);
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        if (!_writeContext.inArray()) {
+            _reportError("Current context not Array but " + _writeContext.typeDesc());
+        }
+        _writeContext = _writeContext.clearAndGetParent();
+        containers.pop();
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+        _verifyValueWrite("start an object");
+        _writeContext = _writeContext.createChildObjectContext();
+        JsonObject object = Json.createObject();
+        append(object);
+        containers.push(object);
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        if (!_writeContext.inObject()) {
+            _reportError("Current context not Object but " + _writeContext.typeDesc());
+        }
+        _writeContext = _writeContext.clearAndGetParent();
+        containers.pop();
+    }
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+        if (_writeContext.writeFieldName(name) == JsonWriteContext.STATUS_EXPECT_VALUE) {
+            _reportError("Can not write a field name, expecting a value");
+        }
+        fieldName = name;
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        if (text == null) {
+            writeNull();
+        } else {
+            writeValue("write a string", Json.create(text));
+        }
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+        writeString(new String(text, offset, len));
+    }
+
+    @Override
+    public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+        writeUTF8String(text, offset, length);
+    }
+
+    @Override
+    public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+        writeString(new String(text, offset, length, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeRaw(String text) throws IOException {
+        _reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeRaw(String text, int offset, int len) throws IOException {
+        _reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeRaw(char[] text, int offset, int len) throws IOException {
+        _reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeRaw(char c) throws IOException {
+        _reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeBinary(Base64Variant variant, byte[] data, int offset, int len) throws IOException {
+        byte[] bytes = offset == 0 && len == data.length ? data : Arrays.copyOfRange(data, offset, offset + len);
+        writeString(variant.encode(bytes));
+    }
+
+    @Override
+    public void writeNumber(int value) throws IOException {
+        writeValue("write a number", Json.create(value));
+    }
+
+    @Override
+    public void writeNumber(long value) throws IOException {
+        writeValue("write a number", Json.create(value));
+    }
+
+    @Override
+    public void writeNumber(BigInteger value) throws IOException {
+        if (value == null) {
+            writeNull();
+        } else {
+            writeValue("write a number", Json.create(value.doubleValue()));
+        }
+    }
+
+    @Override
+    public void writeNumber(double value) throws IOException {
+        writeValue("write a number", Json.create(value));
+    }
+
+    @Override
+    public void writeNumber(float value) throws IOException {
+        writeValue("write a number", Json.create(value));
+    }
+
+    @Override
+    public void writeNumber(BigDecimal value) throws IOException {
+        if (value == null) {
+            writeNull();
+        } else {
+            writeValue("write a number", Json.create(value.doubleValue()));
+        }
+    }
+
+    @Override
+    public void writeNumber(String encodedValue) throws IOException {
+        if (encodedValue == null) {
+            writeNull();
+        } else {
+            writeValue("write a number", Json.create(Double.parseDouble(encodedValue)));
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean state) throws IOException {
+        writeValue("write a boolean value", Json.create(state));
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        writeValue("write a null", Json.createNull());
+    }
+
+    @Override
+    protected void _verifyValueWrite(String typeMsg) throws IOException {
+        if (_writeContext.writeValue() == JsonWriteContext.STATUS_EXPECT_NAME) {
+            _reportError("Can not " + typeMsg + ", expecting a field name");
+        }
+    }
+
+    @Override
+    public void flush() {
+        // the tree is built in memory, there is nothing to flush
+    }
+
+    @Override
+    protected void _releaseBuffers() {
+        // no buffers are used
+    }
+
+}
@@ -0,0 +1,196 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.serialization;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonValue;
+
+/**
+ * Central registry of the JSON serializers used to send leaflet objects to the
+ * client-side and to read the results of function calls.
+ * <p>
+ * All serializers are created from one shared {@link ObjectMapper}, and the
+ * {@link ObjectWriter}s and {@link ObjectReader}s are built once per class and
+ * cached, so the introspection of a class is done only once per JVM instead of
+ * once per object. The writer of a class can be customized with
+ * {@link #registerCustomizer(Class, UnaryOperator)}.
+ * <p>
+ * Values sent to the client-side as native JSON are written by
+ * {@link #toJsonValue(Object)} directly into elemental {@link JsonValue}s.
+ *
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-02
+ * @version 1.2
+ */
+public final class LeafletSerializer {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, UnaryOperator<ObjectWriter>> customizers = new ConcurrentHashMap<>();
+
+    private static final AtomicLong cacheHits = new AtomicLong();
+    private static final AtomicLong cacheMisses = new AtomicLong();
+
+    private LeafletSerializer() {
+    }
+
+    /**
+     * Registers a customizer for the writer of the given class and its
+     * subclasses. The customizer of the closest superclass is applied. It has to
+     * be registered before the first object of the class is serialized.
+     *
+     * @param type
+     *            the class to customize
+     * @param customizer
+     *            the function which returns the customized writer
+     */
+    public static void registerCustomizer(Class<?> type, UnaryOperator<ObjectWriter> customizer) {
+        customizers.put(type, customizer);
+        writers.keySet().removeIf(type::isAssignableFrom);
+    }
+
+    /**
+     * Returns the cached writer of the given class.
+     *
+     * @param type
+     *            the class to be serialized
+     * @return the writer of the given class
+     */
+    public static ObjectWriter writerFor(Class<?> type) {
+        ObjectWriter writer = writers.get(type);
+        if (writer != null) {
+            cacheHits.incrementAndGet();
+            return writer;
+        }
+        cacheMisses.incrementAndGet();
+        return writers.computeIfAbsent(type, LeafletSerializer::createWriter);
+    }
+
+    /**
+     * Returns the cached reader of the given class.
+     *
+     * @param type
+     *            the class to be deserialized
+     * @return the reader of the given class
+     */
+    public static ObjectReader readerFor(Class<?> type) {
+        ObjectReader reader = readers.get(type);
+        if (reader != null) {
+            cacheHits.incrementAndGet();
+            return reader;
+        }
+        cacheMisses.incrementAndGet();
+        return readers.computeIfAbsent(type, OBJECT_MAPPER::readerFor);
+    }
+
+    private static ObjectWriter createWriter(Class<?> type) {
+        ObjectWriter writer = OBJECT_MAPPER.writerFor(type);
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            UnaryOperator<ObjectWriter> customizer = customizers.get(current);
+            if (customizer != null) {
+                return customizer.apply(writer);
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Serializes the given value to JSON string.
+     *
+     * @param value
+     *            the value to serialize
+     * @return the JSON string
+     * @throws IOException
+     *             if the value cannot be serialized
+     */
+    public static String toJson(Object value) throws IOException {
+        if (value == null) {
+            return "null";
+        }
+        return writerFor(value.getClass()).writeValueAsString(value);
+    }
+
+    /**
+     * Serializes the given value to an elemental {@link JsonValue} in one pass,
+     * without rendering it as text or building a Jackson tree first.
+     *
+     * @param value
+     *            the value to serialize
+     * @return the JSON value
+     * @throws IOException
+     *             if the value cannot be serialized
+     */
+    public static JsonValue toJsonValue(Object value) throws IOException {
+        if (value == null) {
+            return Json.createNull();
+        }
+        JsonValueGenerator generator = new JsonValueGenerator(OBJECT_MAPPER);
+        writerFor(value.getClass()).writeValue(generator, value);
+        return generator.getValue();
+    }
+
+    /**
+     * Serializes the given values to an elemental {@link JsonArray} in one pass.
+     *
+     * @param values
+     *            the values to serialize
+     * @return the JSON array
+     * @throws IOException
+     *             if any of the values cannot be serialized
+     */
+    public static JsonArray toJsonValue(Object[] values) throws IOException {
+        JsonArray array = Json.createArray();
+        if (values != null) {
+            for (int i = 0; i < values.length; i++) {
+                array.set(i, toJsonValue(values[i]));
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Returns the number of serializer lookups served from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public static long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Returns the number of serializer lookups which had to build a new
+     * serializer.
+     *
+     * @return the number of cache misses
+     */
+    public static long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+}
@@ -0,0 +1,90 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.types;
+
+/**
+ * Immutable geographical point, which can be used as a key of caches and sets.
+ * <p>
+ * Two immutable points are equal if their latitude, longitude and altitude are
+ * equal. The setters throw {@link UnsupportedOperationException}.
+ * 
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-12
+ * @version 1.0
+ * @see LatLng#toImmutable()
+ */
+public final class ImmutableLatLng extends LatLng {
+
+    private static final long serialVersionUID = -6120775096512395463L;
+
+    public ImmutableLatLng(double lat, double lng) {
+        this(lat, lng, 0);
+    }
+
+    public ImmutableLatLng(double lat, double lng, double altitude) {
+        super(lat, lng, altitude);
+    }
+
+    public static ImmutableLatLng of(double lat, double lng) {
+        return new ImmutableLatLng(lat, lng);
+    }
+
+    @Override
+    public String getLeafletType() {
+        return LatLng.class.getSimpleName();
+    }
+
+    @Override
+    public void setLat(Double lat) {
+        throw new UnsupportedOperationException("The latitude of an immutable point cannot be changed");
+    }
+
+    @Override
+    public void setLng(Double lng) {
+        throw new UnsupportedOperationException("The longitude of an immutable point cannot be changed");
+    }
+
+    @Override
+    public void setAltitude(double altitude) {
+        throw new UnsupportedOperationException("The altitude of an immutable point cannot be changed");
+    }
+
+    @Override
+    public ImmutableLatLng toImmutable() {
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ImmutableLatLng)) {
+            return false;
+        }
+        ImmutableLatLng other = (ImmutableLatLng) obj;
+        return Double.compare(lat(), other.lat()) == 0 && Double.compare(lng(), other.lng()) == 0
+                && Double.compare(getAltitude(), other.getAltitude()) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Double.hashCode(lat());
+        result = 31 * result + Double.hashCode(lng());
+        return 31 * result + Double.hashCode(getAltitude());
+    }
+
+}
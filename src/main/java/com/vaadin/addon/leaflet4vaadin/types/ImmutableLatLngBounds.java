@@ -0,0 +1,93 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.types;
+
+import java.util.List;
+
+/**
+ * Immutable rectangular geographical area, which can be used as a key of
+ * caches and sets.
+ * <p>
+ * Two immutable bounds are equal if their corners are equal. The setters and
+ * the extend methods throw {@link UnsupportedOperationException}.
+ * 
+ * @author <strong>Gabor Kokeny</strong> Email:
+ *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
+ * @since 2020-06-12
+ * @version 1.0
+ * @see LatLngBounds#toImmutable()
+ */
+public final class ImmutableLatLngBounds extends LatLngBounds {
+
+    private static final long serialVersionUID = 2753021569730367024L;
+
+    public ImmutableLatLngBounds(double south, double west, double north, double east) {
+        super();
+        initCorners(new ImmutableLatLng(south, west), new ImmutableLatLng(north, east));
+    }
+
+    @Override
+    public String getLeafletType() {
+        return LatLngBounds.class.getSimpleName();
+    }
+
+    @Override
+    public void setSouthWest(LatLng southWest) {
+        throw new UnsupportedOperationException("Immutable bounds cannot be changed");
+    }
+
+    @Override
+    public void setNorthEast(LatLng northEast) {
+        throw new UnsupportedOperationException("Immutable bounds cannot be changed");
+    }
+
+    @Override
+    public void extend(List<LatLng> latlngs) {
+        throw new UnsupportedOperationException("Immutable bounds cannot be changed");
+    }
+
+    @Override
+    public void extend(double lat, double lng) {
+        throw new UnsupportedOperationException("Immutable bounds cannot be changed");
+    }
+
+    @Override
+    public void extend(LatLngBounds bounds) {
+        throw new UnsupportedOperationException("Immutable bounds cannot be changed");
+    }
+
+    @Override
+    public ImmutableLatLngBounds toImmutable() {
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ImmutableLatLngBounds)) {
+            return false;
+        }
+        ImmutableLatLngBounds other = (ImmutableLatLngBounds) obj;
+        return getSouthWest().equals(other.getSouthWest()) && getNorthEast().equals(other.getNorthEast());
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * getSouthWest().hashCode() + getNorthEast().hashCode();
+    }
+
+}
@@ -21,7 +21,7 @@ package com.vaadin.addon.leaflet4vaadin.types;
  * @author <strong>Gabor Kokeny</strong> Email:
  *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
  * @since 2020-03-21
- * @version 1.0
+ * @version 1.1
  */
 public class LatLng implements BasicType {
     private static final long serialVersionUID = 8519525431224154852L;
@@ -42,6 +42,24 @@ public class LatLng implements BasicType {
         this.altitude = altitude;
     }
 
+    /**
+     * Returns the longitude as a primitive value, without boxing it.
+     * 
+     * @return the longitude
+     */
+    public double lng() {
+        return lng;
+    }
+
+    /**
+     * Returns the latitude as a primitive value, without boxing it.
+     * 
+     * @return the latitude
+     */
+    public double lat() {
+        return lat;
+    }
+
     public Double getLng() {
         return lng;
     }
@@ -66,6 +84,16 @@ public class LatLng implements BasicType {
         this.altitude = altitude;
     }
 
+    /**
+     * Returns an immutable copy of this point, which can be used as a key of
+     * caches and sets.
+     * 
+     * @return the immutable copy of this point
+     */
+    public ImmutableLatLng toImmutable() {
+        return new ImmutableLatLng(lat, lng, altitude);
+    }
+
     @Override
     public String toString() {
         return lat + "," + lng;
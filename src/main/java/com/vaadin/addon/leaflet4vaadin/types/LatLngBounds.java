@@ -28,7 +28,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  * @author <strong>Gabor Kokeny</strong> Email:
  *         <a href='mailto=kokeny19@gmail.com'>kokeny19@gmail.com</a>
  * @since 2020-03-21
- * @version 1.0
+ * @version 1.1
  */
 public class LatLngBounds implements BasicType {
     private static final long serialVersionUID = -7421430446913242834L;
@@ -50,8 +50,33 @@ public class LatLngBounds implements BasicType {
     }
 
     public LatLngBounds(LatLng latlng) {
-        southWest = new LatLng(latlng.getLat(), latlng.getLng());
-        northEast = new LatLng(latlng.getLat(), latlng.getLng());
+        southWest = new LatLng(latlng.lat(), latlng.lng());
+        northEast = new LatLng(latlng.lat(), latlng.lng());
+    }
+
+    /**
+     * Creates the bounds of the given edges.
+     * 
+     * @param south
+     *            the south latitude
+     * @param west
+     *            the west longitude
+     * @param north
+     *            the north latitude
+     * @param east
+     *            the east longitude
+     */
+    public LatLngBounds(double south, double west, double north, double east) {
+        southWest = new LatLng(south, west);
+        northEast = new LatLng(north, east);
+    }
+
+    /**
+     * Sets the corners without the checks of the subclasses.
+     */
+    final void initCorners(LatLng southWest, LatLng northEast) {
+        this.southWest = southWest;
+        this.northEast = northEast;
     }
 
     /**
@@ -115,7 +140,7 @@ public class LatLngBounds implements BasicType {
      */
     @JsonIgnore
     public double getWest() {
-        return this.southWest.getLng();
+        return this.southWest.lng();
     }
 
     /**
@@ -125,7 +150,7 @@ public class LatLngBounds implements BasicType {
      */
     @JsonIgnore
     public double getSouth() {
-        return this.southWest.getLat();
+        return this.southWest.lat();
     }
 
     /**
@@ -135,7 +160,7 @@ public class LatLngBounds implements BasicType {
      */
     @JsonIgnore
     public double getEast() {
-        return this.northEast.getLng();
+        return this.northEast.lng();
     }
 
     /**
@@ -145,7 +170,7 @@ public class LatLngBounds implements BasicType {
      */
     @JsonIgnore
     public double getNorth() {
-        return this.northEast.getLat();
+        return this.northEast.lat();
     }
 
     /**
@@ -155,8 +180,8 @@ public class LatLngBounds implements BasicType {
      */
     @JsonIgnore
     public LatLng getCenter() {
-        double lat = (this.southWest.getLat() + this.northEast.getLat()) / 2;
-        double lon = (this.southWest.getLng() + this.northEast.getLng()) / 2;
+        double lat = (this.southWest.lat() + this.northEast.lat()) / 2;
+        double lon = (this.southWest.lng() + this.northEast.lng()) / 2;
         return new LatLng(lat, lon);
     }
 
@@ -166,22 +191,58 @@ public class LatLngBounds implements BasicType {
 
     public void extend(List<LatLng> latlngs) {
         if (latlngs != null && !latlngs.isEmpty()) {
-            LatLng latLng = latlngs.get(0);
-            if (northEast == null) {
-                northEast = new LatLng(latLng.getLat(), latLng.getLng());
-            }
-            if (southWest == null) {
-                southWest = new LatLng(latLng.getLat(), latLng.getLng());
-            }
+            LatLng first = latlngs.get(0);
+            double south = southWest != null ? southWest.lat() : first.lat();
+            double west = southWest != null ? southWest.lng() : first.lng();
+            double north = northEast != null ? northEast.lat() : first.lat();
+            double east = northEast != null ? northEast.lng() : first.lng();
             for (LatLng latlng : latlngs) {
-                northEast.setLat(Math.max(northEast.getLat(), latlng.getLat()));
-                northEast.setLng(Math.max(northEast.getLng(), latlng.getLng()));
-                southWest.setLat(Math.min(southWest.getLat(), latlng.getLat()));
-                southWest.setLng(Math.min(southWest.getLng(), latlng.getLng()));
+                double lat = latlng.lat();
+                double lng = latlng.lng();
+                south = Math.min(south, lat);
+                west = Math.min(west, lng);
+                north = Math.max(north, lat);
+                east = Math.max(east, lng);
             }
+            setEdges(south, west, north, east);
         }
     }
 
+    /**
+     * Extends the bounds to contain the given point.
+     * 
+     * @param lat
+     *            the latitude of the point
+     * @param lng
+     *            the longitude of the point
+     */
+    public void extend(double lat, double lng) {
+        if (southWest == null || northEast == null) {
+            setEdges(lat, lng, lat, lng);
+        } else {
+            setEdges(Math.min(southWest.lat(), lat), Math.min(southWest.lng(), lng), Math.max(northEast.lat(), lat), Math.max(northEast.lng(), lng));
+        }
+    }
+
+    private void setEdges(double south, double west, double north, double east) {
+        if (southWest == null || southWest.lat() != south || southWest.lng() != west) {
+            southWest = new LatLng(south, west);
+        }
+        if (northEast == null || northEast.lat() != north || northEast.lng() != east) {
+            northEast = new LatLng(north, east);
+        }
+    }
+
+    /**
+     * Returns an immutable copy of these bounds, which can be used as a key of
+     * caches and sets.
+     * 
+     * @return the immutable copy of the bounds
+     */
+    public ImmutableLatLngBounds toImmutable() {
+        return new ImmutableLatLngBounds(getSouth(), getWest(), getNorth(), getEast());
+    }
+
     @Override
     public String toString() {
         return ToStringBuilder.reflectionToString(this);
@@ -194,17 +255,13 @@ public class LatLngBounds implements BasicType {
      *            the bounds
      */
     public void extend(LatLngBounds bounds) {
-        if (bounds != null) {
-            if (northEast == null) {
-                northEast = new LatLng(bounds.getNorth(), bounds.getEast());
-            }
-            if (southWest == null) {
-                southWest = new LatLng(bounds.getSouth(), bounds.getWest());
+        if (bounds != null && bounds.southWest != null && bounds.northEast != null) {
+            if (southWest == null || northEast == null) {
+                setEdges(bounds.getSouth(), bounds.getWest(), bounds.getNorth(), bounds.getEast());
+            } else {
+                setEdges(Math.min(getSouth(), bounds.getSouth()), Math.min(getWest(), bounds.getWest()), Math.max(getNorth(), bounds.getNorth()),
+                        Math.max(getEast(), bounds.getEast()));
             }
-            northEast.setLat(Math.max(northEast.getLat(), bounds.getSouthWest().getLat()));
-            northEast.setLng(Math.max(northEast.getLng(), bounds.getSouthWest().getLng()));
-            southWest.setLat(Math.min(southWest.getLat(), bounds.getNorthEast().getLat()));
-            southWest.setLng(Math.min(southWest.getLng(), bounds.getNorthEast().getLng()));
         }
     }
 
@@ -82,6 +82,9 @@ class LeafletMap extends ThemableMixin(PolymerElement) {
     this.leafletConverter = new LeafletTypeConverter();
     console.log("LeafletMap - ready() using converter", this.leafletConverter);
 
+    // all the layers created on the client side by their uuid
+    this.layerRegistry = new Map();
+
     // init leaflet map
     let map = this.toLeafletMap(this.mapOptions);
     this.map = map;
@@ -97,9 +100,11 @@ class LeafletMap extends ThemableMixin(PolymerElement) {
       this.mapOptions
     );
     if (!this.mapInitialized) {
+      this.mapInitialized = true;
       this.map.whenReady(() => {
         console.log("LeafletMap - whenReady()");
         this.map.invalidateSize();
+        this._pushViewState();
         this.onMapReadyEventHandler();
       });
     } else {
@@ -109,69 +114,120 @@ class LeafletMap extends ThemableMixin(PolymerElement) {
     }
   }
 
+  /**
+   * Applies the given operations in order. The server side collects all
+   * operations issued during one round-trip and sends them in one call.
+   * A failing operation is logged and does not prevent the later operations
+   * of the batch from being applied.
+   */
+  callLeafletFunctions(operations) {
+    console.info("LeafletMap - callLeafletFunctions()", operations.length);
+    operations.forEach((operation) => {
+      try {
+        this.callLeafletFunction(operation);
+      } catch (error) {
+        console.error(
+          "LeafletMap - callLeafletFunctions() - unable to call " +
+            operation.functionName +
+            " on " +
+            operation.layerId,
+          error
+        );
+      }
+    });
+  }
+
+  /**
+   * Applies the given operations in order and returns their results in the
+   * same order, so the server side can evaluate many functions in one call.
+   * Only the results of the operations marked withResult are returned, the
+   * others (e.g. setters returning the layer itself) are returned as null.
+   */
+  callLeafletFunctionsWithResults(operations) {
+    console.info(
+      "LeafletMap - callLeafletFunctionsWithResults()",
+      operations.length
+    );
+    return operations.map((operation) => {
+      let result = this.callLeafletFunction(operation);
+      return operation.withResult ? result : null;
+    });
+  }
+
   callLeafletFunction(operation) {
     console.info("LeafletMap - callLeafletFunction()", operation);
 
     let target = this._findTargetLayer(operation);
 
-    let leafletArgs = JSON.parse(operation.arguments);
-    leafletArgs = leafletArgs.map((arg) =>
+    // arguments are received as native JSON array, no need to parse them
+    let leafletArgs = operation.arguments.map((arg) =>
       this.leafletConverter.convert(arg, this)
     );
     //console.log("LeafletMap - callLeafletFunction() - leafletArgs", leafletArgs);
 
+    this._updateLayerRegistry(target, operation.functionName, leafletArgs);
+
     let leafletFn = target[operation.functionName];
     //console.log("LeafletMap - callLeafletFunction() - leafletFn", leafletFn);
 
     let result = leafletFn.apply(target, leafletArgs);
     console.log("LeafletMap - callLeafletFunction() - result", result);
+
+    // coordinates served by a stream resource are set when they are fetched
+    if (operation.functionName === "setLatLngs") {
+      this.leafletConverter._fetchPackedLatLngs(target, {
+        uuid: operation.layerId,
+        latlngs: operation.arguments[0],
+      });
+    }
     return result;
   }
 
   _findTargetLayer(operation) {
-    let target;
     if (this.map.options.uuid === operation.layerId) {
-      target = this.map;
-    } else {
-      if (operation.controlOperation) {
-        target = this.getControl(operation.layerId);
-      } else {
-        target = this.getLayer(operation.layerId);
-      }
+      return this.map;
+    } else if (operation.controlOperation) {
+      return this.getControl(operation.layerId);
     }
+    return this.getLayer(operation.layerId);
+  }
 
-    if (target == null) {
-      target = this._findChildLayer(this.map, operation.layerId);
+  /**
+   * Removes the layers from the registry which are going to be removed by the
+   * given function call.
+   */
+  _updateLayerRegistry(target, functionName, leafletArgs) {
+    if (functionName === "removeLayer") {
+      let layer = leafletArgs[0];
+      this.unregisterLayer(
+        typeof layer === "string" ? this.getLayer(layer) : layer
+      );
+    } else if (functionName === "clearLayers") {
+      target.eachLayer((child) => this.unregisterLayer(child));
+    } else if (functionName === "remove") {
+      this.unregisterLayer(target);
     }
+  }
 
-    return target;
+  registerLayer(layerId, leafletLayer) {
+    this.layerRegistry.set(layerId, leafletLayer);
   }
 
-  _findChildLayer(head, layerId) {
-    if (head.options.uuid === layerId) {
-      return head;
-    }
-    if (head.eachLayer) {
-      let found;
-      head.eachLayer((child) => {
-        if (!found) {
-          found = this._findChildLayer(child, layerId);
-        } else {
-          return found;
-        }
-      });
-      if (found) {
-        return found;
+  unregisterLayer(leafletLayer) {
+    if (leafletLayer && leafletLayer.options) {
+      this.layerRegistry.delete(leafletLayer.options.uuid);
+      if (leafletLayer.eachLayer) {
+        leafletLayer.eachLayer((child) => this.unregisterLayer(child));
       }
     }
   }
 
   hasLayer(layerId) {
-    return this.map._layers && this.getLayer(layerId);
+    return this.layerRegistry.has(layerId);
   }
 
   getLayer(layerId) {
-    return this.map._layers[layerId];
+    return this.layerRegistry.get(layerId) || this.map._layers[layerId];
   }
 
   getControl(controlId) {
@@ -184,16 +240,66 @@ class LeafletMap extends ThemableMixin(PolymerElement) {
     console.log("LeafletMap - using DOM element: {}", mapElement);
     let leafletMap = L.map(mapElement, options);
     leafletMap._controls = [];
+    leafletMap.on("moveend zoomend resize", this._scheduleViewStatePush, this);
     this.events
       .slice()
       .forEach((event) =>
-        this.registerEventListener(leafletMap, event.leafletEvent)
+        this.registerEventListener(
+          leafletMap,
+          event.leafletEvent,
+          this.eventRates && this.eventRates[event.leafletEvent]
+        )
       );
     console.log("LeafletMap - map has been created with options", options);
     return leafletMap;
   }
 
-  registerEventListener(layer, event) {
+  /**
+   * Pushes the snapshot of the map view once, even if more view events are
+   * fired at the same time (e.g. moveend and zoomend after a zoom).
+   */
+  _scheduleViewStatePush() {
+    if (!this._viewStatePushScheduled) {
+      this._viewStatePushScheduled = true;
+      setTimeout(() => {
+        this._viewStatePushScheduled = false;
+        this._pushViewState();
+      });
+    }
+  }
+
+  /**
+   * Sends the snapshot of the map view to the server in a compact array, see
+   * MapViewState.of() on the server side for the order of the values.
+   */
+  _pushViewState() {
+    let center = this.map.getCenter();
+    let bounds = this.map.getBounds();
+    let size = this.map.getSize();
+    let pixelBounds = this.map.getPixelBounds();
+    let pixelOrigin = this.map.getPixelOrigin();
+    this.onViewStateEventHandler({
+      state: [
+        center.lat,
+        center.lng,
+        this.map.getZoom(),
+        bounds.getSouth(),
+        bounds.getWest(),
+        bounds.getNorth(),
+        bounds.getEast(),
+        size.x,
+        size.y,
+        pixelBounds.min.x,
+        pixelBounds.min.y,
+        pixelBounds.max.x,
+        pixelBounds.max.y,
+        pixelOrigin.x,
+        pixelOrigin.y,
+      ],
+    });
+  }
+
+  registerEventListener(layer, event, eventRate) {
     let found = this.getEventMap().find((e) => e.events.indexOf(event) >= 0);
     let eventListener = this.onBaseEventHandler;
     if (found) {
@@ -203,9 +309,140 @@ class LeafletMap extends ThemableMixin(PolymerElement) {
     }
     console.info(
       "LeafletMap - registerEventListener() register listener for event",
-      { event: event }
+      { event: event, eventRate: eventRate }
     );
-    layer.on(event, eventListener, this);
+    layer.on(event, this._applyEventRate(eventListener, eventRate), this);
+  }
+
+  /**
+   * Wraps the given listener according to the rate policy of the event, so
+   * high-frequency events are not sent to the server one by one.
+   */
+  _applyEventRate(listener, eventRate) {
+    if (eventRate && eventRate.mode === "batch") {
+      return this._batchEvents(eventRate);
+    } else if (!eventRate || !(eventRate.wait > 0)) {
+      return listener;
+    }
+    let wait = eventRate.wait;
+    let timeout = null;
+    let lastEvent = null;
+    let lastFired = 0;
+    let fire = () => {
+      timeout = null;
+      lastFired = Date.now();
+      listener.call(this, lastEvent);
+    };
+
+    if (eventRate.mode === "debounce") {
+      return (event) => {
+        lastEvent = event;
+        clearTimeout(timeout);
+        timeout = setTimeout(fire, wait);
+      };
+    } else if (eventRate.mode === "trailing") {
+      return (event) => {
+        lastEvent = event;
+        if (!timeout) {
+          timeout = setTimeout(fire, wait);
+        }
+      };
+    }
+    // throttle: the first event is sent immediately, the last one at the end
+    return (event) => {
+      lastEvent = event;
+      let remaining = wait - (Date.now() - lastFired);
+      if (remaining <= 0 && !timeout) {
+        fire();
+      } else if (!timeout) {
+        timeout = setTimeout(fire, remaining);
+      }
+    };
+  }
+
+  /**
+   * Returns a listener which buffers the events and sends them to the server
+   * in one call when the time window has elapsed or the buffer is full.
+   */
+  _batchEvents(eventRate) {
+    let buffer = [];
+    let timeout = null;
+    let flush = () => {
+      clearTimeout(timeout);
+      timeout = null;
+      let events = buffer;
+      buffer = [];
+      this.onBatchEventHandler({
+        layerId: events[0].target.options.uuid,
+        type: events[0].type,
+        events: events.map((event) => this._toEventData(event)),
+      });
+    };
+    return (event) => {
+      buffer.push(event);
+      if (eventRate.maxSize > 0 && buffer.length >= eventRate.maxSize) {
+        flush();
+      } else if (!timeout) {
+        timeout = setTimeout(flush, eventRate.wait);
+      }
+    };
+  }
+
+  /**
+   * Copies the data of a buffered event which is needed on the server side,
+   * so the rest of the event object is not sent.
+   */
+  _toEventData(event) {
+    let data = {};
+    ["latlng", "oldLatLng"]
+      .filter((key) => event[key])
+      .forEach((key) => (data[key] = { lat: event[key].lat, lng: event[key].lng }));
+    ["layerPoint", "containerPoint"]
+      .filter((key) => event[key])
+      .forEach((key) => (data[key] = { x: event[key].x, y: event[key].y }));
+    ["accuracy", "altitude", "altitudeAccuracy", "heading", "speed", "timestamp"]
+      .filter((key) => typeof event[key] === "number")
+      .forEach((key) => (data[key] = event[key]));
+    if (this._isViewChangeEvent(event)) {
+      data.view = this._toViewData(event.target);
+    }
+    return data;
+  }
+
+  _isViewChangeEvent(event) {
+    return (
+      (event.type === "moveend" || event.type === "zoomend") &&
+      event.target instanceof L.Map
+    );
+  }
+
+  /**
+   * Returns the current view of the given map, which is delivered together
+   * with the moveend and zoomend events.
+   */
+  _toViewData(map) {
+    let center = map.getCenter();
+    let bounds = map.getBounds();
+    let size = map.getSize();
+    return {
+      center: { lat: center.lat, lng: center.lng },
+      zoom: map.getZoom(),
+      bounds: {
+        south: bounds.getSouth(),
+        west: bounds.getWest(),
+        north: bounds.getNorth(),
+        east: bounds.getEast(),
+      },
+      size: { x: size.x, y: size.y },
+    };
+  }
+
+  _onViewChangeEvent(event) {
+    this.onViewChangeEventHandler({
+      layerId: event.target.options.uuid,
+      type: event.type,
+      view: this._toViewData(event.target),
+    });
   }
 
   getEventMap() {
@@ -237,6 +474,11 @@ class LeafletMap extends ThemableMixin(PolymerElement) {
           events: ["zoomanim"],
           handler: this.onZoomAnimEventHandler,
         },
+        {
+          events: ["moveend", "zoomend"],
+          condition: (layer) => layer instanceof L.Map,
+          handler: this._onViewChangeEvent,
+        },
         {
           events: ["dragend"],
           handler: this.onDragEndEventHandler,
@@ -314,6 +556,15 @@ class LeafletMap extends ThemableMixin(PolymerElement) {
   onBaseEventHandler(event) {
     console.info("LeafletMap - onBaseEventHandler()", event);
   }
+  onBatchEventHandler(event) {
+    console.info("LeafletMap - onBatchEventHandler()", event);
+  }
+  onViewStateEventHandler(event) {
+    console.info("LeafletMap - onViewStateEventHandler()", event);
+  }
+  onViewChangeEventHandler(event) {
+    console.info("LeafletMap - onViewChangeEventHandler()", event);
+  }
 }
 
 customElements.define(LeafletMap.is, LeafletMap);
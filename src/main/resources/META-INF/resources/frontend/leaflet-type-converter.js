@@ -40,6 +40,8 @@ export class LeafletTypeConverter {
       "LatLngBounds",
       "Icon",
       "DivIcon",
+      "PackedLatLngs",
+      "EncodedLatLngs",
     ];
   }
 
@@ -78,11 +80,17 @@ export class LeafletTypeConverter {
     }
 
     this._applyOptions(leafletLayer, layer);
+    this._fetchPackedLatLngs(leafletLayer, layer);
+    map.registerLayer(layer.uuid, leafletLayer);
 
     //apply layer event listeners
     if (layer.events) {
       layer.events.forEach((event) =>
-        map.registerEventListener(leafletLayer, event)
+        map.registerEventListener(
+          leafletLayer,
+          event,
+          layer.eventRates && layer.eventRates[event]
+        )
       );
     }
     console.log("LeafletTypeConverter - toLeafletLayer() result", leafletLayer);
@@ -164,6 +172,10 @@ export class LeafletTypeConverter {
       converted = this.toIcon(basicType);
     } else if (basicType.leafletType === "DivIcon") {
       converted = this.toDivIcon(basicType);
+    } else if (basicType.leafletType === "PackedLatLngs") {
+      converted = this.toPackedLatLngs(basicType);
+    } else if (basicType.leafletType === "EncodedLatLngs") {
+      converted = this.toEncodedLatLngs(basicType);
     }
     //console.log("LeafletTypeConverter - convertBasicType() result", converted);
     return converted;
@@ -237,6 +249,120 @@ export class LeafletTypeConverter {
     return L.latLngBounds(corner1, corner2);
   }
 
+  /**
+   * Convert the given binary coordinates to nested Leaflet LatLng arrays.
+   * The coordinates served by a stream resource are fetched after the layer
+   * has been created, until then the layer has no coordinates.
+   */
+  toPackedLatLngs(packed) {
+    if (packed.url) {
+      return [];
+    }
+    const binary = atob(packed.data);
+    const bytes = new Uint8Array(binary.length);
+    for (let i = 0; i < binary.length; i++) {
+      bytes[i] = binary.charCodeAt(i);
+    }
+    return this._decodePackedLatLngs(packed, bytes.buffer);
+  }
+
+  _decodePackedLatLngs(packed, buffer) {
+    // the server writes little-endian values, which is the byte order of the typed arrays on all supported platforms
+    const coordinates =
+      packed.precision === "float32"
+        ? new Float32Array(buffer)
+        : new Float64Array(buffer);
+    const ringOffsets = packed.ringOffsets;
+    const rings = new Array(ringOffsets.length - 1);
+    for (let r = 0; r < rings.length; r++) {
+      const start = ringOffsets[r];
+      const ring = new Array(ringOffsets[r + 1] - start);
+      for (let i = 0; i < ring.length; i++) {
+        ring[i] = new L.LatLng(
+          coordinates[2 * (start + i)],
+          coordinates[2 * (start + i) + 1]
+        );
+      }
+      rings[r] = ring;
+    }
+    const polygonOffsets = packed.polygonOffsets;
+    if (polygonOffsets) {
+      const polygons = new Array(polygonOffsets.length - 1);
+      for (let p = 0; p < polygons.length; p++) {
+        polygons[p] = rings.slice(polygonOffsets[p], polygonOffsets[p + 1]);
+      }
+      return polygons;
+    }
+    return rings.length === 1 ? rings[0] : rings;
+  }
+
+  /**
+   * Convert the given encoded polyline rings to nested Leaflet LatLng arrays
+   */
+  toEncodedLatLngs(encoded) {
+    const factor = Math.pow(10, encoded.precision);
+    const rings = encoded.rings.map((ring) =>
+      this._decodePolyline(ring, factor)
+    );
+    const polygonOffsets = encoded.polygonOffsets;
+    if (polygonOffsets) {
+      const polygons = new Array(polygonOffsets.length - 1);
+      for (let p = 0; p < polygons.length; p++) {
+        polygons[p] = rings.slice(polygonOffsets[p], polygonOffsets[p + 1]);
+      }
+      return polygons;
+    }
+    return rings.length === 1 ? rings[0] : rings;
+  }
+
+  _decodePolyline(encoded, factor) {
+    // the values of 7 digit precision exceed 32 bits, so no bitwise shifts are used on them
+    const latlngs = [];
+    let index = 0;
+    let lat = 0;
+    let lng = 0;
+    const readValue = () => {
+      let result = 0;
+      let multiplier = 1;
+      let chunk;
+      do {
+        chunk = encoded.charCodeAt(index++) - 63;
+        result += (chunk & 0x1f) * multiplier;
+        multiplier *= 32;
+      } while (chunk >= 0x20);
+      return result % 2 ? -(result + 1) / 2 : result / 2;
+    };
+    while (index < encoded.length) {
+      lat += readValue();
+      lng += readValue();
+      latlngs.push(new L.LatLng(lat / factor, lng / factor));
+    }
+    return latlngs;
+  }
+
+  _fetchPackedLatLngs(leafletLayer, layer) {
+    const packed = layer.latlngs;
+    if (packed && packed.leafletType === "PackedLatLngs" && packed.url) {
+      fetch(packed.url, { credentials: "same-origin" })
+        .then((response) => {
+          if (!response.ok) {
+            throw new Error("HTTP " + response.status);
+          }
+          return response.arrayBuffer();
+        })
+        .then((buffer) =>
+          leafletLayer.setLatLngs(this._decodePackedLatLngs(packed, buffer))
+        )
+        .catch((error) =>
+          console.error(
+            "LeafletTypeConverter - unable to fetch the coordinates of layer " +
+              layer.uuid,
+            error
+          )
+        );
+    }
+  }
+
   _applyOptions(layer, options) {
     if (options.tooltip) {
       let leafletTooltip = L.tooltip(options.tooltip).setContent(
@@ -0,0 +1,178 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.cluster;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClusterIndexTest {
+
+    private final Random random = new Random(7);
+
+    private double[] lats;
+    private double[] lngs;
+
+    private ClusterIndex randomIndex(int count, double[] values) {
+        lats = new double[count];
+        lngs = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = random.nextDouble() * 160 - 80;
+            lngs[i] = random.nextDouble() * 360 - 180;
+        }
+        return ClusterIndex.build(lats, lngs, values, new ClusterOptions());
+    }
+
+    private static int countPoints(List<Cluster> clusters) {
+        return clusters.stream().mapToInt(Cluster::getPointCount).sum();
+    }
+
+    @Test
+    public void emptyInput() {
+        ClusterIndex index = ClusterIndex.build(new double[0], new double[0], null, new ClusterOptions());
+        Assert.assertEquals(0, index.getPointCount());
+        for (int zoom = 0; zoom <= 17; zoom++) {
+            Assert.assertTrue(index.getClusters(-180, -90, 180, 90, zoom).isEmpty());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMismatchingArrays() {
+        ClusterIndex.build(new double[2], new double[1], null, new ClusterOptions());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidZoomRange() {
+        ClusterOptions options = new ClusterOptions();
+        options.setMinZoom(10);
+        options.setMaxZoom(5);
+        ClusterIndex.build(new double[0], new double[0], null, options);
+    }
+
+    @Test
+    public void keepsAllPointsOnEveryZoom() {
+        ClusterIndex index = randomIndex(5000, null);
+        int previous = Integer.MAX_VALUE;
+        for (int zoom = 17; zoom >= 0; zoom--) {
+            List<Cluster> clusters = index.getClusters(-180, -90, 180, 90, zoom);
+            Assert.assertEquals(5000, countPoints(clusters));
+            Assert.assertTrue(clusters.size() <= previous);
+            previous = clusters.size();
+        }
+        Assert.assertTrue(previous < 5000);
+    }
+
+    @Test
+    public void rangeQueryMatchesScan() {
+        ClusterIndex index = randomIndex(5000, null);
+        int zoom = index.getMaxZoom() + 1;
+        for (int i = 0; i < 50; i++) {
+            double west = random.nextDouble() * 300 - 180;
+            double south = random.nextDouble() * 120 - 80;
+            double east = west + random.nextDouble() * 60;
+            double north = south + random.nextDouble() * 40;
+            Set<Integer> expected = new HashSet<>();
+            for (int p = 0; p < lats.length; p++) {
+                if (lats[p] >= south && lats[p] <= north && lngs[p] >= west && lngs[p] <= east) {
+                    expected.add(p);
+                }
+            }
+            Set<Integer> actual = new HashSet<>();
+            for (Cluster cluster : index.getClusters(west, south, east, north, zoom)) {
+                Assert.assertFalse(cluster.isCluster());
+                actual.add(cluster.getId());
+            }
+            Assert.assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void queriesAcrossAntimeridian() {
+        ClusterIndex index = ClusterIndex.build(new double[] { 0, 0, 0 }, new double[] { 179.9, -179.9, 0 }, null, new ClusterOptions());
+        Assert.assertEquals(2, index.getClusters(170, -10, -170, 10, 17).size());
+        Assert.assertEquals(2, index.getClusters(170, -10, 190, 10, 17).size());
+        Assert.assertEquals(3, index.getClusters(-200, -10, 200, 10, 17).size());
+    }
+
+    @Test
+    public void clustersNearbyPointsUntilTheyExpand() {
+        ClusterIndex index = ClusterIndex.build(new double[] { 10, 10.001 }, new double[] { 20, 20.001 }, null, new ClusterOptions());
+
+        List<Cluster> clusters = index.getClusters(-180, -90, 180, 90, 0);
+        Assert.assertEquals(1, clusters.size());
+        Cluster cluster = clusters.get(0);
+        Assert.assertTrue(cluster.isCluster());
+        Assert.assertEquals(2, cluster.getPointCount());
+        Assert.assertEquals(10.0005, cluster.getLatLng().lat(), 1e-6);
+        Assert.assertEquals(20.0005, cluster.getLatLng().lng(), 1e-6);
+
+        int expansionZoom = index.getClusterExpansionZoom(cluster.getId());
+        Assert.assertEquals(2, index.getClusters(-180, -90, 180, 90, expansionZoom).size());
+        Assert.assertEquals(1, index.getClusters(-180, -90, 180, 90, expansionZoom - 1).size());
+    }
+
+    @Test
+    public void childrenAndLeavesAddUpToCluster() {
+        ClusterIndex index = randomIndex(3000, null);
+        Set<Integer> leaves = new HashSet<>();
+        for (Cluster cluster : index.getClusters(-180, -90, 180, 90, 2)) {
+            if (cluster.isCluster()) {
+                Assert.assertEquals(cluster.getPointCount(), countPoints(index.getChildren(cluster.getId())));
+                int[] clusterLeaves = index.getLeaves(cluster.getId(), Integer.MAX_VALUE, 0);
+                Assert.assertEquals(cluster.getPointCount(), clusterLeaves.length);
+                for (int leaf : clusterLeaves) {
+                    Assert.assertTrue(leaves.add(leaf));
+                }
+            } else {
+                Assert.assertTrue(leaves.add(cluster.getId()));
+            }
+        }
+        Assert.assertEquals(3000, leaves.size());
+    }
+
+    @Test
+    public void pagesLeaves() {
+        ClusterIndex index = randomIndex(3000, null);
+        Cluster largest = index.getClusters(-180, -90, 180, 90, 0).stream().filter(Cluster::isCluster)
+                .max((a, b) -> Integer.compare(a.getPointCount(), b.getPointCount())).get();
+        int[] all = index.getLeaves(largest.getId(), Integer.MAX_VALUE, 0);
+        int[] page = index.getLeaves(largest.getId(), 10, 5);
+        Assert.assertEquals(10, page.length);
+        for (int i = 0; i < page.length; i++) {
+            Assert.assertEquals(all[i + 5], page[i]);
+        }
+    }
+
+    @Test
+    public void aggregatesValues() {
+        double[] values = { 1, 5, 3 };
+        ClusterIndex index = ClusterIndex.build(new double[] { 10, 10.001, 10.002 }, new double[] { 20, 20.001, 20.002 }, values, new ClusterOptions());
+        Cluster cluster = index.getClusters(-180, -90, 180, 90, 0).get(0);
+        Assert.assertEquals(3, cluster.getPointCount());
+        Assert.assertEquals(9, cluster.getSum(), 0);
+        Assert.assertEquals(1, cluster.getMin(), 0);
+        Assert.assertEquals(5, cluster.getMax(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownCluster() {
+        ClusterIndex index = randomIndex(10, null);
+        index.getChildren(3);
+    }
+}
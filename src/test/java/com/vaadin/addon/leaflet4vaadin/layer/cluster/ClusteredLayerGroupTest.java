@@ -0,0 +1,112 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.cluster;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.vaadin.addon.leaflet4vaadin.layer.Identifiable;
+import com.vaadin.addon.leaflet4vaadin.layer.Layer;
+import com.vaadin.addon.leaflet4vaadin.layer.groups.LayerGroup;
+import com.vaadin.addon.leaflet4vaadin.layer.ui.marker.Marker;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClusteredLayerGroupTest {
+
+    private final List<String> sent = new ArrayList<>();
+    private LayerGroup parent;
+    private Marker first;
+    private Marker second;
+    private ClusteredLayerGroup group;
+
+    @Before
+    public void setUp() {
+        parent = new LayerGroup() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void executeJs(Identifiable target, String functionName, Serializable... arguments) {
+                if (target != this && arguments.length > 0 && arguments[0] instanceof Layer) {
+                    sent.add(functionName + " " + ((Layer) arguments[0]).getUuid());
+                }
+            }
+        };
+        first = new Marker(new LatLng(10, 20));
+        second = new Marker(new LatLng(10.001, 20.001));
+        group = new ClusteredLayerGroup(Arrays.asList(first, second));
+        group.addTo(parent);
+    }
+
+    @Test
+    public void sendsClusterAtLowZoom() {
+        group.updateView(new LatLngBounds(0, 0, 30, 30), 3);
+
+        Assert.assertEquals(1, group.getLayers().size());
+        Assert.assertNotSame(first, group.getLayers().get(0));
+        Assert.assertEquals(1, sent.size());
+    }
+
+    @Test
+    public void replacesClusterWithMarkersWhenZoomedIn() {
+        group.updateView(new LatLngBounds(0, 0, 30, 30), 3);
+        Layer cluster = group.getLayers().get(0);
+
+        group.updateView(new LatLngBounds(9, 19, 11, 21), 17);
+
+        Assert.assertEquals(2, group.getLayers().size());
+        Assert.assertTrue(group.getLayers().contains(first));
+        Assert.assertTrue(group.getLayers().contains(second));
+        Assert.assertFalse(group.hasLayer(cluster.getUuid()));
+        Assert.assertTrue(sent.contains("removeLayer " + cluster.getUuid()));
+    }
+
+    @Test
+    public void keepsLayersAlreadySent() {
+        group.updateView(new LatLngBounds(9, 19, 11, 21), 17);
+        sent.clear();
+
+        group.updateView(new LatLngBounds(9.5, 19.5, 10.5, 20.5), 17);
+
+        Assert.assertTrue(sent.isEmpty());
+    }
+
+    @Test
+    public void forgetsLayersWhenMoved() {
+        group.updateView(new LatLngBounds(9, 19, 11, 21), 17);
+
+        group.addTo(new LayerGroup());
+
+        Assert.assertTrue(group.getLayers().isEmpty());
+    }
+
+    @Test
+    public void returnsMarkersOfCluster() {
+        Cluster cluster = group.getClusterIndex().getClusters(-180, -90, 180, 90, 0).get(0);
+        Assert.assertEquals(2, group.getMarkers(cluster).size());
+        Assert.assertTrue(group.getMarkers(cluster).contains(first));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void rejectsAddingLayers() {
+        group.addLayer(new Marker(new LatLng(0, 0)));
+    }
+}
@@ -0,0 +1,92 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.groups;
+
+import com.vaadin.addon.leaflet4vaadin.layer.ui.marker.Marker;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LayerIndexTest {
+
+    @Test
+    public void emptyGroup() {
+        LayerIndex index = new LayerIndex(new LayerGroup());
+        Assert.assertEquals(0, index.size());
+        Assert.assertFalse(index.find("missing").isPresent());
+    }
+
+    @Test
+    public void indexesExistingNestedLayers() {
+        Marker marker = new Marker(new LatLng(1, 2));
+        Marker nested = new Marker(new LatLng(3, 4));
+        LayerGroup inner = new LayerGroup(nested);
+        LayerGroup root = new LayerGroup(marker, inner);
+
+        LayerIndex index = new LayerIndex(root);
+        Assert.assertEquals(3, index.size());
+        Assert.assertSame(marker, index.find(marker.getUuid()).get());
+        Assert.assertSame(inner, index.find(inner.getUuid()).get());
+        Assert.assertSame(nested, index.find(nested.getUuid()).get());
+    }
+
+    @Test
+    public void followsLayersAddedToNestedGroups() {
+        LayerGroup inner = new LayerGroup();
+        LayerGroup root = new LayerGroup(inner);
+        LayerIndex index = new LayerIndex(root);
+
+        Marker marker = new Marker(new LatLng(1, 2));
+        inner.addLayer(marker);
+        Assert.assertSame(marker, index.find(marker.getUuid()).get());
+        Assert.assertSame(marker, root.findLayer(marker.getUuid()).get());
+    }
+
+    @Test
+    public void removesNestedLayersWithTheirGroup() {
+        Marker nested = new Marker(new LatLng(3, 4));
+        LayerGroup inner = new LayerGroup(nested);
+        LayerGroup root = new LayerGroup(inner);
+        LayerIndex index = new LayerIndex(root);
+
+        root.removeLayer(inner);
+        Assert.assertEquals(0, index.size());
+        Assert.assertFalse(index.find(nested.getUuid()).isPresent());
+
+        // the removed group is not indexed anymore
+        Marker later = new Marker(new LatLng(5, 6));
+        inner.addLayer(later);
+        Assert.assertFalse(index.find(later.getUuid()).isPresent());
+    }
+
+    @Test
+    public void clearLayers() {
+        LayerGroup root = new LayerGroup(new Marker(new LatLng(1, 2)), new LayerGroup(new Marker(new LatLng(3, 4))));
+        LayerIndex index = new LayerIndex(root);
+        root.clearLayers();
+        Assert.assertEquals(0, index.size());
+    }
+
+    @Test
+    public void removeById() {
+        Marker marker = new Marker(new LatLng(1, 2));
+        LayerGroup root = new LayerGroup(marker);
+        LayerIndex index = new LayerIndex(root);
+        root.removeLayer(marker.getUuid());
+        Assert.assertFalse(index.find(marker.getUuid()).isPresent());
+        Assert.assertFalse(root.hasLayer(marker));
+    }
+}
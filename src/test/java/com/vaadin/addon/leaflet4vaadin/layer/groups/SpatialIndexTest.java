@@ -0,0 +1,225 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.groups;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.vaadin.addon.leaflet4vaadin.layer.Layer;
+import com.vaadin.addon.leaflet4vaadin.layer.map.crs.CRS;
+import com.vaadin.addon.leaflet4vaadin.layer.ui.marker.Marker;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.Polyline;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpatialIndexTest {
+
+    private final Random random = new Random(42);
+
+    private List<Marker> randomMarkers(int count) {
+        List<Marker> markers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            markers.add(new Marker(new LatLng(random.nextDouble() * 160 - 80, random.nextDouble() * 360 - 180)));
+        }
+        return markers;
+    }
+
+    private static Set<String> ids(List<? extends Layer> layers) {
+        return layers.stream().map(Layer::getUuid).collect(Collectors.toSet());
+    }
+
+    private static Set<String> scan(List<Marker> markers, double south, double west, double north, double east) {
+        Set<String> result = new HashSet<>();
+        for (Marker marker : markers) {
+            LatLng latLng = marker.getLatLng();
+            boolean inLng = west <= east ? latLng.lng() >= west && latLng.lng() <= east : latLng.lng() >= west || latLng.lng() <= east;
+            if (latLng.lat() >= south && latLng.lat() <= north && inLng) {
+                result.add(marker.getUuid());
+            }
+        }
+        return result;
+    }
+
+    private static double distance(LatLng center, Marker marker) {
+        return CRS.EPSG3857.distance(center, marker.getLatLng());
+    }
+
+    private void assertQueriesMatchScan(SpatialIndex index, List<Marker> markers) {
+        for (int i = 0; i < 50; i++) {
+            double south = random.nextDouble() * 160 - 80;
+            double west = random.nextDouble() * 360 - 180;
+            double north = south + random.nextDouble() * 40;
+            double east = west + random.nextDouble() * 60;
+            Assert.assertEquals(scan(markers, south, west, north, Math.min(east, 180)), ids(index.query(south, west, north, Math.min(east, 180))));
+        }
+    }
+
+    @Test
+    public void emptyIndex() {
+        SpatialIndex index = new SpatialIndex();
+        Assert.assertEquals(0, index.size());
+        Assert.assertTrue(index.query(-90, -180, 90, 180).isEmpty());
+        Assert.assertTrue(index.withinRadius(new LatLng(0, 0), 1000).isEmpty());
+        Assert.assertTrue(index.nearest(new LatLng(0, 0), 5).isEmpty());
+        Assert.assertNull(index.remove("missing"));
+    }
+
+    @Test
+    public void insertsWithSplitsAndMatchesScan() {
+        SpatialIndex index = new SpatialIndex();
+        List<Marker> markers = randomMarkers(2000);
+        markers.forEach(index::insert);
+
+        Assert.assertEquals(2000, index.size());
+        assertQueriesMatchScan(index, markers);
+    }
+
+    @Test
+    public void bulkLoadMatchesScan() {
+        SpatialIndex index = new SpatialIndex();
+        List<Marker> markers = randomMarkers(2000);
+        index.load(markers);
+
+        Assert.assertEquals(2000, index.size());
+        assertQueriesMatchScan(index, markers);
+    }
+
+    @Test
+    public void removesWithCondenseAndMatchesScan() {
+        SpatialIndex index = new SpatialIndex();
+        List<Marker> markers = randomMarkers(2000);
+        markers.forEach(index::insert);
+
+        List<Marker> kept = new ArrayList<>();
+        for (Marker marker : markers) {
+            if (random.nextInt(10) < 8) {
+                Assert.assertTrue(index.remove(marker));
+            } else {
+                kept.add(marker);
+            }
+        }
+
+        Assert.assertEquals(kept.size(), index.size());
+        assertQueriesMatchScan(index, kept);
+        kept.forEach(index::remove);
+        Assert.assertEquals(0, index.size());
+        Assert.assertTrue(index.query(-90, -180, 90, 180).isEmpty());
+    }
+
+    @Test
+    public void reinsertMovesLayer() {
+        SpatialIndex index = new SpatialIndex();
+        Marker marker = new Marker(new LatLng(10, 10));
+        index.insert(marker);
+        marker.setLatLng(new LatLng(-10, -10));
+        index.insert(marker);
+
+        Assert.assertEquals(1, index.size());
+        Assert.assertTrue(index.query(new LatLngBounds(0, 0, 20, 20)).isEmpty());
+        Assert.assertEquals(1, index.query(new LatLngBounds(-20, -20, 0, 0)).size());
+    }
+
+    @Test
+    public void keepsLayersWithoutExtentOutOfQueries() {
+        SpatialIndex index = new SpatialIndex();
+        LayerGroup group = new LayerGroup();
+        index.insert(group);
+
+        Assert.assertEquals(1, index.size());
+        Assert.assertTrue(index.contains(group.getUuid()));
+        Assert.assertEquals(1, index.getUnboundedLayers().size());
+        Assert.assertTrue(index.query(-90, -180, 90, 180).isEmpty());
+    }
+
+    @Test
+    public void queriesPolylineByExtent() {
+        SpatialIndex index = new SpatialIndex();
+        Polyline polyline = new Polyline(new LatLng(0, 0), new LatLng(10, 10));
+        index.insert(polyline);
+
+        Assert.assertEquals(1, index.query(4, 4, 6, 6).size());
+        Assert.assertTrue(index.query(20, 20, 30, 30).isEmpty());
+    }
+
+    @Test
+    public void queriesAcrossAntimeridian() {
+        SpatialIndex index = new SpatialIndex();
+        Marker east = new Marker(new LatLng(0, 179));
+        Marker west = new Marker(new LatLng(0, -179));
+        Marker far = new Marker(new LatLng(0, 0));
+        index.load(Arrays.asList(east, west, far));
+
+        Set<String> expected = ids(Arrays.asList(east, west));
+        Assert.assertEquals(expected, ids(index.query(-10, 170, 10, -170)));
+        Assert.assertEquals(expected, ids(index.query(-10, 170, 10, 190)));
+        Assert.assertEquals(expected, ids(index.query(-10, -190, 10, -170)));
+        Assert.assertEquals(3, index.query(-10, -300, 10, 300).size());
+    }
+
+    @Test
+    public void withinRadiusMatchesScan() {
+        SpatialIndex index = new SpatialIndex();
+        List<Marker> markers = randomMarkers(1000);
+        index.load(markers);
+
+        for (int i = 0; i < 20; i++) {
+            LatLng center = new LatLng(random.nextDouble() * 160 - 80, random.nextDouble() * 360 - 180);
+            double meters = random.nextDouble() * 2_000_000;
+            Set<String> expected = markers.stream().filter(marker -> distance(center, marker) <= meters).map(Layer::getUuid).collect(Collectors.toSet());
+            Assert.assertEquals(expected, ids(index.withinRadius(center, meters)));
+        }
+    }
+
+    @Test
+    public void withinRadiusAcrossAntimeridian() {
+        SpatialIndex index = new SpatialIndex();
+        Marker west = new Marker(new LatLng(0, -179.9));
+        index.insert(west);
+
+        Assert.assertEquals(1, index.withinRadius(new LatLng(0, 179.9), 50_000).size());
+    }
+
+    @Test
+    public void nearestMatchesScan() {
+        SpatialIndex index = new SpatialIndex();
+        List<Marker> markers = randomMarkers(1000);
+        markers.forEach(index::insert);
+
+        for (int i = 0; i < 20; i++) {
+            LatLng center = new LatLng(random.nextDouble() * 160 - 80, random.nextDouble() * 360 - 180);
+            List<String> expected = markers.stream().sorted(Comparator.comparingDouble(marker -> distance(center, marker))).limit(10).map(Layer::getUuid)
+                    .collect(Collectors.toList());
+            List<String> actual = index.nearest(center, 10).stream().map(Layer::getUuid).collect(Collectors.toList());
+            Assert.assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void nearestReturnsAtMostSize() {
+        SpatialIndex index = new SpatialIndex();
+        index.load(randomMarkers(3));
+        Assert.assertEquals(3, index.nearest(new LatLng(0, 0), 10).size());
+        Assert.assertTrue(index.nearest(new LatLng(0, 0), 0).isEmpty());
+    }
+}
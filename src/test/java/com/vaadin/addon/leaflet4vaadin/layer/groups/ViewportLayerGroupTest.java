@@ -0,0 +1,159 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.groups;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vaadin.addon.leaflet4vaadin.layer.Identifiable;
+import com.vaadin.addon.leaflet4vaadin.layer.Layer;
+import com.vaadin.addon.leaflet4vaadin.layer.ui.marker.Marker;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ViewportLayerGroupTest {
+
+    private final List<String> sent = new ArrayList<>();
+    private ViewportLayerGroup group;
+
+    @Before
+    public void setUp() {
+        LayerGroup parent = new LayerGroup() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void executeJs(Identifiable target, String functionName, Serializable... arguments) {
+                if (target != this && arguments.length > 0 && arguments[0] instanceof Layer) {
+                    sent.add(functionName + " " + ((Layer) arguments[0]).getUuid());
+                }
+            }
+        };
+        group = new ViewportLayerGroup();
+        group.setBuffer(0);
+        group.addTo(parent);
+    }
+
+    private Marker marker(double lat, double lng) {
+        Marker marker = new Marker(new LatLng(lat, lng));
+        group.addLayer(marker);
+        return marker;
+    }
+
+    @Test
+    public void sendsNothingWithoutViewport() {
+        marker(1, 1);
+        Assert.assertTrue(sent.isEmpty());
+        Assert.assertEquals(1, group.getIndexedLayers().size());
+        Assert.assertEquals(0, group.getClientLayerCount());
+    }
+
+    @Test
+    public void sendsOnlyLayersAroundViewport() {
+        Marker inside = marker(1, 1);
+        Marker outside = marker(50, 50);
+
+        group.updateViewport(new LatLngBounds(0, 0, 10, 10));
+
+        Assert.assertEquals(1, group.getClientLayerCount());
+        Assert.assertTrue(sent.contains("addLayer " + inside.getUuid()));
+        Assert.assertFalse(sent.contains("addLayer " + outside.getUuid()));
+        Assert.assertTrue(group.hasLayer(outside.getUuid()));
+    }
+
+    @Test
+    public void sendsLayerAddedInViewport() {
+        group.updateViewport(new LatLngBounds(0, 0, 10, 10));
+        Marker inside = marker(1, 1);
+        marker(50, 50);
+
+        Assert.assertEquals(1, group.getClientLayerCount());
+        Assert.assertEquals("addLayer " + inside.getUuid(), sent.get(0));
+    }
+
+    @Test
+    public void capsLayersSentForOneView() {
+        group.setMaxVisibleLayers(3);
+        Marker center = marker(5, 5);
+        for (int i = 0; i < 10; i++) {
+            marker(0.5 + i * 0.1, 0.5);
+        }
+
+        group.updateViewport(new LatLngBounds(0, 0, 10, 10));
+
+        Assert.assertEquals(3, group.getClientLayerCount());
+        Assert.assertTrue(sent.contains("addLayer " + center.getUuid()));
+
+        marker(1, 1);
+        Assert.assertEquals(3, group.getClientLayerCount());
+    }
+
+    @Test
+    public void sendsLayersOnBothSidesOfAntimeridian() {
+        Marker east = marker(0, 175);
+        Marker west = marker(0, -175);
+        Marker outside = marker(0, 0);
+
+        group.updateViewport(new LatLngBounds(-10, 170, 10, -170));
+
+        Assert.assertEquals(2, group.getClientLayerCount());
+        Assert.assertTrue(sent.contains("addLayer " + east.getUuid()));
+        Assert.assertTrue(sent.contains("addLayer " + west.getUuid()));
+        Assert.assertFalse(sent.contains("addLayer " + outside.getUuid()));
+    }
+
+    @Test
+    public void sendsLayerAddedAcrossAntimeridian() {
+        group.updateViewport(new LatLngBounds(-10, 170, 10, 190));
+        Marker west = marker(0, -175);
+        Marker east = marker(0, 175);
+        marker(0, 0);
+
+        Assert.assertEquals(2, group.getClientLayerCount());
+        Assert.assertEquals("addLayer " + west.getUuid(), sent.get(0));
+        Assert.assertEquals("addLayer " + east.getUuid(), sent.get(1));
+    }
+
+    @Test
+    public void evictsOffScreenLayersAboveHighWaterMark() {
+        group.setHighWaterMark(2);
+        Marker first = marker(1, 1);
+        marker(2, 2);
+        Marker far = marker(50, 50);
+
+        group.updateViewport(new LatLngBounds(0, 0, 10, 10));
+        group.updateViewport(new LatLngBounds(45, 45, 55, 55));
+
+        Assert.assertEquals(2, group.getClientLayerCount());
+        Assert.assertTrue(sent.contains("addLayer " + far.getUuid()));
+        Assert.assertTrue(sent.contains("removeLayer " + first.getUuid()));
+    }
+
+    @Test
+    public void removesLayerFromIndexAndClient() {
+        Marker marker = marker(1, 1);
+        group.updateViewport(new LatLngBounds(0, 0, 10, 10));
+
+        group.removeLayer(marker);
+
+        Assert.assertFalse(group.hasLayer(marker.getUuid()));
+        Assert.assertEquals(0, group.getClientLayerCount());
+        Assert.assertTrue(sent.contains("removeLayer " + marker.getUuid()));
+    }
+}
@@ -0,0 +1,123 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.map.crs;
+
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+import com.vaadin.addon.leaflet4vaadin.types.Point;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CRSTest {
+
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void mercatorMatchesLeaflet() {
+        // L.CRS.EPSG3857.latLngToPoint(L.latLng(51.5, -0.09), 13)
+        Point point = CRS.EPSG3857.latLngToPoint(new LatLng(51.5, -0.09), 13);
+        Assert.assertEquals(1048051.712, point.getX(), 1e-3);
+        Assert.assertEquals(697425.819, point.getY(), 1e-3);
+    }
+
+    @Test
+    public void mercatorRoundTrip() {
+        for (double zoom = 0; zoom <= 18; zoom += 4.5) {
+            LatLng latLng = CRS.EPSG3857.pointToLatLng(CRS.EPSG3857.latLngToPoint(new LatLng(-33.86, 151.2), zoom), zoom);
+            Assert.assertEquals(-33.86, latLng.lat(), DELTA);
+            Assert.assertEquals(151.2, latLng.lng(), DELTA);
+        }
+    }
+
+    @Test
+    public void mercatorClampsPoles() {
+        Point pole = CRS.EPSG3857.project(new LatLng(90, 0));
+        Point max = CRS.EPSG3857.project(new LatLng(Projection.SphericalMercator.MAX_LATITUDE, 0));
+        Assert.assertEquals(max.getY(), pole.getY(), DELTA);
+    }
+
+    @Test
+    public void lonLatAtZoomZero() {
+        Point point = CRS.EPSG4326.latLngToPoint(new LatLng(0, 0), 0);
+        Assert.assertEquals(256, point.getX(), DELTA);
+        Assert.assertEquals(128, point.getY(), DELTA);
+    }
+
+    @Test
+    public void simpleIsFlipped() {
+        Point point = CRS.SIMPLE.latLngToPoint(new LatLng(10, 20), 1);
+        Assert.assertEquals(40, point.getX(), DELTA);
+        Assert.assertEquals(-20, point.getY(), DELTA);
+        Assert.assertTrue(CRS.SIMPLE.isInfinite());
+        Assert.assertEquals(5, CRS.SIMPLE.distance(new LatLng(0, 0), new LatLng(3, 4)), DELTA);
+    }
+
+    @Test
+    public void scaleAndZoomAreInverse() {
+        Assert.assertEquals(256 * 8, CRS.EPSG3857.scale(3), DELTA);
+        Assert.assertEquals(3, CRS.EPSG3857.zoom(CRS.EPSG3857.scale(3)), DELTA);
+        Assert.assertEquals(2.5, CRS.EPSG3857.zoom(CRS.EPSG3857.scale(2.5)), DELTA);
+    }
+
+    @Test
+    public void bulkConversionMatchesSingle() {
+        double[] latLngs = { 51.5, -0.09, -33.86, 151.2, 0, 179.99 };
+        double[] points = CRS.EPSG3857.latLngsToPoints(latLngs, 7);
+        for (int i = 0; i < latLngs.length; i += 2) {
+            Point point = CRS.EPSG3857.latLngToPoint(new LatLng(latLngs[i], latLngs[i + 1]), 7);
+            Assert.assertEquals(point.getX(), points[i], DELTA);
+            Assert.assertEquals(point.getY(), points[i + 1], DELTA);
+        }
+        double[] back = new double[latLngs.length];
+        CRS.EPSG3857.pointsToLatLngs(points, 7, back);
+        Assert.assertArrayEquals(latLngs, back, DELTA);
+    }
+
+    @Test
+    public void bulkConversionOfEmptyArray() {
+        Assert.assertEquals(0, CRS.EPSG3857.latLngsToPoints(new double[0], 3).length);
+        Assert.assertEquals(0, CRS.EPSG3857.pointsToLatLngs(new double[0], 3).length);
+    }
+
+    @Test
+    public void distanceAcrossAntimeridian() {
+        double distance = CRS.EPSG3857.distance(new LatLng(0, 179), new LatLng(0, -179));
+        Assert.assertEquals(6371000 * 2 * Math.PI / 180, distance, 1e-3);
+    }
+
+    @Test
+    public void wrapLatLng() {
+        Assert.assertEquals(-170, CRS.EPSG3857.wrapLatLng(new LatLng(10, 190)).lng(), DELTA);
+        // like Leaflet, the maximum itself is not wrapped
+        Assert.assertEquals(180, CRS.EPSG3857.wrapLatLng(new LatLng(10, 180)).lng(), DELTA);
+        Assert.assertEquals(170, CRS.EPSG3857.wrapLatLng(new LatLng(10, -550)).lng(), DELTA);
+        Assert.assertEquals(10, CRS.EPSG3857.wrapLatLng(new LatLng(10, 190)).lat(), DELTA);
+        Assert.assertEquals(190, CRS.SIMPLE.wrapLatLng(new LatLng(10, 190)).lng(), DELTA);
+    }
+
+    @Test
+    public void wrapLatLngBoundsAcrossAntimeridian() {
+        LatLngBounds bounds = new LatLngBounds(-10, 170, 10, 200);
+        LatLngBounds wrapped = CRS.EPSG3857.wrapLatLngBounds(bounds);
+        Assert.assertEquals(-190, wrapped.getWest(), DELTA);
+        Assert.assertEquals(-160, wrapped.getEast(), DELTA);
+        Assert.assertEquals(-10, wrapped.getSouth(), DELTA);
+        Assert.assertEquals(10, wrapped.getNorth(), DELTA);
+
+        LatLngBounds inside = new LatLngBounds(-10, 10, 10, 20);
+        Assert.assertSame(inside, CRS.EPSG3857.wrapLatLngBounds(inside));
+    }
+}
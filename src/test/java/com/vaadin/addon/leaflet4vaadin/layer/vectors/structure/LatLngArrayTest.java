@@ -0,0 +1,102 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.vectors.structure;
+
+import java.util.ListIterator;
+
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.MultiPolygon.MultiPolygonStructure;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatLngArrayTest {
+
+    private static void assertBounds(LatLngBounds bounds, double south, double west, double north, double east) {
+        Assert.assertEquals(south, bounds.getSouth(), 0);
+        Assert.assertEquals(west, bounds.getWest(), 0);
+        Assert.assertEquals(north, bounds.getNorth(), 0);
+        Assert.assertEquals(east, bounds.getEast(), 0);
+    }
+
+    @Test
+    public void emptyStructures() {
+        Assert.assertNull(new LatLngArray(new LatLng[0]).getBounds().getSouthWest());
+        Assert.assertNull(new MultiLatLngArray().getBounds().getSouthWest());
+        Assert.assertNull(new MultiPolygonStructure().getBounds().getSouthWest());
+    }
+
+    @Test
+    public void bounds() {
+        LatLngArray ring = new LatLngArray(new LatLng[] { new LatLng(1, 8), new LatLng(-3, 4), new LatLng(2, -5) });
+        assertBounds(ring.getBounds(), -3, -5, 2, 8);
+    }
+
+    @Test
+    public void inPlacePointChangeIsReflected() {
+        LatLng point = new LatLng(3, 4);
+        LatLngArray ring = new LatLngArray(new LatLng[] { new LatLng(1, 2), point });
+        assertBounds(ring.getBounds(), 1, 2, 3, 4);
+
+        point.setLat(5d);
+        point.setLng(6d);
+        assertBounds(ring.getBounds(), 1, 2, 5, 6);
+    }
+
+    @Test
+    public void nestedChangesAreReflected() {
+        LatLng point = new LatLng(3, 4);
+        LatLngArray ring = new LatLngArray(new LatLng[] { new LatLng(1, 2), point });
+        MultiLatLngArray polygon = new MultiLatLngArray();
+        polygon.add(ring);
+        MultiPolygonStructure structure = new MultiPolygonStructure();
+        structure.add(polygon);
+        assertBounds(structure.getBounds(), 1, 2, 3, 4);
+
+        point.setLat(7d);
+        assertBounds(polygon.getBounds(), 1, 2, 7, 4);
+        ring.add(new LatLng(-1, 8));
+        assertBounds(structure.getBounds(), -1, 2, 7, 8);
+    }
+
+    @Test
+    public void returnedBoundsAreNotShared() {
+        LatLngArray ring = new LatLngArray(new LatLng[] { new LatLng(1, 2), new LatLng(3, 4) });
+        ring.getBounds().extend(new LatLng(10, 10));
+        assertBounds(ring.getBounds(), 1, 2, 3, 4);
+    }
+
+    @Test
+    public void listIteratorSetIsNotStructuralChange() {
+        LatLngArray ring = new LatLngArray(new LatLng[] { new LatLng(1, 2), new LatLng(3, 4), new LatLng(5, 6) });
+        ListIterator<LatLng> iterator = ring.listIterator();
+        iterator.next();
+        iterator.set(new LatLng(-1, -2));
+        Assert.assertEquals(3, iterator.next().lat(), 0);
+        iterator.set(new LatLng(9, 9));
+        Assert.assertEquals(5, iterator.next().lat(), 0);
+        assertBounds(ring.getBounds(), -1, -2, 9, 9);
+
+        MultiLatLngArray polygon = new MultiLatLngArray();
+        polygon.add(ring);
+        polygon.add(new LatLngArray(new LatLng[] { new LatLng(0, 0) }));
+        ListIterator<LatLngArray> rings = polygon.listIterator();
+        rings.next();
+        rings.set(new LatLngArray(new LatLng[] { new LatLng(20, 20) }));
+        Assert.assertEquals(1, rings.next().size());
+        assertBounds(polygon.getBounds(), 0, 0, 20, 20);
+    }
+}
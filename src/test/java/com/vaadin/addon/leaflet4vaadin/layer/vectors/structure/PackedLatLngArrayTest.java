@@ -0,0 +1,324 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.layer.vectors.structure;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Base64;
+
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.MultiPolygon.MultiPolygonStructure;
+import com.vaadin.addon.leaflet4vaadin.serialization.LeafletSerializer;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+import com.vaadin.addon.leaflet4vaadin.types.LatLngBounds;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.server.VaadinSession;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PackedLatLngArrayTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @After
+    public void tearDown() {
+        PackedLatLngArray.setInlineLimit(PackedLatLngArray.DEFAULT_INLINE_LIMIT);
+        VaadinSession.setCurrent(null);
+    }
+
+    private static VaadinSession lockedSession() {
+        VaadinSession session = new VaadinSession(null) {
+            @Override
+            public boolean hasLock() {
+                return true;
+            }
+
+            @Override
+            public void lock() {
+            }
+
+            @Override
+            public void unlock() {
+            }
+        };
+        VaadinSession.setCurrent(session);
+        return session;
+    }
+
+    private static byte[] fetch(VaadinSession session, String url) throws IOException {
+        StreamResource resource = (StreamResource) session.getResourceRegistry().getResource(URI.create(url)).get();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        resource.getWriter().accept(bytes, session);
+        return bytes.toByteArray();
+    }
+
+    private static LatLngArray ring(double... latlngs) {
+        LatLng[] vertices = new LatLng[latlngs.length / 2];
+        for (int i = 0; i < vertices.length; i++) {
+            vertices[i] = new LatLng(latlngs[2 * i], latlngs[2 * i + 1]);
+        }
+        return new LatLngArray(vertices);
+    }
+
+    @Test
+    public void emptyGeometry() throws IOException {
+        PackedLatLngArray packed = PackedLatLngArray.of();
+        Assert.assertTrue(packed.isEmpty());
+        Assert.assertEquals(0, packed.getVertexCount());
+        Assert.assertEquals(1, packed.getRingCount());
+        Assert.assertEquals(0, packed.toByteArray().length);
+        Assert.assertNull(packed.getBounds().getSouthWest());
+        Assert.assertEquals("[]", LeafletSerializer.toJson(packed));
+    }
+
+    @Test
+    public void singleRing() throws IOException {
+        PackedLatLngArray packed = PackedLatLngArray.of(1, 2, 3, 4);
+        Assert.assertEquals(2, packed.getVertexCount());
+        Assert.assertEquals(1, packed.getRingCount());
+        Assert.assertEquals(0, packed.getPolygonCount());
+        Assert.assertEquals(3, packed.getLat(1), 0);
+        Assert.assertEquals(4, packed.getLng(1), 0);
+        Assert.assertEquals(new LatLng(1, 2).toString(), packed.getLatLng(0).toString());
+        Assert.assertEquals("[[1.0,2.0],[3.0,4.0]]", LeafletSerializer.toJson(packed));
+    }
+
+    @Test
+    public void rings() throws IOException {
+        PackedLatLngArray packed = PackedLatLngArray.ofRings(new double[] { 1, 2, 3, 4, 5, 6 }, new int[] { 0, 2 });
+        Assert.assertEquals(2, packed.getRingCount());
+        Assert.assertEquals(0, packed.getRingStart(0));
+        Assert.assertEquals(2, packed.getRingEnd(0));
+        Assert.assertEquals(2, packed.getRingStart(1));
+        Assert.assertEquals(3, packed.getRingEnd(1));
+        Assert.assertEquals("[[[1.0,2.0],[3.0,4.0]],[[5.0,6.0]]]", LeafletSerializer.toJson(packed));
+    }
+
+    @Test
+    public void polygons() throws IOException {
+        PackedLatLngArray packed = PackedLatLngArray.ofPolygons(new double[] { 1, 2, 3, 4, 5, 6 }, new int[] { 0, 1, 2 }, new int[] { 0, 2 });
+        Assert.assertEquals(3, packed.getRingCount());
+        Assert.assertEquals(2, packed.getPolygonCount());
+        Assert.assertEquals(0, packed.getPolygonStart(0));
+        Assert.assertEquals(2, packed.getPolygonEnd(0));
+        Assert.assertEquals(3, packed.getPolygonEnd(1));
+        Assert.assertEquals("[[[[1.0,2.0]],[[3.0,4.0]]],[[[5.0,6.0]]]]", LeafletSerializer.toJson(packed));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOddCoordinates() {
+        PackedLatLngArray.of(1, 2, 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRingNotStartingAtZero() {
+        PackedLatLngArray.ofRings(new double[] { 1, 2, 3, 4 }, new int[] { 1 });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDecreasingRingOffsets() {
+        PackedLatLngArray.ofRings(new double[] { 1, 2, 3, 4, 5, 6 }, new int[] { 0, 2, 1 });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRingOffsetBeyondVertices() {
+        PackedLatLngArray.ofRings(new double[] { 1, 2, 3, 4 }, new int[] { 0, 3 });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsPolygonOffsetBeyondRings() {
+        PackedLatLngArray.ofPolygons(new double[] { 1, 2, 3, 4 }, new int[] { 0, 1 }, new int[] { 0, 3 });
+    }
+
+    @Test
+    public void bounds() {
+        PackedLatLngArray packed = PackedLatLngArray.ofRings(new double[] { 10, -170, -5, 20, 30, 175 }, new int[] { 0, 1 });
+        LatLngBounds bounds = packed.getBounds();
+        Assert.assertEquals(-5, bounds.getSouth(), 0);
+        Assert.assertEquals(-170, bounds.getWest(), 0);
+        Assert.assertEquals(30, bounds.getNorth(), 0);
+        Assert.assertEquals(175, bounds.getEast(), 0);
+
+        bounds.extend(new LatLng(80, 80));
+        Assert.assertEquals(30, packed.getBounds().getNorth(), 0);
+    }
+
+    @Test
+    public void packsLatLngArray() {
+        PackedLatLngArray packed = PackedLatLngArray.of(ring(1, 2, 3, 4));
+        Assert.assertEquals(2, packed.getVertexCount());
+        Assert.assertEquals(3, packed.getLat(1), 0);
+    }
+
+    @Test
+    public void packsMultiLatLngArray() {
+        MultiLatLngArray rings = new MultiLatLngArray();
+        rings.add(ring(1, 2, 3, 4));
+        rings.add(ring(5, 6));
+        PackedLatLngArray packed = PackedLatLngArray.of(rings);
+        Assert.assertEquals(2, packed.getRingCount());
+        Assert.assertEquals(2, packed.getRingStart(1));
+        Assert.assertEquals(5, packed.getLat(2), 0);
+    }
+
+    @Test
+    public void packsMultiPolygonStructure() {
+        MultiLatLngArray first = new MultiLatLngArray();
+        first.add(ring(1, 2, 3, 4));
+        first.add(ring(5, 6));
+        MultiLatLngArray second = new MultiLatLngArray();
+        second.add(ring(7, 8));
+        MultiPolygonStructure polygons = new MultiPolygonStructure();
+        polygons.addAll(Arrays.asList(first, second));
+
+        PackedLatLngArray packed = PackedLatLngArray.of(polygons);
+        Assert.assertEquals(2, packed.getPolygonCount());
+        Assert.assertEquals(3, packed.getRingCount());
+        Assert.assertEquals(2, packed.getPolygonStart(1));
+        Assert.assertEquals(7, packed.getLat(3), 0);
+    }
+
+    @Test
+    public void packedStructureIsReturnedAsIs() {
+        PackedLatLngArray packed = PackedLatLngArray.of(1, 2);
+        Assert.assertSame(packed, PackedLatLngArray.of((GeometryStructure) packed));
+    }
+
+    @Test
+    public void floatPrecision() {
+        PackedLatLngArray packed = PackedLatLngArray.ofRings(new double[] { 47.123456789, 19.987654321, 1, 2 }, new int[] { 0, 1 })
+                .withEncoding(GeometryEncoding.BINARY);
+        PackedLatLngArray floats = packed.toFloatPrecision();
+
+        Assert.assertTrue(floats.isFloatPrecision());
+        Assert.assertSame(floats, floats.toFloatPrecision());
+        Assert.assertEquals(GeometryEncoding.BINARY, floats.getEncoding());
+        Assert.assertEquals(2, floats.getRingCount());
+        Assert.assertEquals(47.123456789, floats.getLat(0), 1e-5);
+        Assert.assertEquals(19.987654321, floats.getLng(0), 1e-5);
+        Assert.assertEquals(16, floats.toByteArray().length);
+        Assert.assertEquals(32, packed.toByteArray().length);
+    }
+
+    @Test
+    public void encodingViewsShareCoordinates() {
+        PackedLatLngArray packed = PackedLatLngArray.of(1, 2, 3, 4);
+        Assert.assertSame(packed, packed.withEncoding(GeometryEncoding.JSON));
+        PackedLatLngArray encoded = packed.withEncodedPolyline(6);
+        Assert.assertEquals(GeometryEncoding.ENCODED_POLYLINE, encoded.getEncoding());
+        Assert.assertEquals(6, encoded.getPolylinePrecision());
+        Assert.assertEquals(3, encoded.getLat(1), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidPolylinePrecision() {
+        PackedLatLngArray.of(1, 2).withEncodedPolyline(8);
+    }
+
+    @Test
+    public void binaryDoublesAreLittleEndian() {
+        byte[] bytes = PackedLatLngArray.of(1.5, -2.25, 47.123456789, 19.987654321).toByteArray();
+        Assert.assertEquals(32, bytes.length);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        Assert.assertEquals(1.5, buffer.getDouble(), 0);
+        Assert.assertEquals(-2.25, buffer.getDouble(), 0);
+        Assert.assertEquals(47.123456789, buffer.getDouble(), 0);
+        Assert.assertEquals(19.987654321, buffer.getDouble(), 0);
+    }
+
+    @Test
+    public void binaryFloatsAreLittleEndian() {
+        byte[] bytes = PackedLatLngArray.of(1.5, -2.25, 47.123456789, 19.987654321).toFloatPrecision().toByteArray();
+        Assert.assertEquals(16, bytes.length);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        Assert.assertEquals(1.5f, buffer.getFloat(), 0);
+        Assert.assertEquals(-2.25f, buffer.getFloat(), 0);
+        Assert.assertEquals(47.123456789f, buffer.getFloat(), 0);
+        Assert.assertEquals(19.987654321f, buffer.getFloat(), 0);
+    }
+
+    @Test
+    public void smallBinaryIsInlined() throws IOException {
+        PackedLatLngArray packed = PackedLatLngArray
+                .ofPolygons(new double[] { 1, 2, 3, 4, 5, 6 }, new int[] { 0, 2 }, new int[] { 0, 1 })
+                .withEncoding(GeometryEncoding.BINARY);
+        JsonNode json = OBJECT_MAPPER.readTree(LeafletSerializer.toJson(packed));
+        Assert.assertEquals("PackedLatLngs", json.get("leafletType").asText());
+        Assert.assertEquals("float64", json.get("precision").asText());
+        Assert.assertEquals("[0,2,3]", json.get("ringOffsets").toString());
+        Assert.assertEquals("[0,1,2]", json.get("polygonOffsets").toString());
+        Assert.assertArrayEquals(packed.toByteArray(), Base64.getDecoder().decode(json.get("data").asText()));
+        Assert.assertNull(json.get("url"));
+    }
+
+    @Test
+    public void binaryWithoutSessionIsInlined() throws IOException {
+        PackedLatLngArray.setInlineLimit(0);
+        PackedLatLngArray packed = PackedLatLngArray.of(1, 2, 3, 4).toFloatPrecision().withEncoding(GeometryEncoding.BINARY);
+        JsonNode json = OBJECT_MAPPER.readTree(LeafletSerializer.toJson(packed));
+        Assert.assertEquals("float32", json.get("precision").asText());
+        Assert.assertEquals("[0,2]", json.get("ringOffsets").toString());
+        Assert.assertNull(json.get("polygonOffsets"));
+        Assert.assertArrayEquals(packed.toByteArray(), Base64.getDecoder().decode(json.get("data").asText()));
+    }
+
+    @Test
+    public void largeBinaryResourceIsReused() throws IOException {
+        PackedLatLngArray.setInlineLimit(0);
+        lockedSession();
+        PackedLatLngArray packed = PackedLatLngArray.of(1, 2, 3, 4);
+        PackedLatLngArray binary = packed.withEncoding(GeometryEncoding.BINARY);
+
+        String url = OBJECT_MAPPER.readTree(LeafletSerializer.toJson(binary)).get("url").asText();
+        Assert.assertEquals(url, OBJECT_MAPPER.readTree(LeafletSerializer.toJson(binary)).get("url").asText());
+        Assert.assertEquals(url, OBJECT_MAPPER
+                .readTree(LeafletSerializer.toJson(packed.withEncoding(GeometryEncoding.BINARY))).get("url").asText());
+    }
+
+    @Test
+    public void largeBinaryResourceIsUnregisteredAfterFetch() throws IOException {
+        PackedLatLngArray.setInlineLimit(0);
+        VaadinSession session = lockedSession();
+        PackedLatLngArray binary = PackedLatLngArray.of(1, 2, 3, 4).withEncoding(GeometryEncoding.BINARY);
+
+        String url = OBJECT_MAPPER.readTree(LeafletSerializer.toJson(binary)).get("url").asText();
+        Assert.assertArrayEquals(binary.toByteArray(), fetch(session, url));
+        Assert.assertFalse(session.getResourceRegistry().getResource(URI.create(url)).isPresent());
+
+        String next = OBJECT_MAPPER.readTree(LeafletSerializer.toJson(binary)).get("url").asText();
+        Assert.assertNotEquals(url, next);
+        Assert.assertTrue(session.getResourceRegistry().getResource(URI.create(next)).isPresent());
+    }
+
+    @Test
+    public void largeBinaryResourceServesSnapshot() throws IOException {
+        PackedLatLngArray.setInlineLimit(0);
+        VaadinSession session = lockedSession();
+        double[] latlngs = new double[] { 1, 2, 3, 4 };
+        PackedLatLngArray binary = PackedLatLngArray.of(latlngs).withEncoding(GeometryEncoding.BINARY);
+        byte[] expected = binary.toByteArray();
+
+        String url = OBJECT_MAPPER.readTree(LeafletSerializer.toJson(binary)).get("url").asText();
+        latlngs[0] = 10;
+        Assert.assertArrayEquals(expected, fetch(session, url));
+    }
+}
@@ -0,0 +1,187 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.vaadin.addon.leaflet4vaadin.layer.vectors.structure;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.Polygon;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.Polyline;
+import com.vaadin.addon.leaflet4vaadin.serialization.LeafletSerializer;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PolylineCodecTest {
+
+    private static final String GOOGLE_EXAMPLE = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+
+    private static final List<LatLng> GOOGLE_EXAMPLE_POINTS = Arrays.asList(new LatLng(38.5, -120.2),
+            new LatLng(40.7, -120.95), new LatLng(43.252, -126.453));
+
+    private static void assertCoordinates(List<LatLng> expected, double[] decoded, int precision) {
+        double delta = 0.5 / Math.pow(10, precision);
+        Assert.assertEquals(expected.size() * 2, decoded.length);
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).lat(), decoded[2 * i], delta);
+            Assert.assertEquals(expected.get(i).lng(), decoded[2 * i + 1], delta);
+        }
+    }
+
+    @Test
+    public void encodesReferenceExample() {
+        Assert.assertEquals(GOOGLE_EXAMPLE, PolylineCodec.encode(GOOGLE_EXAMPLE_POINTS, 5));
+    }
+
+    @Test
+    public void decodesReferenceExample() {
+        assertCoordinates(GOOGLE_EXAMPLE_POINTS, PolylineCodec.decode(GOOGLE_EXAMPLE, 5), 5);
+    }
+
+    @Test
+    public void roundTripsAllPrecisions() {
+        Random random = new Random(42);
+        List<LatLng> track = new ArrayList<>();
+        double lat = 47.5;
+        double lng = 19.05;
+        for (int i = 0; i < 500; i++) {
+            lat += (random.nextDouble() - 0.5) * 0.01;
+            lng += (random.nextDouble() - 0.5) * 0.01;
+            track.add(new LatLng(lat, lng));
+        }
+        for (int precision = PolylineCodec.MIN_PRECISION; precision <= PolylineCodec.MAX_PRECISION; precision++) {
+            assertCoordinates(track, PolylineCodec.decode(PolylineCodec.encode(track, precision), precision), precision);
+        }
+    }
+
+    @Test
+    public void higherPrecisionKeepsMoreDigits() {
+        List<LatLng> point = Collections.singletonList(new LatLng(47.1234567, 19.7654321));
+        Assert.assertEquals(47.12346, PolylineCodec.decode(PolylineCodec.encode(point, 5), 5)[0], 1e-9);
+        Assert.assertEquals(47.123457, PolylineCodec.decode(PolylineCodec.encode(point, 6), 6)[0], 1e-9);
+        Assert.assertEquals(47.1234567, PolylineCodec.decode(PolylineCodec.encode(point, 7), 7)[0], 1e-9);
+    }
+
+    @Test
+    public void encodesPackedRings() {
+        PackedLatLngArray packed = PackedLatLngArray.ofRings(
+                new double[] { 1, 2, 38.5, -120.2, 40.7, -120.95, 43.252, -126.453 }, new int[] { 0, 1 });
+        Assert.assertEquals(PolylineCodec.encode(Collections.singletonList(new LatLng(1, 2)), 5),
+                PolylineCodec.encode(packed, 0, 5));
+        Assert.assertEquals(GOOGLE_EXAMPLE, PolylineCodec.encode(packed, 1, 5));
+        Assert.assertEquals(PolylineCodec.encode(GOOGLE_EXAMPLE_POINTS, 7), PolylineCodec.encode(packed, 1, 7));
+    }
+
+    @Test
+    public void emptyInput() {
+        Assert.assertEquals("", PolylineCodec.encode(Collections.emptyList(), 5));
+        Assert.assertEquals("", PolylineCodec.encode(PackedLatLngArray.of(), 0, 6));
+        Assert.assertEquals(0, PolylineCodec.decode("", 7).length);
+    }
+
+    @Test
+    public void crossesAntimeridian() {
+        List<LatLng> track = Arrays.asList(new LatLng(-16.5, 179.9999999), new LatLng(-16.6, -179.9999999),
+                new LatLng(-16.7, 179.5), new LatLng(90, -180), new LatLng(-90, 180));
+        for (int precision = PolylineCodec.MIN_PRECISION; precision <= PolylineCodec.MAX_PRECISION; precision++) {
+            assertCoordinates(track, PolylineCodec.decode(PolylineCodec.encode(track, precision), precision), precision);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooLowPrecision() {
+        PolylineCodec.encode(GOOGLE_EXAMPLE_POINTS, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooHighPrecision() {
+        PolylineCodec.encode(PackedLatLngArray.of(1, 2), 0, 8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidDecodingPrecision() {
+        PolylineCodec.decode(GOOGLE_EXAMPLE, 8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTruncatedInput() {
+        PolylineCodec.decode(GOOGLE_EXAMPLE.substring(0, 8), 5);
+    }
+
+    @Test
+    public void latLngArrayIsSentAsLatLngsByDefault() throws IOException {
+        LatLngArray latlngs = new LatLngArray(GOOGLE_EXAMPLE_POINTS);
+        Assert.assertEquals(new ObjectMapper().writeValueAsString(new ArrayList<>(GOOGLE_EXAMPLE_POINTS)),
+                LeafletSerializer.toJson(latlngs));
+    }
+
+    @Test
+    public void latLngArrayIsSentAsEncodedPolyline() throws IOException {
+        LatLngArray latlngs = new LatLngArray(GOOGLE_EXAMPLE_POINTS);
+        latlngs.setPolylinePrecision(5);
+        JsonNode json = new ObjectMapper().readTree(LeafletSerializer.toJson(latlngs));
+        Assert.assertEquals("EncodedLatLngs", json.get("leafletType").asText());
+        Assert.assertEquals(5, json.get("precision").asInt());
+        Assert.assertEquals(1, json.get("rings").size());
+        Assert.assertEquals(GOOGLE_EXAMPLE, json.get("rings").get(0).asText());
+
+        latlngs.setPolylinePrecision(0);
+        Assert.assertTrue(new ObjectMapper().readTree(LeafletSerializer.toJson(latlngs)).isArray());
+    }
+
+    @Test
+    public void multiLatLngArrayIsSentAsEncodedPolylines() throws IOException {
+        MultiLatLngArray rings = new MultiLatLngArray();
+        rings.add(new LatLngArray(GOOGLE_EXAMPLE_POINTS));
+        rings.add(new LatLngArray(Collections.singletonList(new LatLng(1, 2))));
+        Assert.assertEquals(2, new ObjectMapper().readTree(LeafletSerializer.toJson(rings)).get(1).get(0).get("lng").asInt());
+
+        rings.setPolylinePrecision(6);
+        JsonNode json = new ObjectMapper().readTree(LeafletSerializer.toJson(rings));
+        Assert.assertEquals(6, json.get("precision").asInt());
+        Assert.assertEquals(PolylineCodec.encode(GOOGLE_EXAMPLE_POINTS, 6), json.get("rings").get(0).asText());
+        Assert.assertEquals(PolylineCodec.encode(rings.get(1), 6), json.get("rings").get(1).asText());
+    }
+
+    @Test
+    public void precisionIsSelectedPerLayer() {
+        Assert.assertEquals(0, new LatLngArray(GOOGLE_EXAMPLE_POINTS).getPolylinePrecision());
+        Polyline polyline = new Polyline(GOOGLE_EXAMPLE_POINTS);
+        polyline.setPolylinePrecision(6);
+        Assert.assertEquals(6, ((LatLngArray) polyline.getLatlngs()).getPolylinePrecision());
+
+        Polygon polygon = new Polygon(GOOGLE_EXAMPLE_POINTS);
+        polygon.setPolylinePrecision(7);
+        Assert.assertEquals(7, ((MultiLatLngArray) polygon.getLatlngs()).getPolylinePrecision());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void packedLayerPrecisionCannotBeChanged() {
+        new Polyline(PackedLatLngArray.of(1, 2, 3, 4)).setPolylinePrecision(6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidArrayPrecision() {
+        new LatLngArray(GOOGLE_EXAMPLE_POINTS).setPolylinePrecision(4);
+    }
+}
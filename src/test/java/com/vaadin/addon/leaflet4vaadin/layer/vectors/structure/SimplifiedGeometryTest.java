@@ -0,0 +1,213 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.vaadin.addon.leaflet4vaadin.layer.vectors.structure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SimplifiedGeometryTest {
+
+    private static double[] randomWalk(long seed, int vertices) {
+        Random random = new Random(seed);
+        double[] latlngs = new double[vertices * 2];
+        double lat = 47.5;
+        double lng = 19.05;
+        for (int i = 0; i < vertices; i++) {
+            lat += (random.nextDouble() - 0.5) * 0.05;
+            lng += (random.nextDouble() - 0.5) * 0.05;
+            latlngs[2 * i] = lat;
+            latlngs[2 * i + 1] = lng;
+        }
+        return latlngs;
+    }
+
+    private static double projectX(double lng) {
+        return (lng / 360 + 0.5) * 256;
+    }
+
+    private static double projectY(double lat) {
+        double sin = Math.sin(lat * Math.PI / 180);
+        return (0.5 - 0.25 * Math.log((1 + sin) / (1 - sin)) / Math.PI) * 256;
+    }
+
+    private static double squareSegmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double t = dx == 0 && dy == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy)));
+        double x = px - (ax + dx * t);
+        double y = py - (ay + dy * t);
+        return x * x + y * y;
+    }
+
+    /**
+     * The textbook recursive Douglas-Peucker algorithm in zoom 0 pixel space.
+     */
+    private static void douglasPeucker(double[] latlngs, int first, int last, double threshold, boolean[] kept) {
+        double ax = projectX(latlngs[2 * first + 1]);
+        double ay = projectY(latlngs[2 * first]);
+        double bx = projectX(latlngs[2 * last + 1]);
+        double by = projectY(latlngs[2 * last]);
+        double max = 0;
+        int index = -1;
+        for (int i = first + 1; i < last; i++) {
+            double distance = squareSegmentDistance(projectX(latlngs[2 * i + 1]), projectY(latlngs[2 * i]), ax, ay, bx, by);
+            if (distance > max) {
+                max = distance;
+                index = i;
+            }
+        }
+        if (index >= 0 && max > threshold) {
+            kept[index] = true;
+            douglasPeucker(latlngs, first, index, threshold, kept);
+            douglasPeucker(latlngs, index, last, threshold, kept);
+        }
+    }
+
+    private static List<Double> latitudes(PackedLatLngArray packed) {
+        List<Double> latitudes = new ArrayList<>();
+        for (int i = 0; i < packed.getVertexCount(); i++) {
+            latitudes.add(packed.getLat(i));
+        }
+        return latitudes;
+    }
+
+    private static boolean isSubsequence(List<Double> part, List<Double> whole) {
+        int index = 0;
+        for (Double value : whole) {
+            if (index < part.size() && part.get(index).equals(value)) {
+                index++;
+            }
+        }
+        return index == part.size();
+    }
+
+    @Test
+    public void douglasPeuckerMatchesRecursiveAlgorithm() {
+        double[] latlngs = randomWalk(7, 400);
+        SimplifiedGeometry simplified = new SimplifiedGeometry(PackedLatLngArray.of(latlngs),
+                SimplificationAlgorithm.DOUGLAS_PEUCKER, 1.0);
+        int vertices = latlngs.length / 2;
+        for (int zoom = 0; zoom <= SimplifiedGeometry.MAX_ZOOM; zoom++) {
+            double tolerance = 1.0 / (1 << zoom);
+            boolean[] kept = new boolean[vertices];
+            kept[0] = true;
+            kept[vertices - 1] = true;
+            douglasPeucker(latlngs, 0, vertices - 1, tolerance * tolerance, kept);
+            List<Double> expected = new ArrayList<>();
+            for (int i = 0; i < vertices; i++) {
+                if (kept[i]) {
+                    expected.add(latlngs[2 * i]);
+                }
+            }
+
+            List<Double> actual = latitudes(simplified.getLevel(zoom));
+            if (expected.size() > 2) {
+                Assert.assertEquals("zoom " + zoom, expected, actual);
+            } else {
+                Assert.assertEquals("zoom " + zoom, 3, actual.size());
+                Assert.assertTrue("zoom " + zoom, isSubsequence(expected, actual));
+            }
+        }
+    }
+
+    @Test
+    public void levelsAreMonotonic() {
+        PackedLatLngArray source = PackedLatLngArray.ofRings(randomWalk(11, 600), new int[] { 0, 150, 420 });
+        for (SimplificationAlgorithm algorithm : SimplificationAlgorithm.values()) {
+            SimplifiedGeometry simplified = new SimplifiedGeometry(source, algorithm, 1.0);
+            List<Double> previous = latitudes(simplified.getLevel(0));
+            for (int zoom = 1; zoom <= SimplifiedGeometry.MAX_ZOOM; zoom++) {
+                PackedLatLngArray level = simplified.getLevel(zoom);
+                Assert.assertEquals(source.getRingCount(), level.getRingCount());
+                List<Double> current = latitudes(level);
+                Assert.assertTrue(algorithm + " zoom " + zoom, isSubsequence(previous, current));
+                previous = current;
+            }
+            Assert.assertTrue(isSubsequence(previous, latitudes(source)));
+            Assert.assertTrue(previous.size() <= source.getVertexCount());
+        }
+    }
+
+    @Test
+    public void openRingKeepsEndpointsAndMostSignificantVertex() {
+        double[] line = new double[] { 0, 0, 0.001, 1, 0.05, 2, 0.002, 3, 0, 4 };
+        for (SimplificationAlgorithm algorithm : SimplificationAlgorithm.values()) {
+            PackedLatLngArray level = new SimplifiedGeometry(PackedLatLngArray.of(line), algorithm, 1000).getLevel(0);
+            Assert.assertEquals(3, level.getVertexCount());
+            Assert.assertEquals(0, level.getLng(0), 0);
+            Assert.assertEquals(2, level.getLng(1), 0);
+            Assert.assertEquals(4, level.getLng(2), 0);
+        }
+    }
+
+    @Test
+    public void closedRingDoesNotCollapse() {
+        double[] square = new double[] { 0, 0, 0, 1, 1, 1, 1, 0, 0, 0 };
+        for (SimplificationAlgorithm algorithm : SimplificationAlgorithm.values()) {
+            PackedLatLngArray level = new SimplifiedGeometry(PackedLatLngArray.of(square), algorithm, 1000).getLevel(0);
+            Assert.assertEquals(4, level.getVertexCount());
+            Assert.assertEquals(level.getLat(0), level.getLat(3), 0);
+            Assert.assertEquals(level.getLng(0), level.getLng(3), 0);
+        }
+    }
+
+    @Test
+    public void shortRingsAreKept() {
+        PackedLatLngArray source = PackedLatLngArray.ofPolygons(new double[] { 0, 0, 1, 1, 5, 5 }, new int[] { 0, 2, 3 },
+                new int[] { 0, 2 });
+        PackedLatLngArray level = new SimplifiedGeometry(source, SimplificationAlgorithm.DOUGLAS_PEUCKER, 1000).getLevel(0);
+        Assert.assertSame(source, level);
+    }
+
+    @Test
+    public void emptyGeometry() {
+        SimplifiedGeometry simplified = SimplifiedGeometry.of(PackedLatLngArray.of());
+        Assert.assertTrue(simplified.isEmpty());
+        Assert.assertNull(simplified.getBounds().getSouthWest());
+        for (int zoom = 0; zoom <= SimplifiedGeometry.MAX_ZOOM; zoom++) {
+            Assert.assertEquals(0, simplified.getLevel(zoom).getVertexCount());
+        }
+        Assert.assertFalse(simplified.setDisplayedZoom(3));
+    }
+
+    @Test
+    public void emptyRingIsKept() {
+        PackedLatLngArray source = PackedLatLngArray.ofRings(randomWalk(3, 50), new int[] { 0, 0, 20 });
+        PackedLatLngArray level = SimplifiedGeometry.of(source).getLevel(0);
+        Assert.assertEquals(3, level.getRingCount());
+        Assert.assertEquals(0, level.getRingEnd(0) - level.getRingStart(0));
+    }
+
+    @Test
+    public void displayedZoomSelectsLevel() {
+        SimplifiedGeometry simplified = SimplifiedGeometry.of(PackedLatLngArray.of(randomWalk(5, 300)));
+        Assert.assertEquals(SimplifiedGeometry.MAX_ZOOM, simplified.getDisplayedZoom());
+        Assert.assertTrue(simplified.setDisplayedZoom(0));
+        Assert.assertSame(simplified.getLevel(0), simplified.getDisplayedLevel());
+        Assert.assertFalse(simplified.setDisplayedZoom(0));
+        simplified.setDisplayedZoom(SimplifiedGeometry.MAX_ZOOM + 5);
+        Assert.assertEquals(SimplifiedGeometry.MAX_ZOOM, simplified.getDisplayedZoom());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveTolerance() {
+        new SimplifiedGeometry(PackedLatLngArray.of(1, 2), SimplificationAlgorithm.DOUGLAS_PEUCKER, 0);
+    }
+}
@@ -0,0 +1,191 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.operations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CallTrackerTest {
+
+    private final List<CompletableFuture<String>> sent = new ArrayList<>();
+    private CallTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = new CallTracker(() -> Runnable::run);
+    }
+
+    private CompletableFuture<String> submit(long timeoutMillis) {
+        return tracker.submit(sent::add, timeoutMillis);
+    }
+
+    /**
+     * The counter is updated by the timeout thread right after the future is
+     * completed.
+     */
+    private void awaitTimedOut(long expected) throws InterruptedException {
+        for (int i = 0; i < 500 && tracker.getTimedOut() < expected; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(expected, tracker.getTimedOut());
+    }
+
+    @Test
+    public void completesCall() throws Exception {
+        CompletableFuture<String> future = submit(0);
+        Assert.assertEquals(1, tracker.getInFlight());
+
+        sent.get(0).complete("result");
+
+        Assert.assertEquals("result", future.get());
+        Assert.assertEquals(0, tracker.getPending());
+        Assert.assertEquals(1, tracker.getCompleted());
+    }
+
+    @Test
+    public void queuesCallsAboveLimitInIssueOrder() {
+        tracker.setMaxInFlight(2);
+        submit(0);
+        submit(0);
+        submit(0);
+        submit(0);
+        Assert.assertEquals(2, sent.size());
+        Assert.assertEquals(2, tracker.getQueued());
+
+        sent.get(1).complete("b");
+        Assert.assertEquals(3, sent.size());
+        Assert.assertEquals(1, tracker.getQueued());
+
+        sent.get(0).completeExceptionally(new IllegalStateException());
+        Assert.assertEquals(4, sent.size());
+        Assert.assertEquals(0, tracker.getQueued());
+        Assert.assertEquals(1, tracker.getFailed());
+    }
+
+    @Test
+    public void failsCallWhoseSenderThrows() {
+        CompletableFuture<String> future = tracker.submit(completableFuture -> {
+            throw new IllegalStateException("detached");
+        }, 0);
+
+        Assert.assertTrue(future.isCompletedExceptionally());
+        Assert.assertEquals(0, tracker.getPending());
+        Assert.assertEquals(1, tracker.getFailed());
+    }
+
+    @Test
+    public void timesOutCall() throws Exception {
+        CompletableFuture<String> future = submit(20);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("The call should time out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        awaitTimedOut(1);
+        Assert.assertEquals(0, tracker.getPending());
+    }
+
+    @Test
+    public void timesOutQueuedCall() throws Exception {
+        tracker.setMaxInFlight(1);
+        submit(0);
+        CompletableFuture<String> queued = submit(20);
+        try {
+            queued.get(5, TimeUnit.SECONDS);
+            Assert.fail("The call should time out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        awaitTimedOut(1);
+        Assert.assertEquals(0, tracker.getQueued());
+
+        sent.get(0).complete("a");
+        Assert.assertEquals(1, sent.size());
+    }
+
+    @Test
+    public void timesOutWithoutSessionAccess() throws Exception {
+        tracker = new CallTracker(() -> null);
+        CompletableFuture<String> future = submit(20);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("The call should time out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        // the tracker is left to be cleared when the map is detached
+        Assert.assertEquals(0, tracker.getTimedOut());
+        Assert.assertEquals(1, tracker.getInFlight());
+    }
+
+    @Test
+    public void expiresDeferredCall() throws Exception {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        tracker.expireAfter(future, 20);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("The call should time out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        awaitTimedOut(1);
+    }
+
+    @Test
+    public void doesNotExpireCompletedCall() throws Exception {
+        CompletableFuture<String> future = submit(20);
+        sent.get(0).complete("a");
+        Thread.sleep(60);
+        Assert.assertEquals("a", future.get());
+        Assert.assertEquals(0, tracker.getTimedOut());
+    }
+
+    @Test
+    public void cancelsAllCalls() {
+        tracker.setMaxInFlight(1);
+        CompletableFuture<String> inFlight = submit(0);
+        CompletableFuture<String> queued = submit(0);
+
+        tracker.cancelAll();
+
+        Assert.assertTrue(inFlight.isCancelled());
+        Assert.assertTrue(queued.isCancelled());
+        Assert.assertEquals(1, sent.size());
+        Assert.assertEquals(0, tracker.getPending());
+        Assert.assertEquals(2, tracker.getCancelled());
+    }
+
+    @Test(expected = CancellationException.class)
+    public void cancelledCallThrows() {
+        CompletableFuture<String> future = submit(0);
+        tracker.cancelAll();
+        future.join();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidLimit() {
+        tracker.setMaxInFlight(0);
+    }
+}
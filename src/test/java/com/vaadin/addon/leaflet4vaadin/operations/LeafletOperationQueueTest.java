@@ -0,0 +1,189 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.operations;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.vaadin.addon.leaflet4vaadin.layer.Identifiable;
+import com.vaadin.addon.leaflet4vaadin.layer.groups.LayerGroup;
+import com.vaadin.addon.leaflet4vaadin.layer.ui.marker.Marker;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.Polyline;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LeafletOperationQueueTest {
+
+    private final Identifiable map = () -> "map";
+    private LeafletOperationQueue queue;
+
+    @Before
+    public void setUp() {
+        queue = new LeafletOperationQueue();
+    }
+
+    @Test
+    public void emptyQueue() {
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertEquals(0, queue.size());
+        Assert.assertTrue(queue.drain().isEmpty());
+    }
+
+    @Test
+    public void keepsIssueOrder() {
+        Marker marker = new Marker(new LatLng(1, 2));
+        queue.add(new LeafletOperation(map, "setZoom", 3));
+        queue.add(new LeafletOperation(marker, "openPopup"));
+        queue.add(new LeafletOperation(map, "panTo", "a"));
+
+        Assert.assertEquals(3, queue.size());
+        Assert.assertEquals("[map#setZoom, " + marker.getUuid() + "#openPopup, map#panTo]", names(queue.drain()));
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void coalescesSetterAtPositionOfLastInvocation() {
+        Marker marker = new Marker(new LatLng(1, 2));
+        queue.add(new LeafletOperation(marker, "setOpacity", "first"));
+        queue.add(new LeafletOperation(marker, "bringToFront"));
+        queue.add(new LeafletOperation(marker, "setOpacity", "last"));
+
+        List<LeafletOperation> operations = queue.drain();
+        Assert.assertEquals(2, operations.size());
+        Assert.assertEquals("bringToFront", operations.get(0).getFunctionName());
+        Assert.assertEquals("setOpacity", operations.get(1).getFunctionName());
+        Assert.assertEquals("last", operations.get(1).getFirstArgumentId());
+    }
+
+    @Test
+    public void operationBetweenSettersIsOverwrittenByLastSetter() {
+        Polyline polyline = new Polyline(new LatLng(1, 2), new LatLng(3, 4));
+        queue.add(new LeafletOperation(polyline, "setLatLngs", "A"));
+        queue.add(new LeafletOperation(polyline, "addLatLng", new LatLng(5, 6)));
+        queue.add(new LeafletOperation(polyline, "setLatLngs", "B"));
+
+        List<LeafletOperation> operations = queue.drain();
+        Assert.assertEquals(2, operations.size());
+        Assert.assertEquals("addLatLng", operations.get(0).getFunctionName());
+        Assert.assertEquals("setLatLngs", operations.get(1).getFunctionName());
+        Assert.assertEquals("B", operations.get(1).getFirstArgumentId());
+    }
+
+    @Test
+    public void coalescesSetterPerTarget() {
+        Marker first = new Marker(new LatLng(1, 2));
+        Marker second = new Marker(new LatLng(3, 4));
+        queue.add(new LeafletOperation(first, "setOpacity", "a"));
+        queue.add(new LeafletOperation(second, "setOpacity", "b"));
+        queue.add(new LeafletOperation(first, "setOpacity", "c"));
+
+        List<LeafletOperation> operations = queue.drain();
+        Assert.assertEquals(2, operations.size());
+        Assert.assertEquals("b", operations.get(0).getFirstArgumentId());
+        Assert.assertEquals("c", operations.get(1).getFirstArgumentId());
+    }
+
+    @Test
+    public void doesNotCoalesceNonIdempotentOperations() {
+        Marker marker = new Marker(new LatLng(1, 2));
+        queue.add(new LeafletOperation(marker, "openPopup"));
+        queue.add(new LeafletOperation(marker, "openPopup"));
+        Assert.assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void cancelsAddedAndRemovedLayer() {
+        Marker marker = new Marker(new LatLng(1, 2));
+        queue.add(new LeafletOperation(map, "setZoom", 3));
+        queue.add(new LeafletOperation(map, "addLayer", marker));
+        queue.add(new LeafletOperation(marker, "openPopup"));
+        queue.add(new LeafletOperation(marker, "setOpacity", "a"));
+        queue.add(new LeafletOperation(map, "removeLayer", marker));
+
+        Assert.assertEquals("[map#setZoom]", names(queue.drain()));
+    }
+
+    @Test
+    public void cancelsOperationsOfBoundPopup() {
+        Marker marker = new Marker(new LatLng(1, 2));
+        marker.bindPopup("content");
+        queue.add(new LeafletOperation(map, "addLayer", marker));
+        queue.add(new LeafletOperation(marker.getPopup(), "setContent", "changed"));
+        queue.add(new LeafletOperation(map, "removeLayer", marker.getUuid()));
+
+        Assert.assertTrue(queue.drain().isEmpty());
+    }
+
+    @Test
+    public void keepsOperationsIssuedBeforeAddLayer() {
+        Marker marker = new Marker(new LatLng(1, 2));
+        queue.add(new LeafletOperation(marker, "openPopup"));
+        queue.add(new LeafletOperation(map, "addLayer", marker));
+        queue.add(new LeafletOperation(map, "removeLayer", marker));
+
+        Assert.assertEquals("[" + marker.getUuid() + "#openPopup]", names(queue.drain()));
+    }
+
+    @Test
+    public void keepsRemoveLayerOfLayerAddedEarlier() {
+        Marker marker = new Marker(new LatLng(1, 2));
+        queue.add(new LeafletOperation(map, "removeLayer", marker));
+        Assert.assertEquals("[map#removeLayer]", names(queue.drain()));
+    }
+
+    @Test
+    public void doesNotCancelLayerGroups() {
+        Marker marker = new Marker(new LatLng(1, 2));
+        LayerGroup group = new LayerGroup(marker);
+        queue.add(new LeafletOperation(map, "addLayer", group));
+        queue.add(new LeafletOperation(marker, "openPopup"));
+        queue.add(new LeafletOperation(map, "removeLayer", group));
+
+        Assert.assertEquals("[map#addLayer, " + marker.getUuid() + "#openPopup, map#removeLayer]", names(queue.drain()));
+    }
+
+    @Test
+    public void setterAfterCancelledLayerIsQueued() {
+        Marker marker = new Marker(new LatLng(1, 2));
+        queue.add(new LeafletOperation(map, "addLayer", marker));
+        queue.add(new LeafletOperation(marker, "setOpacity", "a"));
+        queue.add(new LeafletOperation(map, "removeLayer", marker));
+        queue.add(new LeafletOperation(marker, "setOpacity", "b"));
+
+        List<LeafletOperation> operations = queue.drain();
+        Assert.assertEquals(1, operations.size());
+        Assert.assertEquals("b", operations.get(0).getFirstArgumentId());
+    }
+
+    @Test
+    public void drainResetsCoalescing() {
+        Marker marker = new Marker(new LatLng(1, 2));
+        queue.add(new LeafletOperation(marker, "setOpacity", "a"));
+        queue.drain();
+        queue.add(new LeafletOperation(marker, "setOpacity", "b"));
+
+        List<LeafletOperation> operations = queue.drain();
+        Assert.assertEquals(1, operations.size());
+        Assert.assertEquals("b", operations.get(0).getFirstArgumentId());
+    }
+
+    private static String names(List<LeafletOperation> operations) {
+        return operations.stream().map(operation -> operation.getLayerId() + "#" + operation.getFunctionName()).collect(Collectors.toList())
+                .toString();
+    }
+}
@@ -0,0 +1,63 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.vaadin.addon.leaflet4vaadin.operations;
+
+import com.vaadin.addon.leaflet4vaadin.layer.Identifiable;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+public class LeafletOperationTest {
+
+    private final Identifiable marker = () -> "marker";
+
+    @Test
+    public void encodesArgumentsAtInvocation() {
+        LatLng latlng = new LatLng(1, 2);
+        LeafletOperation operation = new LeafletOperation(marker, "setLatLng", latlng);
+
+        latlng.setLat(10d);
+        latlng.setLng(20d);
+
+        JsonObject sent = ((JsonArray) operation.getArguments()).getObject(0);
+        Assert.assertEquals(1, sent.getNumber("lat"), 0);
+        Assert.assertEquals(2, sent.getNumber("lng"), 0);
+    }
+
+    @Test
+    public void queuedOperationsKeepTheirOwnState() {
+        LatLng latlng = new LatLng(1, 2);
+        LeafletOperationQueue queue = new LeafletOperationQueue();
+        queue.add(new LeafletOperation(marker, "panTo", latlng));
+        latlng.setLat(5d);
+        queue.add(new LeafletOperation(marker, "panTo", latlng));
+
+        JsonObject first = queue.drain().get(0).toJson();
+        Assert.assertEquals("marker", first.getString("layerId"));
+        Assert.assertEquals("panTo", first.getString("functionName"));
+        Assert.assertEquals(1, first.getArray("arguments").getObject(0).getNumber("lat"), 0);
+    }
+
+    @Test
+    public void encodesNoArguments() {
+        LeafletOperation operation = new LeafletOperation(marker, "openPopup");
+        Assert.assertEquals(0, ((JsonArray) operation.getArguments()).length());
+    }
+}
@@ -0,0 +1,128 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.serialization;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.Polygon;
+import com.vaadin.addon.leaflet4vaadin.layer.vectors.structure.PackedLatLngArray;
+import com.vaadin.addon.leaflet4vaadin.types.LatLng;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
+
+public class LeafletSerializerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void nullValue() throws IOException {
+        Assert.assertEquals(JsonType.NULL, LeafletSerializer.toJsonValue((Object) null).getType());
+    }
+
+    @Test
+    public void scalarValues() throws IOException {
+        Assert.assertEquals(3, LeafletSerializer.toJsonValue(3).asNumber(), 0);
+        Assert.assertEquals(2.5, LeafletSerializer.toJsonValue(2.5).asNumber(), 0);
+        Assert.assertEquals(Long.MAX_VALUE, LeafletSerializer.toJsonValue(Long.MAX_VALUE).asNumber(), 0);
+        Assert.assertTrue(LeafletSerializer.toJsonValue(true).asBoolean());
+        Assert.assertEquals("a \"quoted\" \\ text", LeafletSerializer.toJsonValue("a \"quoted\" \\ text").asString());
+    }
+
+    @Test
+    public void emptyArguments() throws IOException {
+        Assert.assertEquals(0, LeafletSerializer.toJsonValue(new Serializable[0]).length());
+        Assert.assertEquals(0, LeafletSerializer.toJsonValue((Object[]) null).length());
+    }
+
+    @Test
+    public void argumentsWithNull() throws IOException {
+        JsonArray array = LeafletSerializer.toJsonValue(new Serializable[] { "a", null, 1 });
+        Assert.assertEquals(3, array.length());
+        Assert.assertEquals(JsonType.NULL, array.get(1).getType());
+    }
+
+    @Test
+    public void nestedCollections() throws IOException {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("list", Arrays.asList(1, "two", Collections.singletonMap("three", 3.0)));
+        map.put("empty", Collections.emptyMap());
+        map.put("nothing", null);
+        assertSameJson(map);
+    }
+
+    @Test
+    public void binaryIsBase64() throws IOException {
+        JsonValue value = LeafletSerializer.toJsonValue(new byte[] { 1, 2, 3 });
+        Assert.assertEquals("AQID", value.asString());
+    }
+
+    @Test
+    public void layerMatchesTextSerialization() throws IOException {
+        assertSameJson(new Polygon(new LatLng(1, 2), new LatLng(3, 4), new LatLng(5, 6)));
+    }
+
+    @Test
+    public void packedGeometryMatchesTextSerialization() throws IOException {
+        assertSameJson(PackedLatLngArray.ofRings(new double[] { 1, 2, 3, 4, 5, 6, 7, 8 }, new int[] { 0, 2 }));
+    }
+
+    private static void assertSameJson(Object value) throws IOException {
+        JsonNode expected = MAPPER.readTree(LeafletSerializer.toJson(value));
+        assertSameJson("$", expected, LeafletSerializer.toJsonValue(value));
+    }
+
+    private static void assertSameJson(String path, JsonNode expected, JsonValue actual) {
+        if (expected.isNull()) {
+            Assert.assertEquals(path, JsonType.NULL, actual.getType());
+        } else if (expected.isNumber()) {
+            Assert.assertEquals(path, JsonType.NUMBER, actual.getType());
+            Assert.assertEquals(path, expected.asDouble(), actual.asNumber(), 0);
+        } else if (expected.isTextual()) {
+            Assert.assertEquals(path, expected.asText(), actual.asString());
+        } else if (expected.isBoolean()) {
+            Assert.assertEquals(path, expected.asBoolean(), actual.asBoolean());
+        } else if (expected.isArray()) {
+            JsonArray array = (JsonArray) actual;
+            Assert.assertEquals(path, expected.size(), array.length());
+            for (int i = 0; i < expected.size(); i++) {
+                assertSameJson(path + "[" + i + "]", expected.get(i), array.get(i));
+            }
+        } else {
+            JsonObject object = (JsonObject) actual;
+            Assert.assertEquals(path, expected.size(), object.keys().length);
+            Iterator<Entry<String, JsonNode>> fields = expected.fields();
+            while (fields.hasNext()) {
+                Entry<String, JsonNode> field = fields.next();
+                Assert.assertTrue(path + "." + field.getKey(), object.hasKey(field.getKey()));
+                assertSameJson(path + "." + field.getKey(), field.getValue(), object.get(field.getKey()));
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.types;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ImmutableLatLngBoundsTest {
+
+    @Test
+    public void equalsByCorners() {
+        ImmutableLatLngBounds bounds = new ImmutableLatLngBounds(1, 2, 3, 4);
+        Assert.assertEquals(bounds, new ImmutableLatLngBounds(1, 2, 3, 4));
+        Assert.assertEquals(bounds.hashCode(), new ImmutableLatLngBounds(1, 2, 3, 4).hashCode());
+        Assert.assertNotEquals(bounds, new ImmutableLatLngBounds(1, 2, 3, 5));
+        Assert.assertNotEquals(bounds, new ImmutableLatLngBounds(0, 2, 3, 4));
+        Assert.assertNotEquals(bounds, new LatLngBounds(1, 2, 3, 4));
+    }
+
+    @Test
+    public void worksAsSetElement() {
+        Set<ImmutableLatLngBounds> bounds = new HashSet<>();
+        bounds.add(new LatLngBounds(1, 2, 3, 4).toImmutable());
+        bounds.add(new LatLngBounds(new LatLng(3, 4), new LatLng(1, 2)).toImmutable());
+        bounds.add(new LatLngBounds(1, 2, 3, 5).toImmutable());
+        Assert.assertEquals(2, bounds.size());
+    }
+
+    @Test
+    public void copiesMutableBounds() {
+        LatLngBounds bounds = new LatLngBounds(1, 2, 3, 4);
+        ImmutableLatLngBounds copy = bounds.toImmutable();
+        bounds.extend(10, 10);
+        Assert.assertEquals(3, copy.getNorth(), 0);
+        Assert.assertEquals(4, copy.getEast(), 0);
+        Assert.assertSame(copy, copy.toImmutable());
+        Assert.assertEquals("LatLngBounds", copy.getLeafletType());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void rejectsExtendByPoint() {
+        new ImmutableLatLngBounds(1, 2, 3, 4).extend(5, 6);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void rejectsExtendByBounds() {
+        new ImmutableLatLngBounds(1, 2, 3, 4).extend(new LatLngBounds(5, 6, 7, 8));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void rejectsCornerChange() {
+        new ImmutableLatLngBounds(1, 2, 3, 4).setNorthEast(new LatLng(5, 6));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void cornersAreImmutable() {
+        new ImmutableLatLngBounds(1, 2, 3, 4).getSouthWest().setLat(0d);
+    }
+}
@@ -0,0 +1,81 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.types;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ImmutableLatLngTest {
+
+    @Test
+    public void equalsByValue() {
+        ImmutableLatLng point = new ImmutableLatLng(1, 2, 3);
+        Assert.assertEquals(point, new ImmutableLatLng(1, 2, 3));
+        Assert.assertEquals(point.hashCode(), new ImmutableLatLng(1, 2, 3).hashCode());
+        Assert.assertNotEquals(point, new ImmutableLatLng(1, 2, 4));
+        Assert.assertNotEquals(point, new ImmutableLatLng(1, 3, 3));
+        Assert.assertNotEquals(point, new ImmutableLatLng(2, 2, 3));
+        Assert.assertEquals(ImmutableLatLng.of(1, 2), new ImmutableLatLng(1, 2, 0));
+    }
+
+    @Test
+    public void doesNotEqualMutablePoint() {
+        Assert.assertNotEquals(ImmutableLatLng.of(1, 2), new LatLng(1, 2));
+    }
+
+    @Test
+    public void distinguishesSignedZero() {
+        Assert.assertNotEquals(ImmutableLatLng.of(0.0, 0.0), ImmutableLatLng.of(-0.0, 0.0));
+    }
+
+    @Test
+    public void worksAsSetElement() {
+        Set<ImmutableLatLng> points = new HashSet<>();
+        points.add(new LatLng(1, 2).toImmutable());
+        points.add(new LatLng(1, 2).toImmutable());
+        points.add(new LatLng(2, 1).toImmutable());
+        Assert.assertEquals(2, points.size());
+    }
+
+    @Test
+    public void copiesMutablePoint() {
+        LatLng point = new LatLng(1, 2, 3);
+        ImmutableLatLng copy = point.toImmutable();
+        point.setLat(5d);
+        Assert.assertEquals(1, copy.lat(), 0);
+        Assert.assertEquals(2, copy.lng(), 0);
+        Assert.assertEquals(3, copy.getAltitude(), 0);
+        Assert.assertSame(copy, copy.toImmutable());
+        Assert.assertEquals("LatLng", copy.getLeafletType());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void rejectsLatitudeChange() {
+        ImmutableLatLng.of(1, 2).setLat(3d);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void rejectsLongitudeChange() {
+        ImmutableLatLng.of(1, 2).setLng(3d);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void rejectsAltitudeChange() {
+        ImmutableLatLng.of(1, 2).setAltitude(3);
+    }
+}
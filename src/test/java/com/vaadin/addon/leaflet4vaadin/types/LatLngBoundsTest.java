@@ -0,0 +1,90 @@
+// Copyright 2020 Gabor Kokeny and contributors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.vaadin.addon.leaflet4vaadin.types;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatLngBoundsTest {
+
+    private static void assertBounds(LatLngBounds bounds, double south, double west, double north, double east) {
+        Assert.assertEquals(south, bounds.getSouth(), 0);
+        Assert.assertEquals(west, bounds.getWest(), 0);
+        Assert.assertEquals(north, bounds.getNorth(), 0);
+        Assert.assertEquals(east, bounds.getEast(), 0);
+    }
+
+    @Test
+    public void boundsOfPoints() {
+        assertBounds(new LatLngBounds(new LatLng(3, -4), new LatLng(-1, 2), new LatLng(0, 0)), -1, -4, 3, 2);
+    }
+
+    @Test
+    public void extendByPoint() {
+        LatLngBounds bounds = new LatLngBounds(0, 0, 1, 1);
+        bounds.extend(5, -3);
+        assertBounds(bounds, 0, -3, 5, 1);
+        bounds.extend(new LatLng(-2, 0.5));
+        assertBounds(bounds, -2, -3, 5, 1);
+    }
+
+    @Test
+    public void extendEmptyByPoint() {
+        LatLngBounds bounds = new LatLngBounds();
+        bounds.extend(2, 3);
+        assertBounds(bounds, 2, 3, 2, 3);
+    }
+
+    @Test
+    public void extendByBoundsTakesUnion() {
+        LatLngBounds bounds = new LatLngBounds(0, 0, 1, 1);
+        bounds.extend(new LatLngBounds(-2, 0.5, 0.5, 4));
+        assertBounds(bounds, -2, 0, 1, 4);
+
+        bounds.extend(new LatLngBounds(-10, -10, 10, 10));
+        assertBounds(bounds, -10, -10, 10, 10);
+    }
+
+    @Test
+    public void extendByContainedBoundsKeepsBounds() {
+        LatLngBounds bounds = new LatLngBounds(-10, -10, 10, 10);
+        bounds.extend(new LatLngBounds(1, 2, 3, 4));
+        assertBounds(bounds, -10, -10, 10, 10);
+    }
+
+    @Test
+    public void extendEmptyByBounds() {
+        LatLngBounds bounds = new LatLngBounds();
+        bounds.extend(new LatLngBounds(1, 2, 3, 4));
+        assertBounds(bounds, 1, 2, 3, 4);
+    }
+
+    @Test
+    public void extendByEmptyBoundsKeepsBounds() {
+        LatLngBounds bounds = new LatLngBounds(1, 2, 3, 4);
+        bounds.extend(new LatLngBounds());
+        bounds.extend((LatLngBounds) null);
+        assertBounds(bounds, 1, 2, 3, 4);
+    }
+
+    @Test
+    public void extendedBoundsDoNotShareCorners() {
+        LatLngBounds source = new LatLngBounds(1, 2, 3, 4);
+        LatLngBounds bounds = new LatLngBounds();
+        bounds.extend(source);
+        source.getSouthWest().setLat(-5d);
+        assertBounds(bounds, 1, 2, 3, 4);
+    }
+}